@@ -0,0 +1,110 @@
+package org.example.benchmark;
+
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.expressions.RelationType;
+import org.example.expressions.dcs.AtomicGuard;
+import org.example.expressions.dcs.CPDBM;
+import org.example.expressions.dcs.PDBM;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.symbolic.Z3Oracle;
+import org.example.utils.Rational;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 闭包耗时随时钟数的变化：完整规范化 ({@link PDBM#canonical}) 与合取单条约束时的
+ * 增量闭包 (close-ij) / 完整闭包。不含参数的区域走整数 DBM 快速路径；
+ * 含参数时参数约束集为区间盒，比较由语法预判定与本地单纯形回答，不需要 Z3。
+ * @author Ayalyt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClosureBenchmark {
+
+    /** 时钟数 (不含零时钟) */
+    @Param({"2", "4", "8", "12", "16"})
+    private int clocks;
+
+    /** 边界是否含参数 */
+    @Param({"false", "true"})
+    private boolean parametric;
+
+    private Z3Oracle oracle;
+    private ConstraintSet constraintSet;
+    private PDBM zone;
+    private PDBM unclosed;
+    private AtomicGuard guard;
+
+    @Setup
+    public void setUp() {
+        List<Clock> clockList = new ArrayList<>();
+        clockList.add(Clock.ZERO_CLOCK);
+        for (int k = 0; k < clocks; k++) {
+            clockList.add(Clock.createNewClock());
+        }
+        Parameter[] parameters = {Parameter.createNewParameter(), Parameter.createNewParameter()};
+        oracle = new Z3Oracle(new HashSet<>(Arrays.asList(parameters)), new HashSet<>(clockList));
+        oracle.setBackend(Z3Oracle.Backend.SIMPLEX);
+
+        ConstraintSet box = ConstraintSet.TRUE_CONSTRAINT_SET;
+        for (Parameter parameter : parameters) {
+            box = box.and(ParameterConstraint.of(LinearExpression.of(parameter), LinearExpression.of(Rational.valueOf(10)),
+                    RelationType.LE));
+        }
+        // 随机的差分约束，直到得到非空区域；固定种子保证各次运行的输入相同
+        Random random = new Random(clocks * 31L + (parametric ? 1 : 0));
+        PDBM initial = PDBM.createInitial(new HashSet<>(clockList));
+        List<CPDBM> branches = Collections.emptyList();
+        while (branches.isEmpty()) {
+            List<AtomicGuard> guards = new ArrayList<>();
+            for (int k = 0; k < 2 * clocks; k++) {
+                int i = random.nextInt(clockList.size());
+                int j = random.nextInt(clockList.size() - 1);
+                if (j >= i) {
+                    j++;
+                }
+                LinearExpression bound = LinearExpression.of(Rational.valueOf(random.nextInt(20) + (i == 0 ? -10 : 0)));
+                if (parametric && random.nextInt(3) == 0) {
+                    bound = bound.add(LinearExpression.of(parameters[random.nextInt(parameters.length)]));
+                }
+                guards.add(AtomicGuard.of(clockList.get(i), clockList.get(j), bound,
+                        random.nextBoolean() ? RelationType.LT : RelationType.LE));
+            }
+            branches = initial.addGuards(guards, box, oracle);
+        }
+        constraintSet = branches.get(0).getConstraintSet();
+        zone = branches.get(0).getPdbm();
+        // 最小约束形式还原出的 PDBM 不是规范形式，作为完整闭包的输入
+        unclosed = zone.toMinimal().toPDBM();
+        guard = AtomicGuard.of(clockList.get(clocks), clockList.get(1), LinearExpression.of(Rational.ONE), RelationType.LE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        oracle.close();
+    }
+
+    @Benchmark
+    public List<CPDBM> canonical() {
+        return unclosed.canonical(constraintSet, oracle);
+    }
+
+    @Benchmark
+    public List<CPDBM> addGuardIncremental() {
+        return zone.addGuard(guard, constraintSet, oracle, true);
+    }
+
+    @Benchmark
+    public List<CPDBM> addGuardFullClosure() {
+        return zone.addGuard(guard, constraintSet, oracle, false);
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.benchmark;
+
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.expressions.RelationType;
+import org.example.expressions.dcs.AtomicGuard;
+import org.example.expressions.dcs.CPDBM;
+import org.example.expressions.dcs.PDBM;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.symbolic.OracleStatistics;
+import org.example.symbolic.Z3Oracle;
+import org.example.utils.Rational;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Z3 覆盖查询的两种求解方式在 PDBM 闭包上的对照：{@link Z3Oracle.CoverageMode#TWO_QUERIES}
+ * (两轮 push/add/check/pop) 与 {@link Z3Oracle.CoverageMode#ASSUMPTIONS} (一次 check，假设文字区分 c 与 ¬c)。
+ * 工作负载是含参数区域的完整规范化 ({@link PDBM#canonical})，参数约束集含多参数约束，
+ * 比较约束由语法预判定筛选后交给 Z3；关闭结果缓存，每次调用都真正访问求解器。
+ * 除耗时外，{@link Counters} 按迭代报告覆盖查询数与 solver.check 次数，两者之比即每次查询的 check 数；
+ * 每组参数结束时还会记录完整的 {@link OracleStatistics}。
+ * @author Ayalyt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoverageBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoverageBenchmark.class);
+
+    @Param({"TWO_QUERIES", "ASSUMPTIONS"})
+    private Z3Oracle.CoverageMode mode;
+
+    /** 时钟数 (不含零时钟) */
+    @Param({"8", "12"})
+    private int clocks;
+
+    private Z3Oracle oracle;
+    private ConstraintSet constraintSet;
+    private PDBM unclosed;
+
+    /**
+     * 每次迭代的覆盖查询数与 solver.check 次数。
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long coverageQueries;
+        public long solverChecks;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            coverageQueries = 0;
+            solverChecks = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        List<Clock> clockList = new ArrayList<>();
+        clockList.add(Clock.ZERO_CLOCK);
+        for (int k = 0; k < clocks; k++) {
+            clockList.add(Clock.createNewClock());
+        }
+        Parameter[] parameters = {Parameter.createNewParameter(), Parameter.createNewParameter()};
+        oracle = new Z3Oracle(new HashSet<>(Arrays.asList(parameters)), new HashSet<>(clockList));
+        oracle.setBackend(Z3Oracle.Backend.Z3);
+        oracle.setCoverageMode(mode);
+        oracle.setCoverageCache(null);
+
+        // p0 + p1 <= 12，p0 - p1 <= 4，p1 - p0 <= 4：不是区间盒，区间判定无法回答大部分比较
+        LinearExpression p0 = LinearExpression.of(parameters[0]);
+        LinearExpression p1 = LinearExpression.of(parameters[1]);
+        LinearExpression four = LinearExpression.of(Rational.valueOf(4));
+        ConstraintSet polytope = ConstraintSet.of(ParameterConstraint.of(p0.add(p1),
+                        LinearExpression.of(Rational.valueOf(12)), RelationType.LE))
+                .and(ParameterConstraint.of(p0.subtract(p1), four, RelationType.LE))
+                .and(ParameterConstraint.of(p1.subtract(p0), four, RelationType.LE));
+
+        // 随机的参数化差分约束，直到得到非空区域；固定种子保证两种方式的输入相同
+        Random random = new Random(clocks * 31L);
+        PDBM initial = PDBM.createInitial(new HashSet<>(clockList));
+        List<CPDBM> branches = Collections.emptyList();
+        while (branches.isEmpty()) {
+            List<AtomicGuard> guards = new ArrayList<>();
+            for (int k = 0; k < 2 * clocks; k++) {
+                int i = random.nextInt(clockList.size());
+                int j = random.nextInt(clockList.size() - 1);
+                if (j >= i) {
+                    j++;
+                }
+                LinearExpression bound = LinearExpression.of(Rational.valueOf(random.nextInt(20) + (i == 0 ? -10 : 0)));
+                if (random.nextBoolean()) {
+                    bound = bound.add(random.nextBoolean() ? p0 : p1);
+                }
+                guards.add(AtomicGuard.of(clockList.get(i), clockList.get(j), bound,
+                        random.nextBoolean() ? RelationType.LT : RelationType.LE));
+            }
+            branches = initial.addGuards(guards, polytope, oracle);
+        }
+        constraintSet = branches.get(0).getConstraintSet();
+        // 最小约束形式还原出的 PDBM 不是规范形式，规范化时重新产生全部比较查询
+        unclosed = branches.get(0).getPdbm().toMinimal().toPDBM();
+        oracle.getStatistics().reset();
+    }
+
+    @TearDown
+    public void tearDown() {
+        logger.info("CoverageBenchmark[mode={}, clocks={}]: {}", mode, clocks, oracle.getStatistics());
+        oracle.close();
+    }
+
+    @Benchmark
+    public List<CPDBM> canonical(Counters counters) {
+        OracleStatistics statistics = oracle.getStatistics();
+        long queries = statistics.getCoverageQueries();
+        long checks = statistics.getSolverChecks();
+        List<CPDBM> result = unclosed.canonical(constraintSet, oracle);
+        counters.coverageQueries += statistics.getCoverageQueries() - queries;
+        counters.solverChecks += statistics.getSolverChecks() - checks;
+        return result;
+    }
+}
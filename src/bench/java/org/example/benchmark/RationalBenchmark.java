@@ -0,0 +1,256 @@
+package org.example.benchmark;
+
+import org.example.core.Parameter;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.utils.Rational;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rational 的 long 快速路径与纯 BigInteger 表示的对照：同一组操作数上的加法累加、逐项乘法与比较，
+ * 以及 PDBM 路径边界 D[i][k] + D[k][j] 形式的参数化边界相加 (LinearExpression.add)。
+ * 对照组 {@link BigRational} 与引入快速路径之前的 Rational 算法相同 (BigInteger 分子分母、gcd 约分、交叉相乘比较)，
+ * 只是去掉了字符串键缓存，因此得到的是 BigInteger 运算本身的开销下界；{@link BigLinearExpression} 以它为系数，
+ * 按参数编号归并相加，不做哈希构造。
+ * @author Ayalyt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RationalBenchmark {
+
+    private static final int COUNT = 1024;
+    private static final int PARAMETERS = 4;
+
+    /** 操作数：INTEGER 为整数 (时钟常数的典型情况)，FRACTION 为分母不超过 12 的分数 */
+    @Param({"INTEGER", "FRACTION"})
+    private String operands;
+
+    private Rational[] rationals;
+    private BigRational[] bigRationals;
+    private LinearExpression[] bounds;
+    private BigLinearExpression[] bigBounds;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        rationals = new Rational[COUNT];
+        bigRationals = new BigRational[COUNT];
+        for (int k = 0; k < COUNT; k++) {
+            long numerator = random.nextInt(2001) - 1000;
+            long denominator = "INTEGER".equals(operands) ? 1 : 1 + random.nextInt(12);
+            rationals[k] = Rational.valueOf(numerator, denominator);
+            bigRationals[k] = BigRational.of(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+        }
+
+        // 参数化边界 c + Σ aᵢ·pᵢ：常数取自上面的操作数，每个参数以 1/2 的概率出现，系数取自 [-3, 3] (FRACTION 时再除以 1..4)
+        Parameter[] parameters = new Parameter[PARAMETERS];
+        for (int p = 0; p < PARAMETERS; p++) {
+            parameters[p] = Parameter.createNewParameter();
+        }
+        bounds = new LinearExpression[COUNT];
+        bigBounds = new BigLinearExpression[COUNT];
+        for (int k = 0; k < COUNT; k++) {
+            LinearExpression bound = LinearExpression.of(rationals[k]);
+            BigLinearExpression bigBound = BigLinearExpression.of(bigRationals[k]);
+            for (int p = 0; p < PARAMETERS; p++) {
+                if (random.nextBoolean()) {
+                    long numerator = random.nextInt(7) - 3;
+                    long denominator = "INTEGER".equals(operands) ? 1 : 1 + random.nextInt(4);
+                    bound = bound.add(LinearExpression.of(parameters[p], Rational.valueOf(numerator, denominator)));
+                    bigBound = bigBound.add(BigLinearExpression.of(p,
+                            BigRational.of(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator))));
+                }
+            }
+            bounds[k] = bound;
+            bigBounds[k] = bigBound;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Rational sumLong() {
+        Rational sum = Rational.ZERO;
+        for (Rational r : rationals) {
+            sum = sum.add(r);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public BigRational sumBigInteger() {
+        BigRational sum = BigRational.ZERO;
+        for (BigRational r : bigRationals) {
+            sum = sum.add(r);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void multiplyLong(Blackhole blackhole) {
+        for (int k = 1; k < COUNT; k++) {
+            blackhole.consume(rationals[k - 1].multiply(rationals[k]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void multiplyBigInteger(Blackhole blackhole) {
+        for (int k = 1; k < COUNT; k++) {
+            blackhole.consume(bigRationals[k - 1].multiply(bigRationals[k]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int compareLong() {
+        int ascending = 0;
+        for (int k = 1; k < COUNT; k++) {
+            if (rationals[k - 1].compareTo(rationals[k]) < 0) {
+                ascending++;
+            }
+        }
+        return ascending;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int compareBigInteger() {
+        int ascending = 0;
+        for (int k = 1; k < COUNT; k++) {
+            if (bigRationals[k - 1].compareTo(bigRationals[k]) < 0) {
+                ascending++;
+            }
+        }
+        return ascending;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void addExpressionLong(Blackhole blackhole) {
+        for (int k = 1; k < COUNT; k++) {
+            blackhole.consume(bounds[k - 1].add(bounds[k]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void addExpressionBigInteger(Blackhole blackhole) {
+        for (int k = 1; k < COUNT; k++) {
+            blackhole.consume(bigBounds[k - 1].add(bigBounds[k]));
+        }
+    }
+
+    /**
+     * 只用 BigInteger 的有限有理数，分母为正且已约分。
+     */
+    public static final class BigRational implements Comparable<BigRational> {
+
+        static final BigRational ZERO = new BigRational(BigInteger.ZERO, BigInteger.ONE);
+
+        private final BigInteger numerator;
+        private final BigInteger denominator;
+
+        private BigRational(BigInteger numerator, BigInteger denominator) {
+            this.numerator = numerator;
+            this.denominator = denominator;
+        }
+
+        static BigRational of(BigInteger numerator, BigInteger denominator) {
+            if (numerator.signum() == 0) {
+                return ZERO;
+            }
+            if (denominator.signum() < 0) {
+                numerator = numerator.negate();
+                denominator = denominator.negate();
+            }
+            BigInteger gcd = numerator.gcd(denominator);
+            if (!gcd.equals(BigInteger.ONE)) {
+                numerator = numerator.divide(gcd);
+                denominator = denominator.divide(gcd);
+            }
+            return new BigRational(numerator, denominator);
+        }
+
+        BigRational add(BigRational other) {
+            return of(numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
+                    denominator.multiply(other.denominator));
+        }
+
+        BigRational multiply(BigRational other) {
+            return of(numerator.multiply(other.numerator), denominator.multiply(other.denominator));
+        }
+
+        @Override
+        public int compareTo(BigRational other) {
+            return numerator.multiply(other.denominator).compareTo(other.numerator.multiply(denominator));
+        }
+    }
+
+    /**
+     * 以 {@link BigRational} 为系数的线性表达式：参数编号升序的平行数组，系数非零。
+     */
+    public static final class BigLinearExpression {
+
+        private final int[] ids;
+        private final BigRational[] coefficients;
+        private final BigRational constant;
+
+        private BigLinearExpression(int[] ids, BigRational[] coefficients, BigRational constant) {
+            this.ids = ids;
+            this.coefficients = coefficients;
+            this.constant = constant;
+        }
+
+        static BigLinearExpression of(BigRational constant) {
+            return new BigLinearExpression(new int[0], new BigRational[0], constant);
+        }
+
+        static BigLinearExpression of(int id, BigRational coefficient) {
+            if (coefficient.numerator.signum() == 0) {
+                return of(BigRational.ZERO);
+            }
+            return new BigLinearExpression(new int[]{id}, new BigRational[]{coefficient}, BigRational.ZERO);
+        }
+
+        BigLinearExpression add(BigLinearExpression other) {
+            int[] newIds = new int[ids.length + other.ids.length];
+            BigRational[] newCoefficients = new BigRational[newIds.length];
+            int a = 0;
+            int b = 0;
+            int n = 0;
+            while (a < ids.length || b < other.ids.length) {
+                int id;
+                BigRational coefficient;
+                if (b == other.ids.length || (a < ids.length && ids[a] < other.ids[b])) {
+                    id = ids[a];
+                    coefficient = coefficients[a++];
+                } else if (a == ids.length || other.ids[b] < ids[a]) {
+                    id = other.ids[b];
+                    coefficient = other.coefficients[b++];
+                } else {
+                    id = ids[a];
+                    coefficient = coefficients[a++].add(other.coefficients[b++]);
+                    if (coefficient.numerator.signum() == 0) {
+                        continue;
+                    }
+                }
+                newIds[n] = id;
+                newCoefficients[n] = coefficient;
+                n++;
+            }
+            return new BigLinearExpression(Arrays.copyOf(newIds, n), Arrays.copyOf(newCoefficients, n),
+                    constant.add(other.constant));
+        }
+    }
+}
@@ -9,7 +9,9 @@ import org.example.expressions.RelationType;
 import org.example.expressions.ToZ3BoolExpr;
 import org.example.expressions.parameters.LinearExpression;
 import org.example.symbolic.Z3VariableManager;
+import org.example.utils.CacheStatistics;
 import org.example.utils.Rational;
+import org.example.utils.WeakInterner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,16 +24,24 @@ import java.util.Objects;
  * 此类是不可变的。
  * @author Ayalyt
  */
-@Getter
 public final class AtomicGuard implements Comparable<AtomicGuard>, ToZ3BoolExpr {
 
     private static final Logger logger = LoggerFactory.getLogger(AtomicGuard.class);
 
+    // 哈希构造表：PDBM 各单元格中反复出现的相同约束共享同一实例
+    private static final WeakInterner<AtomicGuard> INTERNER = new WeakInterner<>("AtomicGuard", g -> 32L);
+
+    @Getter
     private final Clock clock1;       // 第一个时钟 (c_i)
+    @Getter
     private final Clock clock2;       // 第二个时钟 (c_j)
+    @Getter
     private final LinearExpression bound; // 边界值 (E), 必须是 LinearExpression
+    @Getter
     private final RelationType relation; // 关系类型 (<, <=, >, >=)
 
+    private final int hashCode;
+
     /**
      * 私有构造函数，用于创建原子时钟差分约束。
      * 内部会进行规范化：确保 clock1.id <= clock2.id。
@@ -62,11 +72,12 @@ public final class AtomicGuard implements Comparable<AtomicGuard>, ToZ3BoolExpr
             this.bound = bound;
             this.relation = relation;
         }
+        this.hashCode = Objects.hash(this.clock1, this.clock2, this.bound, this.relation);
         logger.debug("创建了一个 AtomicGuard: {}", this);
         // 检查自身矛盾 (在规范化后检查)
         if (this.clock1.equals(this.clock2)) { // 形式为 x - x ~ E
             // 此时，E 必须是常数，否则无法判断矛盾
-            if (!this.bound.getCoefficients().isEmpty()) {
+            if (!this.bound.isConstant()) {
                 logger.warn("AtomicGuard-构造函数: 约束 {} - {} {} {} 包含自身时钟差分，但边界表达式包含参数。这可能导致无法在构造时判断矛盾。",
                         this.clock1.getName(), this.clock2.getName(), this.relation.getSymbol(), this.bound);
                 // 这种情况下，矛盾判断需要 Z3 在运行时进行
@@ -92,13 +103,25 @@ public final class AtomicGuard implements Comparable<AtomicGuard>, ToZ3BoolExpr
 
     // --- 工厂方法 ---
     public static AtomicGuard of(Clock c1, Clock c2, LinearExpression bound, RelationType relation) {
-        return new AtomicGuard(c1, c2, bound, relation);
+        return intern(new AtomicGuard(c1, c2, bound, relation));
+    }
+
+    public static AtomicGuard lessThan(Clock c, Rational value) { return intern(new AtomicGuard(c, Clock.ZERO_CLOCK, LinearExpression.of(value), RelationType.LT)); }
+    public static AtomicGuard lessEqual(Clock c, Rational value) { return intern(new AtomicGuard(c, Clock.ZERO_CLOCK, LinearExpression.of(value), RelationType.LE)); }
+    public static AtomicGuard greaterThan(Clock c, Rational value) { return intern(new AtomicGuard(c, Clock.ZERO_CLOCK, LinearExpression.of(value), RelationType.GT)); }
+    public static AtomicGuard greaterEqual(Clock c, Rational value) { return intern(new AtomicGuard(c, Clock.ZERO_CLOCK, LinearExpression.of(value), RelationType.GE)); }
+
+    private static AtomicGuard intern(AtomicGuard guard) {
+        return INTERNER.intern(guard);
     }
 
-    public static AtomicGuard lessThan(Clock c, Rational value) { return new AtomicGuard(c, Clock.ZERO_CLOCK, LinearExpression.of(value), RelationType.LT); }
-    public static AtomicGuard lessEqual(Clock c, Rational value) { return new AtomicGuard(c, Clock.ZERO_CLOCK, LinearExpression.of(value), RelationType.LE); }
-    public static AtomicGuard greaterThan(Clock c, Rational value) { return new AtomicGuard(c, Clock.ZERO_CLOCK, LinearExpression.of(value), RelationType.GT); }
-    public static AtomicGuard greaterEqual(Clock c, Rational value) { return new AtomicGuard(c, Clock.ZERO_CLOCK, LinearExpression.of(value), RelationType.GE); }
+    /**
+     * 获取哈希构造表的命中统计。
+     * @return 统计信息。
+     */
+    public static CacheStatistics getInternStatistics() {
+        return INTERNER.getStatistics();
+    }
 
     /**
      * 取反当前原子约束。
@@ -106,12 +129,16 @@ public final class AtomicGuard implements Comparable<AtomicGuard>, ToZ3BoolExpr
      */
     public AtomicGuard negate() {
         // 注意：这里是对整个不等式进行逻辑否定，不涉及操作数交换
-        return new AtomicGuard(this.clock1, this.clock2, this.bound, this.relation.negate());
+        return intern(new AtomicGuard(this.clock1, this.clock2, this.bound, this.relation.negate()));
     }
 
     // --- Z3 转换 ---
     @Override
     public BoolExpr toZ3BoolExpr(Context ctx, Z3VariableManager varManager) {
+        return varManager.translate(this, () -> buildZ3BoolExpr(ctx, varManager));
+    }
+
+    private BoolExpr buildZ3BoolExpr(Context ctx, Z3VariableManager varManager) {
         ArithExpr z3Clock1 = varManager.getZ3Var(clock1);
         ArithExpr z3Clock2 = varManager.getZ3Var(clock2);
         ArithExpr z3Bound = bound.toZ3ArithExpr(ctx, varManager); // 调用 LinearExpression 的 Z3 转换方法
@@ -137,7 +164,8 @@ public final class AtomicGuard implements Comparable<AtomicGuard>, ToZ3BoolExpr
         }
         AtomicGuard that = (AtomicGuard) o;
         // 由于构造函数已规范化，直接比较字段即可
-        return relation == that.relation &&
+        return hashCode == that.hashCode &&
+                relation == that.relation &&
                 clock1.equals(that.clock1) &&
                 clock2.equals(that.clock2) &&
                 bound.equals(that.bound); // 比较 LinearExpression
@@ -145,8 +173,8 @@ public final class AtomicGuard implements Comparable<AtomicGuard>, ToZ3BoolExpr
 
     @Override
     public int hashCode() {
-        // 由于构造函数已规范化，直接计算哈希码即可
-        return Objects.hash(clock1, clock2, bound, relation);
+        // 由于构造函数已规范化，哈希码在构造时计算一次
+        return hashCode;
     }
 
     @Override
@@ -1,4 +1,295 @@
 package org.example.expressions.dcs;
 
-public class CPDBM {
+import lombok.Getter;
+import org.example.automata.base.ResetSet;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.symbolic.Z3Oracle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 带参数约束的 PDBM (Constrained PDBM)，即论文中的 (C, D) 对：
+ * 参数约束集 C 描述参数空间的一个子区域，D 是在该子区域上成立的时钟区域。
+ * 作为符号状态的区域部分，{@link #applyGuard}、{@link #delay}、{@link #reset}、{@link #canonical}
+ * 都返回分裂后的分支列表 (区域为空时为空列表)，各分支的参数约束集互不相交。
+ * <p>
+ * 分裂出的分支之间共享结构：PDBM 的 delay、reset 与单元格收紧只记录补丁并共享底层数组，
+ * 闭包中没有变化的分支直接复用原 PDBM；惰性模式下待合取的约束保存在不可变的单链表中，
+ * 追加时不复制已有部分，分支各自持有一个指向公共前缀的节点。
+ * 参数约束集也是如此：分裂时 C ∧ c 与 C ∧ ¬c 只记录父约束集 C 与新约束 (见 {@link ConstraintSet#and(ParameterConstraint)})，
+ * 有序集合在求解器翻译或比较时才展开。
+ * <p>
+ * 惰性模式 ({@link #lazy}) 下 applyGuard 不调用 Oracle，只记下约束；
+ * 直到需要比较或保存状态 ({@link #canonical}、{@link #includedIn})，或者 delay、reset 需要规范形式时，
+ * 才把积累的约束一次性合取并闭包 (见 {@link PDBM#addGuards})，每个分支只做一次完整闭包，而不是每条约束一次增量闭包。
+ * 惰性状态的 equals 只做语法比较，放入已访问集合之前应先调用 {@link #canonical}。
+ * 此类是不可变的。
+ * @author Ayalyt
+ */
+public final class CPDBM {
+
+    @Getter
+    private final ConstraintSet constraintSet;
+    @Getter
+    private final PDBM pdbm;
+
+    /** 是否为惰性模式，分支继承该模式 */
+    @Getter
+    private final boolean lazy;
+
+    /** 惰性模式下尚未合取的约束，最后加入的在表头；null 表示 pdbm 已是规范形式 */
+    private final PendingGuard pendingGuards;
+
+    private final int hashCode;
+
+    private CPDBM(ConstraintSet constraintSet, PDBM pdbm, boolean lazy, PendingGuard pendingGuards) {
+        this.constraintSet = Objects.requireNonNull(constraintSet, "CPDBM-构造函数: constraintSet 不能为 null");
+        this.pdbm = Objects.requireNonNull(pdbm, "CPDBM-构造函数: pdbm 不能为 null");
+        this.lazy = lazy;
+        this.pendingGuards = pendingGuards;
+        this.hashCode = Objects.hash(constraintSet, pdbm, pendingGuards);
+    }
+
+    /**
+     * 创建立即模式的 (C, D) 对，D 应是 C 上的规范形式。
+     */
+    public static CPDBM of(ConstraintSet constraintSet, PDBM pdbm) {
+        return new CPDBM(constraintSet, pdbm, false, null);
+    }
+
+    /**
+     * 创建惰性模式的 (C, D) 对，D 应是 C 上的规范形式。
+     */
+    public static CPDBM lazy(ConstraintSet constraintSet, PDBM pdbm) {
+        return new CPDBM(constraintSet, pdbm, true, null);
+    }
+
+    /**
+     * 以当前模式创建另一个 (C, D) 对。
+     */
+    private CPDBM derive(ConstraintSet newConstraintSet, PDBM newPdbm) {
+        if (newConstraintSet == constraintSet && newPdbm == pdbm && pendingGuards == null) {
+            return this;
+        }
+        return new CPDBM(newConstraintSet, newPdbm, lazy, null);
+    }
+
+    /**
+     * pdbm 是否已是规范形式 (没有待合取的约束)。
+     */
+    public boolean isCanonical() {
+        return pendingGuards == null;
+    }
+
+    // === 符号状态操作 ===
+
+    /**
+     * 合取时钟约束。立即模式下用增量闭包得到规范化的分支；惰性模式下只记下约束，返回单个未规范化的状态。
+     *
+     * @param guard 时钟约束。
+     * @param oracle Z3 Oracle 实例。
+     * @return 分支列表；时钟区域在整个 C 上都为空时返回空列表 (惰性模式下留到规范化时才能发现)。
+     */
+    public List<CPDBM> applyGuard(AtomicGuard guard, Z3Oracle oracle) {
+        if (lazy) {
+            List<CPDBM> results = new ArrayList<>(1);
+            results.add(new CPDBM(constraintSet, pdbm, true, new PendingGuard(guard, pendingGuards)));
+            return results;
+        }
+        return wrap(pdbm.addGuard(guard, constraintSet, oracle));
+    }
+
+    /**
+     * 时间流逝。需要规范形式，惰性状态会先规范化。
+     *
+     * @param oracle Z3 Oracle 实例 (仅在需要先规范化时使用)。
+     * @return 分支列表。
+     */
+    public List<CPDBM> delay(Z3Oracle oracle) {
+        List<CPDBM> results = new ArrayList<>();
+        for (CPDBM branch : canonical(oracle)) {
+            results.add(branch.derive(branch.constraintSet, branch.pdbm.delay()));
+        }
+        return results;
+    }
+
+    /**
+     * 重置时钟。需要规范形式，惰性状态会先规范化。
+     *
+     * @param resetSet 要重置的时钟及其值。
+     * @param oracle Z3 Oracle 实例 (仅在需要先规范化时使用)。
+     * @return 分支列表。
+     */
+    public List<CPDBM> reset(ResetSet resetSet, Z3Oracle oracle) {
+        List<CPDBM> results = new ArrayList<>();
+        for (CPDBM branch : canonical(oracle)) {
+            results.add(branch.derive(branch.constraintSet, branch.pdbm.reset(resetSet)));
+        }
+        return results;
+    }
+
+    /**
+     * 区域外推后重新规范化 (见 {@link PDBM#extrapolate})，通常在 delay 之后、放入已访问集合之前调用，
+     * 保证每个位置上只会出现有限多个不同的区域。惰性状态会先规范化。
+     *
+     * @param clockBounds 模型的时钟常数。
+     * @param mode 外推方式。
+     * @param oracle Z3 Oracle 实例。
+     * @return 规范化的分支列表。
+     */
+    public List<CPDBM> extrapolate(ClockBounds clockBounds, ClockBounds.Extrapolation mode, Z3Oracle oracle) {
+        List<CPDBM> results = new ArrayList<>();
+        for (CPDBM branch : canonical(oracle)) {
+            PDBM extrapolated = branch.pdbm.extrapolate(clockBounds, mode, branch.constraintSet);
+            if (extrapolated == branch.pdbm) {
+                results.add(branch);
+            } else {
+                results.addAll(branch.wrap(extrapolated.canonical(branch.constraintSet, oracle)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 规范化：合取所有待处理的约束并闭包。已是规范形式时返回只含自身的列表。
+     *
+     * @param oracle Z3 Oracle 实例。
+     * @return 规范化的分支列表 (模式与当前状态相同)；时钟区域在整个 C 上都为空时返回空列表。
+     */
+    public List<CPDBM> canonical(Z3Oracle oracle) {
+        if (pendingGuards == null) {
+            List<CPDBM> results = new ArrayList<>(1);
+            results.add(this);
+            return results;
+        }
+        return wrap(pdbm.addGuards(pendingGuards.toList(), constraintSet, oracle));
+    }
+
+    /**
+     * 包含判定：当前状态的每个分支都被 other 的某个分支覆盖，即分支的参数约束集蕴含 other 分支的参数约束集，
+     * 且在该参数约束集上时钟区域包含于 other 分支的时钟区域。两者都会先规范化。
+     * 判定是可靠的，但当前分支只被 other 的多个分支共同覆盖时会返回 false。
+     *
+     * @param other 另一个状态。
+     * @param oracle Z3 Oracle 实例。
+     * @return true 如果当前状态包含于 other。
+     */
+    public boolean includedIn(CPDBM other, Z3Oracle oracle) {
+        List<CPDBM> otherBranches = other.canonical(oracle);
+        for (CPDBM branch : canonical(oracle)) {
+            boolean covered = false;
+            for (CPDBM candidate : otherBranches) {
+                if (implies(branch.constraintSet, candidate.constraintSet, oracle)
+                        && branch.pdbm.includedIn(candidate.pdbm, branch.constraintSet, oracle)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * C 是否蕴含 D：D 中的每条约束都在 C 上恒真。
+     */
+    private static boolean implies(ConstraintSet c, ConstraintSet d, Z3Oracle oracle) {
+        if (c == d || d.isEmpty()) {
+            return true;
+        }
+        for (ParameterConstraint constraint : d.getConstraints()) {
+            if (oracle.checkCoverage(constraint, c) != Z3Oracle.OracleResult.YES) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把 PDBM 层返回的分支转换为当前模式，未变化的分支复用当前实例。
+     */
+    private List<CPDBM> wrap(List<CPDBM> branches) {
+        List<CPDBM> results = new ArrayList<>(branches.size());
+        for (CPDBM branch : branches) {
+            results.add(derive(branch.constraintSet, branch.pdbm));
+        }
+        return results;
+    }
+
+    /**
+     * 待合取约束的不可变单链表节点，分支之间共享公共前缀。
+     */
+    private static final class PendingGuard {
+        private final AtomicGuard guard;
+        private final PendingGuard previous;
+        private final int length;
+        private final int hashCode;
+
+        PendingGuard(AtomicGuard guard, PendingGuard previous) {
+            this.guard = guard;
+            this.previous = previous;
+            this.length = previous == null ? 1 : previous.length + 1;
+            this.hashCode = 31 * (previous == null ? 0 : previous.hashCode) + guard.hashCode();
+        }
+
+        /**
+         * 按加入顺序列出约束。
+         */
+        List<AtomicGuard> toList() {
+            List<AtomicGuard> guards = new ArrayList<>(length);
+            for (PendingGuard node = this; node != null; node = node.previous) {
+                guards.add(node.guard);
+            }
+            Collections.reverse(guards);
+            return guards;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PendingGuard)) {
+                return false;
+            }
+            PendingGuard that = (PendingGuard) o;
+            return hashCode == that.hashCode && length == that.length && guard.equals(that.guard)
+                    && Objects.equals(previous, that.previous);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CPDBM that = (CPDBM) o;
+        return hashCode == that.hashCode && constraintSet.equals(that.constraintSet) && pdbm.equals(that.pdbm)
+                && Objects.equals(pendingGuards, that.pendingGuards);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        String pending = pendingGuards == null ? "" : ",\n待合取: " + pendingGuards.toList();
+        return "(" + constraintSet + ",\n" + pdbm + pending + ")";
+    }
 }
@@ -0,0 +1,177 @@
+package org.example.expressions.dcs;
+
+import org.example.automata.base.ResetSet;
+import org.example.core.Clock;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterIntervals;
+import org.example.utils.CacheStatistics;
+import org.example.utils.Rational;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * 一个模型中各时钟的最大比较常数，用于区域外推 ({@link PDBM#extrapolate})。
+ * <p>
+ * 对每个时钟 x 收集模型中出现的下界常数 (x &gt; e、x &gt;= e) 与上界常数 (x &lt; e、x &lt;= e)，
+ * 以及重置值 (同时计入两者)。常数可以含参数：给定参数约束集 C 时，用 {@link ParameterIntervals}
+ * 取表达式在 C 上的最大值，得到 L(x) 与 U(x)；参数没有上界时结果为 +∞，该时钟不做外推。
+ * 出现在对角约束 (x - y ~ e) 中的时钟同样不做外推，因为此时经典外推不再保持可达性。
+ * <p>
+ * 约束表达式在创建时收集一次，每个模型只需创建一个实例；按 C 求值的结果缓存在实例中 (弱引用键)。
+ * 此类是线程安全的。
+ * @author Ayalyt
+ */
+public final class ClockBounds {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClockBounds.class);
+
+    /**
+     * 外推方式。
+     */
+    public enum Extrapolation {
+        /** 经典的最大常数外推 Extra_M，L 与 U 都取 max(L, U) */
+        MAX_CONSTANT,
+        /** 分别使用下界常数与上界常数的 Extra_LU，抽象更粗 */
+        LU
+    }
+
+    // 每个时钟出现过的下界/上界常数表达式 (已去重)
+    private final Map<Clock, Set<LinearExpression>> lowerExprs;
+    private final Map<Clock, Set<LinearExpression>> upperExprs;
+    // 出现在对角约束中的时钟，不做外推
+    private final Set<Clock> diagonalClocks;
+
+    private final Map<ConstraintSet, Resolved> resolvedCache = Collections.synchronizedMap(new WeakHashMap<>());
+    private final CacheStatistics statistics = new CacheStatistics("ClockBounds");
+
+    private ClockBounds(Map<Clock, Set<LinearExpression>> lowerExprs, Map<Clock, Set<LinearExpression>> upperExprs,
+                        Set<Clock> diagonalClocks) {
+        this.lowerExprs = lowerExprs;
+        this.upperExprs = upperExprs;
+        this.diagonalClocks = diagonalClocks;
+    }
+
+    /**
+     * 从模型中的全部时钟约束 (迁移守卫与位置不变式) 以及重置收集各时钟的比较常数。
+     *
+     * @param guards 模型中出现的所有 AtomicGuard。
+     * @param resets 模型中出现的所有重置。
+     * @return ClockBounds 实例。
+     */
+    public static ClockBounds of(Collection<AtomicGuard> guards, Collection<ResetSet> resets) {
+        Map<Clock, Set<LinearExpression>> lower = new HashMap<>();
+        Map<Clock, Set<LinearExpression>> upper = new HashMap<>();
+        Set<Clock> diagonal = new HashSet<>();
+        for (AtomicGuard guard : guards) {
+            // 统一为上界形式 c_i - c_j ~ e
+            Clock ci = PDBM.upperClock(guard);
+            Clock cj = PDBM.lowerClock(guard);
+            LinearExpression bound = PDBM.upperBound(guard);
+            if (bound.isConstant() && bound.getConstant().isInfinity()) {
+                continue;
+            }
+            if (cj.isZeroClock() && !ci.isZeroClock()) {
+                upper.computeIfAbsent(ci, k -> new HashSet<>()).add(bound);        // c_i <= e
+            } else if (ci.isZeroClock() && !cj.isZeroClock()) {
+                lower.computeIfAbsent(cj, k -> new HashSet<>()).add(bound.negate()); // c_j >= -e
+            } else if (!ci.equals(cj)) {
+                diagonal.add(ci);
+                diagonal.add(cj);
+            }
+        }
+        for (ResetSet resetSet : resets) {
+            for (Map.Entry<Clock, Rational> entry : resetSet.getResets().entrySet()) {
+                LinearExpression value = LinearExpression.of(entry.getValue());
+                lower.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).add(value);
+                upper.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).add(value);
+            }
+        }
+        if (!diagonal.isEmpty()) {
+            logger.warn("ClockBounds: 时钟 {} 出现在对角约束中，不对它们做外推", diagonal);
+        }
+        return new ClockBounds(lower, upper, diagonal);
+    }
+
+    /**
+     * 时钟 x 在参数约束集 C 上的下界常数 L(x)：非负，无法确定上限时为 +∞。零时钟为 0。
+     */
+    public Rational getLower(Clock clock, ConstraintSet constraintSet) {
+        return resolve(constraintSet).get(clock, true);
+    }
+
+    /**
+     * 时钟 x 在参数约束集 C 上的上界常数 U(x)：非负，无法确定上限时为 +∞。零时钟为 0。
+     */
+    public Rational getUpper(Clock clock, ConstraintSet constraintSet) {
+        return resolve(constraintSet).get(clock, false);
+    }
+
+    /**
+     * 获取按参数约束集求值的缓存统计。
+     * @return 统计信息。
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    private Resolved resolve(ConstraintSet constraintSet) {
+        Resolved resolved = resolvedCache.get(constraintSet);
+        if (resolved != null) {
+            statistics.recordHit();
+            return resolved;
+        }
+        statistics.recordMiss();
+        ParameterIntervals intervals = ParameterIntervals.of(constraintSet);
+        resolved = new Resolved(maxima(lowerExprs, intervals), maxima(upperExprs, intervals));
+        resolvedCache.put(constraintSet, resolved);
+        return resolved;
+    }
+
+    private Map<Clock, Rational> maxima(Map<Clock, Set<LinearExpression>> exprs, ParameterIntervals intervals) {
+        Map<Clock, Rational> result = new HashMap<>();
+        for (Map.Entry<Clock, Set<LinearExpression>> entry : exprs.entrySet()) {
+            if (diagonalClocks.contains(entry.getKey())) {
+                continue;
+            }
+            Rational max = Rational.ZERO;
+            for (LinearExpression expr : entry.getValue()) {
+                max = Rational.max(max, intervals.upperBound(expr));
+            }
+            result.put(entry.getKey(), max);
+        }
+        return result;
+    }
+
+    /**
+     * 某个参数约束集上的 L 与 U。
+     */
+    private final class Resolved {
+        private final Map<Clock, Rational> lower;
+        private final Map<Clock, Rational> upper;
+
+        Resolved(Map<Clock, Rational> lower, Map<Clock, Rational> upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        Rational get(Clock clock, boolean lowerBound) {
+            if (clock.isZeroClock()) {
+                return Rational.ZERO;
+            }
+            if (diagonalClocks.contains(clock)) {
+                return Rational.INFINITY;
+            }
+            // 模型中从未比较过的时钟，常数取 0
+            Rational value = (lowerBound ? lower : upper).get(clock);
+            return value == null ? Rational.ZERO : value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ClockBounds{lower=" + lowerExprs + ", upper=" + upperExprs + ", diagonal=" + diagonalClocks + "}";
+    }
+}
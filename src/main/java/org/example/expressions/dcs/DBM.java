@@ -0,0 +1,318 @@
+package org.example.expressions.dcs;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 不含参数的具体差分界限矩阵 (DBM)，作为 {@link PDBM} 在所有边界都是整数常数时的快速路径。
+ * <p>
+ * 边界按 UPPAAL 的方式编码为一个 long：raw = (v &lt;&lt; 1) | (非严格 ? 1 : 0)，
+ * 因此 raw 的数值顺序就是边界的松紧顺序 ((v, &lt;) 比 (v, &lt;=) 更紧)，比较与相加都是整数运算；
+ * {@link #INFINITY} 表示无上界。规范化、增量收紧、delay、reset 与包含判定全部是纯整数循环，不需要 Oracle。
+ * <p>
+ * 单元格 (i, j) 表示 c_i - c_j 的上界，下标含义与 PDBM 相同 (0 为零时钟)，时钟本身由 PDBM 维护。
+ * 边界的绝对值限制在 {@link #MAX_CONSTANT} 以内，保证闭包过程中的路径和不会溢出。
+ * 此类是不可变的。
+ * @author Ayalyt
+ */
+public final class DBM {
+
+    /** 无上界 (&lt; ∞) */
+    public static final long INFINITY = Long.MAX_VALUE;
+
+    /** (0, &lt;=)，对角线的取值 */
+    public static final long LE_ZERO = bound(0, false);
+
+    /** 可编码的最大常数绝对值；n 条边的路径和不超过 n * 2^40，远小于 long 的范围 */
+    public static final long MAX_CONSTANT = 1L << 40;
+
+    /** 矩阵大小 (含零时钟) */
+    @Getter
+    private final int size;
+
+    /** bounds[i * size + j] 为 c_i - c_j 的编码上界，构造后不再修改 */
+    private final long[] bounds;
+
+    private int hashCode;
+
+    private DBM(int size, long[] bounds) {
+        this.size = size;
+        this.bounds = bounds;
+    }
+
+    /**
+     * 用给定的编码边界创建 DBM (拷贝数组)。
+     * @param size 矩阵大小。
+     * @param bounds 长度为 size * size 的编码边界。
+     * @return DBM 实例 (不保证是规范形式)。
+     */
+    public static DBM of(int size, long[] bounds) {
+        if (bounds.length != size * size) {
+            throw new IllegalArgumentException("DBM: 边界数组长度 " + bounds.length + " 与大小 " + size + " 不符");
+        }
+        return new DBM(size, bounds.clone());
+    }
+
+    /**
+     * 所有时钟非负、没有上界的初始区域 (规范形式)。
+     */
+    public static DBM initial(int size) {
+        long[] m = new long[size * size];
+        Arrays.fill(m, INFINITY);
+        for (int j = 0; j < size; j++) {
+            m[j] = LE_ZERO;              // x0 - cj <= 0
+            m[j * size + j] = LE_ZERO;   // 对角线
+        }
+        return new DBM(size, m);
+    }
+
+    // --- 边界编码 ---
+
+    /**
+     * 编码边界 (value, &lt;) 或 (value, &lt;=)。
+     * @throws ArithmeticException 如果 |value| 超过 {@link #MAX_CONSTANT}。
+     */
+    public static long bound(long value, boolean strict) {
+        if (value > MAX_CONSTANT || value < -MAX_CONSTANT) {
+            throw new ArithmeticException("DBM: 常数 " + value + " 超出可编码范围");
+        }
+        return (value << 1) | (strict ? 0L : 1L);
+    }
+
+    /**
+     * 编码边界的常数部分，raw 不能是 {@link #INFINITY}。
+     */
+    public static long boundValue(long raw) {
+        return raw >> 1;
+    }
+
+    /**
+     * 编码边界是否严格 (&lt;)。
+     */
+    public static boolean isStrict(long raw) {
+        return (raw & 1L) == 0L;
+    }
+
+    /**
+     * 两个编码边界之和：常数相加，只有两者都非严格时结果才非严格。
+     */
+    static long add(long a, long b) {
+        if (a == INFINITY || b == INFINITY) {
+            return INFINITY;
+        }
+        return ((a & ~1L) + (b & ~1L)) | (a & b & 1L);
+    }
+
+    /**
+     * 单元格 (i, j) 的编码上界。
+     */
+    public long get(int i, int j) {
+        if (i < 0 || i >= size || j < 0 || j >= size) {
+            throw new IndexOutOfBoundsException("Index (" + i + ", " + j + ")越界：" + size);
+        }
+        return bounds[i * size + j];
+    }
+
+    // === DBM 操作 ===
+
+    /**
+     * Floyd-Warshall 规范化。
+     * @return 规范形式的 DBM；区域为空 (对角线出现负环) 时返回 null。
+     */
+    public DBM canonical() {
+        long[] m = bounds.clone();
+        boolean changed = false;
+        for (int k = 0; k < size; k++) {
+            for (int i = 0; i < size; i++) {
+                long ik = m[i * size + k];
+                if (i == k || ik == INFINITY) {
+                    continue;
+                }
+                for (int j = 0; j < size; j++) {
+                    long path = add(ik, m[k * size + j]);
+                    if (path < m[i * size + j]) {
+                        m[i * size + j] = path;
+                        changed = true;
+                    }
+                }
+                if (m[i * size + i] < LE_ZERO) {
+                    return null;
+                }
+            }
+        }
+        return changed ? new DBM(size, m) : this;
+    }
+
+    /**
+     * 合取约束 c_i - c_j ~ raw 并用增量闭包 (close-ij) 恢复规范形式，要求当前 DBM 是规范形式。
+     * @param i 行索引。
+     * @param j 列索引。
+     * @param raw 编码上界。
+     * @return 规范形式的 DBM (约束不更紧时返回当前实例)；区域为空时返回 null。
+     */
+    public DBM constrain(int i, int j, long raw) {
+        if (raw >= get(i, j)) {
+            return this;
+        }
+        if (add(raw, bounds[j * size + i]) < LE_ZERO) {
+            return null; // i → j → i 构成负环
+        }
+        long[] m = bounds.clone();
+        m[i * size + j] = raw;
+        // 无负环时第 i 列与第 j 行保持不变，只需比较经过 i → j 的路径
+        for (int k = 0; k < size; k++) {
+            long ki = m[k * size + i];
+            if (ki == INFINITY) {
+                continue;
+            }
+            long kij = add(ki, raw);
+            for (int l = 0; l < size; l++) {
+                long path = add(kij, m[j * size + l]);
+                if (path < m[k * size + l]) {
+                    m[k * size + l] = path;
+                }
+            }
+        }
+        return new DBM(size, m);
+    }
+
+    /**
+     * 将单元格 (i, j) 直接设为 raw，不做闭包。
+     * @return 新的 DBM 实例 (一般不是规范形式)。
+     */
+    public DBM with(int i, int j, long raw) {
+        get(i, j);
+        long[] m = bounds.clone();
+        m[i * size + j] = raw;
+        return new DBM(size, m);
+    }
+
+    /**
+     * 时间流逝：去掉所有时钟的上界 (第 0 列置为 ∞)，规范形式保持不变。
+     */
+    public DBM delay() {
+        long[] m = null;
+        for (int i = 1; i < size; i++) {
+            if (bounds[i * size] != INFINITY) {
+                if (m == null) {
+                    m = bounds.clone();
+                }
+                m[i * size] = INFINITY;
+            }
+        }
+        return m == null ? this : new DBM(size, m);
+    }
+
+    /**
+     * 将时钟 r 重置为 value：M[r][j] = value + M[0][j]，M[j][r] = M[j][0] - value，规范形式保持不变。
+     * @param r 时钟索引 (不能是零时钟)。
+     * @param value 重置值。
+     */
+    public DBM reset(int r, long value) {
+        if (r <= 0 || r >= size) {
+            throw new IndexOutOfBoundsException("DBM-reset: 时钟索引 " + r + " 越界：" + size);
+        }
+        long[] m = bounds.clone();
+        long plus = bound(value, false);
+        long minus = bound(-value, false);
+        for (int j = 0; j < size; j++) {
+            if (j == r) {
+                continue;
+            }
+            m[r * size + j] = add(plus, m[j]);
+            m[j * size + r] = add(m[j * size], minus);
+        }
+        m[r * size + r] = LE_ZERO;
+        return new DBM(size, m);
+    }
+
+    /**
+     * 外推 (Extra_LU)：对 i ≠ j，M[i][j] &gt; (L_i, &lt;=) 时置为 ∞，否则 M[i][j] &lt; (-U_j, &lt;) 时放宽为 (-U_j, &lt;)。
+     * lower[i] 或 upper[j] 为 {@link #INFINITY} 时对应规则不适用。结果一般需要重新规范化。
+     * @param lower 各时钟的下界常数 L (零时钟为 0)。
+     * @param upper 各时钟的上界常数 U (零时钟为 0)。
+     * @return 外推后的 DBM，没有变化时返回当前实例。
+     */
+    public DBM extrapolate(long[] lower, long[] upper) {
+        long[] m = null;
+        for (int i = 0; i < size; i++) {
+            long rowLimit = lower[i] == INFINITY ? INFINITY : bound(lower[i], false);
+            for (int j = 0; j < size; j++) {
+                long raw = bounds[i * size + j];
+                if (i == j || raw == INFINITY) {
+                    continue;
+                }
+                long replacement = raw;
+                if (raw > rowLimit) {
+                    replacement = INFINITY;
+                } else if (upper[j] != INFINITY && raw < bound(-upper[j], true)) {
+                    replacement = bound(-upper[j], true);
+                }
+                if (replacement != raw) {
+                    if (m == null) {
+                        m = bounds.clone();
+                    }
+                    m[i * size + j] = replacement;
+                }
+            }
+        }
+        return m == null ? this : new DBM(size, m);
+    }
+
+    /**
+     * 包含判定：两者都是规范形式时，当前区域包含于 other 当且仅当每个单元格都不比 other 宽松。
+     * @param other 同样大小的 DBM。
+     * @return true 如果当前区域是 other 的子集。
+     */
+    public boolean isIncludedIn(DBM other) {
+        if (size != other.size) {
+            throw new IllegalArgumentException("DBM-isIncludedIn: 大小不一致 " + size + " / " + other.size);
+        }
+        for (int index = 0; index < bounds.length; index++) {
+            if (bounds[index] > other.bounds[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // === Object 方法 ===
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DBM dbm = (DBM) o;
+        return size == dbm.size && Arrays.equals(bounds, dbm.bounds);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hashCode;
+        if (h == 0) {
+            h = 31 * size + Arrays.hashCode(bounds);
+            hashCode = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                long raw = bounds[i * size + j];
+                String element = raw == INFINITY ? "< ∞"
+                        : (isStrict(raw) ? "< " : "<= ") + boundValue(raw);
+                sb.append(String.format(" %-10s", element));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.expressions.dcs;
+
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import lombok.Getter;
+import org.example.core.Clock;
+import org.example.expressions.RelationType;
+import org.example.expressions.ToZ3BoolExpr;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.symbolic.Z3VariableManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PDBM 的最小约束形式 (shortest-path reduction)：只保留不能由其它保留边推出的边，
+ * 对角线与 ∞ 单元格不保存。由 {@link PDBM#toMinimal()} 创建。
+ * <p>
+ * 用作已访问集合中状态的紧凑存储：每个状态只需 O(保留边数) 的空间，而不是 n² 个单元格；
+ * 包含判定 {@link PDBM#includedIn(MinimalPDBM, org.example.expressions.parameters.ConstraintSet, org.example.symbolic.Z3Oracle)}
+ * 也只需检查保留的边。导出到 Z3 时同样只生成保留边的合取，公式规模更小。
+ * <p>
+ * 对同一个 PDBM，最小形式是确定的，因此 equals 相等的 PDBM 得到 equals 相等的最小形式。
+ * 用 {@link #toPDBM()} 可以还原出等价的 (非规范) PDBM，规范化后得到原区域。
+ * 此类是不可变的。
+ * @author Ayalyt
+ */
+public final class MinimalPDBM implements ToZ3BoolExpr {
+
+    /** 按索引顺序存储时钟列表，与原 PDBM 共享 */
+    @Getter
+    private final List<Clock> clockList;
+
+    /** 时钟到索引的映射，与原 PDBM 共享 */
+    private final Map<Clock, Integer> clockIndexMap;
+
+    /** 保留边的单元格下标 (i * size + j)，严格升序 */
+    private final int[] edges;
+    private final LinearExpression[] bounds;
+    private final boolean[] strict;
+
+    private final int hashCode;
+
+    MinimalPDBM(List<Clock> clockList, Map<Clock, Integer> clockIndexMap,
+                int[] edges, LinearExpression[] bounds, boolean[] strict) {
+        this.clockList = clockList;
+        this.clockIndexMap = clockIndexMap;
+        this.edges = edges;
+        this.bounds = bounds;
+        this.strict = strict;
+        int h = clockList.hashCode();
+        h = 31 * h + Arrays.hashCode(edges);
+        h = 31 * h + Arrays.hashCode(bounds);
+        h = 31 * h + Arrays.hashCode(strict);
+        this.hashCode = h;
+    }
+
+    /**
+     * 矩阵大小 (时钟数量，含零时钟)。
+     */
+    public int getSize() {
+        return clockList.size();
+    }
+
+    /**
+     * 保留的边数。
+     */
+    public int getEdgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * 第 k 条保留边的单元格下标 i * size + j。
+     */
+    int getEdge(int k) {
+        return edges[k];
+    }
+
+    /**
+     * 第 k 条保留边的上界。
+     */
+    LinearExpression getBound(int k) {
+        return bounds[k];
+    }
+
+    /**
+     * 第 k 条保留边是否严格。
+     */
+    boolean isStrict(int k) {
+        return strict[k];
+    }
+
+    /**
+     * 以 AtomicGuard 列出保留的边。
+     * @return 不可修改的约束列表。
+     */
+    public List<AtomicGuard> getGuards() {
+        int size = getSize();
+        List<AtomicGuard> guards = new ArrayList<>(edges.length);
+        for (int k = 0; k < edges.length; k++) {
+            guards.add(AtomicGuard.of(clockList.get(edges[k] / size), clockList.get(edges[k] % size), bounds[k],
+                    strict[k] ? RelationType.LT : RelationType.LE));
+        }
+        return Collections.unmodifiableList(guards);
+    }
+
+    /**
+     * 还原为 PDBM：保留的边照原样写入，其余非对角单元格为 ∞。
+     * 结果描述同一个区域，但一般不是规范形式，需要时再调用 {@link PDBM#canonical}。
+     * @return 非规范的 PDBM。
+     */
+    public PDBM toPDBM() {
+        return PDBM.fromEdges(clockList, clockIndexMap, edges, bounds, strict);
+    }
+
+    @Override
+    public BoolExpr toZ3BoolExpr(Context ctx, Z3VariableManager varManager) {
+        if (edges.length == 0) {
+            return ctx.mkTrue(); // 没有约束表示恒真
+        }
+        List<AtomicGuard> guards = getGuards();
+        BoolExpr[] z3Guards = new BoolExpr[guards.size()];
+        for (int k = 0; k < z3Guards.length; k++) {
+            z3Guards[k] = guards.get(k).toZ3BoolExpr(ctx, varManager);
+        }
+        return z3Guards.length == 1 ? z3Guards[0] : ctx.mkAnd(z3Guards);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MinimalPDBM that = (MinimalPDBM) o;
+        return hashCode == that.hashCode && clockList.equals(that.clockList) && Arrays.equals(edges, that.edges)
+                && Arrays.equals(bounds, that.bounds) && Arrays.equals(strict, that.strict);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "MinimalPDBM" + getGuards();
+    }
+}
@@ -10,75 +10,122 @@ import org.example.expressions.ToZ3BoolExpr;
 import org.example.expressions.parameters.LinearExpression;
 import org.example.expressions.parameters.ParameterConstraint;
 import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.ParameterIntervals;
 import org.example.symbolic.Z3Oracle;
 import org.example.symbolic.Z3VariableManager;
+import org.example.utils.CacheStatistics;
 import org.example.utils.Rational;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
 
 /**
  * 代表参数化差分界限矩阵 (Parametric Difference-Bound Matrix, PDBM)。
  * PDBM 是时钟差分约束的规范化合取表示，其边界是含参线性表达式。
+ * <p>
+ * 边界存放在扁平数组中：下标 i * size + j 处是上界 c_i - c_j (&lt;|&lt;=) e_ij 的 e_ij 与关系编码，
+ * 时钟由下标隐含，不再为每个单元格保存 AtomicGuard。
+ * delay、reset 只改动 O(n) 个单元格，新实例与原实例共享底层数组，只记录一个按下标排序的稀疏补丁；
+ * 补丁超过矩阵的 1/4 时才展开为新的完整数组。
+ * <p>
+ * 所有边界都是整数常数时 (没有参数)，规范化与 addGuard 自动改用 {@link DBM} 的整数实现，不调用 Oracle。
+ * 含参数的区域中，能由有理数运算直接判定的边界比较 (见 {@link #preDecide}) 同样不经过 Oracle。
  * 此类是不可变的。
  */
-@Getter
 public final class PDBM implements Comparable<PDBM>, ToZ3BoolExpr {
 
     private static final Logger logger = LoggerFactory.getLogger(PDBM.class);
 
-    /** 按索引顺序存储时钟列表, clockList.get(0)是零时钟，由构造函数保证 */
+    /** 关系编码：非严格上界 (<=) */
+    private static final byte REL_LE = 0;
+    /** 关系编码：严格上界 (<) */
+    private static final byte REL_LT = 1;
+
+    private static final LinearExpression ZERO_BOUND = LinearExpression.of(Rational.ZERO);
+    private static final LinearExpression INFINITE_BOUND = LinearExpression.of(Rational.INFINITY);
+
+    // 边界比较的语法预判定统计：命中 = 无需 Oracle 即可判定，未命中 = 交给 Oracle
+    private static final CacheStatistics PRE_DECISION_STATISTICS = new CacheStatistics("PDBM 比较预判定");
+
+    /** 按索引顺序存储时钟列表, clockList.get(0)是零时钟，由 createInitial 保证 */
+    @Getter
     private final List<Clock> clockList;
 
     /** 将时钟映射到其在矩阵中的索引 (行/列). */
+    @Getter
     private final Map<Clock, Integer> clockIndexMap;
 
     /** 矩阵大小 (时钟数量) */
+    @Getter
     private final int size;
 
+    /** 底层边界数组，bounds[i * size + j] 为 c_i - c_j 的上界 (常数 ∞ 表示无上界)。可能被多个实例共享，构造后不再修改。 */
+    private final LinearExpression[] bounds;
+
+    /** 底层关系数组，与 bounds 平行，取值为 REL_LE 或 REL_LT。可能被多个实例共享。 */
+    private final byte[] relations;
+
+    /** 覆盖底层数组的稀疏补丁，下标严格升序；没有补丁时三者均为 null。 */
+    private final int[] patchIndices;
+    private final LinearExpression[] patchBounds;
+    private final byte[] patchRelations;
+
     /**
-     * 边界矩阵. boundsMatrix[i][j]存储 c_i - c_j 的 AtomicGuard。
-     * 这里的 AtomicGuard 已经包含了边界值 (LinearExpression) 和关系类型。
+     * 64 位结构指纹 (Zobrist 风格)：各单元格 (下标, 边界, 关系) 的混合哈希的异或。
+     * 修改单元格时只需异或掉旧单元格、异或上新单元格，补丁与闭包都以 O(改动数) 增量维护，
+     * 不需要重新扫描整个矩阵。hashCode 由它折叠得到，equals 先比较指纹。
      */
-    private final AtomicGuard[][] boundsMatrix;
+    @Getter
+    private final long fingerprint;
 
-    private final int hashCode;
+    /**
+     * 惰性计算的具体 DBM 表示：null 表示尚未计算，{@link #NOT_CONCRETE} 表示含参数或非整数边界。
+     * 单个 volatile 字段，并发计算得到的值相同，任何线程都不会看到一半的状态。
+     */
+    private volatile DBM concrete;
+
+    /** {@link #concrete} 的哨兵值，只按引用比较 */
+    private static final DBM NOT_CONCRETE = DBM.of(1, new long[]{DBM.LE_ZERO});
 
     // --- 构造函数 ---
 
     /**
-     * 私有构造函数，用于内部创建 PDBM 实例 (如 copy 或规范化结果)。
+     * 私有构造函数，直接接管给定的数组，不做拷贝。
      *
-     * @param clockList     按索引排序的时钟列表。
-     * @param clockIndexMap 时钟到索引的映射。
-     * @param boundsMatrix  边界矩阵 (将被深拷贝)。
+     * @param clockList      按索引排序的时钟列表 (不可修改)。
+     * @param clockIndexMap  时钟到索引的映射 (不可修改)。
+     * @param bounds         底层边界数组。
+     * @param relations      底层关系数组。
+     * @param patchIndices   补丁下标 (升序)，无补丁时为 null。
+     * @param patchBounds    补丁边界。
+     * @param patchRelations 补丁关系。
+     * @param fingerprint    叠加补丁后的逻辑矩阵的结构指纹。
      */
-    private PDBM(List<Clock> clockList, Map<Clock, Integer> clockIndexMap, AtomicGuard[][] boundsMatrix) {
-        if(clockList.contains(Clock.ZERO_CLOCK)) {
-            this.clockList = Collections.unmodifiableList(new ArrayList<>(clockList));
-        }
-        else {
-            List<Clock> newClockList = new ArrayList<>(clockList.size() + 1);
-            newClockList.add(Clock.ZERO_CLOCK);
-            newClockList.addAll(clockList);
-            this.clockList = Collections.unmodifiableList(newClockList);
-        }
-        this.clockIndexMap = Collections.unmodifiableMap(new HashMap<>(clockIndexMap));
+    private PDBM(List<Clock> clockList, Map<Clock, Integer> clockIndexMap,
+                 LinearExpression[] bounds, byte[] relations,
+                 int[] patchIndices, LinearExpression[] patchBounds, byte[] patchRelations, long fingerprint) {
+        this.clockList = clockList;
+        this.clockIndexMap = clockIndexMap;
         this.size = clockList.size();
-
-        this.boundsMatrix = new AtomicGuard[size][size];
-        // 深拷贝矩阵内容
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                this.boundsMatrix[i][j] = boundsMatrix[i][j]; // AtomicGuard 不可变，浅拷贝引用即可
-            }
-        }
-        this.hashCode = Objects.hash(this.clockList, Arrays.deepHashCode(this.boundsMatrix));
+        this.bounds = bounds;
+        this.relations = relations;
+        this.patchIndices = patchIndices;
+        this.patchBounds = patchBounds;
+        this.patchRelations = patchRelations;
+        this.fingerprint = fingerprint;
         logger.debug("创建 PDBM: {}", this);
     }
 
+    /**
+     * 用完整数组 (无补丁) 创建同一组时钟上的 PDBM，数组的所有权转交给新实例。
+     * @param newFingerprint 新数组的结构指纹 (由调用方增量维护)。
+     */
+    private PDBM withCells(LinearExpression[] newBounds, byte[] newRelations, long newFingerprint) {
+        return new PDBM(clockList, clockIndexMap, newBounds, newRelations, null, null, null, newFingerprint);
+    }
+
     /**
      * 创建一个表示所有时钟非负区域 (ci >= 0) 的初始 PDBM。
      *
@@ -86,8 +133,8 @@ public final class PDBM implements Comparable<PDBM>, ToZ3BoolExpr {
      * @return 代表初始非负区域 (ci >= 0 for all i) 的 PDBM。
      */
     public static PDBM createInitial(Set<Clock> allClocks) {
-        List<Clock> clockList = new ArrayList<>(allClocks.size());
-        Map<Clock, Integer> clockIndexMap = new HashMap<>(allClocks.size());
+        List<Clock> clockList = new ArrayList<>(allClocks.size() + 1);
+        Map<Clock, Integer> clockIndexMap = new HashMap<>(allClocks.size() + 1);
 
         Clock zeroClock = Clock.ZERO_CLOCK;
         int index = 0;
@@ -107,30 +154,48 @@ public final class PDBM implements Comparable<PDBM>, ToZ3BoolExpr {
         }
 
         int size = clockList.size();
-        AtomicGuard[][] initialBounds = new AtomicGuard[size][size];
+        LinearExpression[] initialBounds = new LinearExpression[size * size];
+        byte[] initialRelations = new byte[size * size]; // 全部为 REL_LE
 
         // 初始化矩阵
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
-                Clock ci = clockList.get(i);
-                Clock cj = clockList.get(j);
-
-                if (i == j) {
+                if (i == j || i == 0) {
                     // 对角线元素：ci - ci <= 0 (恒真)
-                    initialBounds[i][j] = AtomicGuard.of(ci, ci, LinearExpression.of(Rational.ZERO), RelationType.LE);
-                } else if (j == 0) { // 处理第 0 列 (ci - x0)
-                    // ci - x0 <= infinity (无上界)
-                    // ci - x0 >= 0 (ci >= 0)
-                    // 论文中 DBM 存储的是上界，所以 ci >= 0 转换为 x0 - ci <= 0
-                    // 初始状态所有时钟非负，即 ci >= 0，等价于 x0 - ci <= 0
-                    initialBounds[i][j] = AtomicGuard.of(zeroClock, ci, LinearExpression.of(Rational.ZERO), RelationType.LE);
+                    // 第 0 行 (x0 - cj)：cj >= 0 转换为上界 x0 - cj <= 0
+                    initialBounds[i * size + j] = ZERO_BOUND;
                 } else {
-                    // 其他元素：ci - cj <= infinity (无上界)
-                    initialBounds[i][j] = AtomicGuard.of(ci, cj, LinearExpression.of(Rational.INFINITY), RelationType.LE); // 使用 LE 和 INFINITY 表示无上界
+                    // 其他元素 (包括第 0 列 ci - x0)：ci - cj <= infinity (无上界)
+                    initialBounds[i * size + j] = INFINITE_BOUND;
                 }
             }
         }
-        return new PDBM(clockList, clockIndexMap, initialBounds);
+        return new PDBM(Collections.unmodifiableList(clockList), Collections.unmodifiableMap(clockIndexMap),
+                initialBounds, initialRelations, null, null, null, fingerprintOf(initialBounds, initialRelations));
+    }
+
+    // --- 单元格访问 ---
+
+    /**
+     * 获取单元格 (i, j) 的上界，即 c_i - c_j (&lt;|&lt;=) e_ij 中的 e_ij，无上界时为常数 ∞。
+     * @param i 行索引。
+     * @param j 列索引。
+     * @return 上界表达式。
+     */
+    public LinearExpression getBound(int i, int j) {
+        checkIndex(i, j);
+        return bound(i * size + j);
+    }
+
+    /**
+     * 单元格 (i, j) 的上界是否严格 (&lt;)。
+     * @param i 行索引。
+     * @param j 列索引。
+     * @return 严格时为 true。
+     */
+    public boolean isStrict(int i, int j) {
+        checkIndex(i, j);
+        return relation(i * size + j) == REL_LT;
     }
 
     /**
@@ -140,268 +205,947 @@ public final class PDBM implements Comparable<PDBM>, ToZ3BoolExpr {
      * @return AtomicGuard。
      */
     public AtomicGuard getGuard(int i, int j) {
+        checkIndex(i, j);
+        int index = i * size + j;
+        return cellGuard(i, j, bound(index), relation(index) == REL_LT);
+    }
+
+    private void checkIndex(int i, int j) {
         if (i < 0 || i >= size || j < 0 || j >= size) {
             throw new IndexOutOfBoundsException("Index (" + i + ", " + j + ")越界：" + size);
         }
-        return this.boundsMatrix[i][j];
+    }
+
+    private LinearExpression bound(int index) {
+        if (patchIndices != null) {
+            int slot = Arrays.binarySearch(patchIndices, index);
+            if (slot >= 0) {
+                return patchBounds[slot];
+            }
+        }
+        return bounds[index];
+    }
+
+    private byte relation(int index) {
+        if (patchIndices != null) {
+            int slot = Arrays.binarySearch(patchIndices, index);
+            if (slot >= 0) {
+                return patchRelations[slot];
+            }
+        }
+        return relations[index];
     }
 
     // === PDBM 核心操作 ===
 
+    /**
+     * 将指定的 AtomicGuard 合取到当前 PDBM 中，并用增量闭包 (close-ij) 恢复规范形式。
+     * 要求当前 PDBM 已是规范形式 (例如 {@link #canonical} 的结果)，只重新闭合经过被收紧单元格的路径，
+     * 代价为 O(n²) 次比较，而不是完整闭包的 O(n³)。
+     * 比较结果 SPLIT 时参数空间一分为二，因此返回 (参数约束集, PDBM) 对的列表。
+     *
+     * @param newGuard 要合取的 AtomicGuard。
+     * @param currentConstraintSet 当前的参数约束集 (C)，用于 Z3 Oracle 查询。
+     * @param oracle Z3 Oracle 实例。
+     * @return 规范化后的 (参数约束集, PDBM) 对；时钟区域在整个 C 上都为空时返回空列表。
+     */
+    public List<CPDBM> addGuard(AtomicGuard newGuard, ConstraintSet currentConstraintSet, Z3Oracle oracle) {
+        return addGuard(newGuard, currentConstraintSet, oracle, true);
+    }
+
     /**
      * 将指定的 AtomicGuard 合取到当前 PDBM 中。
-     * 此操作可能导致 PDBM 分裂，因此返回一个 PDBM 集合。
      *
      * @param newGuard 要合取的 AtomicGuard。
      * @param currentConstraintSet 当前的参数约束集 (C)，用于 Z3 Oracle 查询。
      * @param oracle Z3 Oracle 实例。
-     * @return 包含一个或多个新 PDBM 的集合。如果导致不可满足，返回空集合。
+     * @param incremental true 时用 close-ij 增量闭包 (要求当前 PDBM 是规范形式)，
+     *                    false 时收紧后重新运行完整的 {@link #canonical}。
+     * @return 规范化后的 (参数约束集, PDBM) 对；时钟区域在整个 C 上都为空时返回空列表。
      */
-    public Set<PDBM> addGuard(AtomicGuard newGuard, ConstraintSet currentConstraintSet, Z3Oracle oracle) {
+    public List<CPDBM> addGuard(AtomicGuard newGuard, ConstraintSet currentConstraintSet, Z3Oracle oracle,
+                                boolean incremental) {
         logger.debug("addGuard: 尝试添加新约束 {} 到 PDBM {}", newGuard, this);
-        Set<PDBM> resultPDBMs = new HashSet<>();
-        // 1. 获取新约束对应的矩阵索引
-        Integer i = clockIndexMap.get(newGuard.getClock1());
-        Integer j = clockIndexMap.get(newGuard.getClock2());
+        List<CPDBM> results = new ArrayList<>();
+        // 1. 获取新约束对应的矩阵索引：GE/GT 形式的约束 c1 - c2 >= e 等价于上界 c2 - c1 <= -e
+        Integer i = clockIndexMap.get(upperClock(newGuard));
+        Integer j = clockIndexMap.get(lowerClock(newGuard));
         if (i == null || j == null) {
             logger.warn("addGuard: 约束 {} 中的时钟未在 PDBM 中找到，忽略此约束。", newGuard);
-            resultPDBMs.add(this); // 返回原 PDBM
-            return resultPDBMs;
-        }
-
-        AtomicGuard currentGuard = boundsMatrix[i][j];
-
-        // 2. 构造 ParameterConstraint C(D, f)
-        // 论文中 C(D, f) = e_ij (rel_ij rel) e
-        // 这里的 rel_ij 是 currentGuard.getRelation()
-        // rel 是 newGuard.getRelation()
-        // e_ij 是 currentGuard.getBound()
-        // e 是 newGuard.getBound()
-        // 这是一个复杂的逻辑，需要根据关系类型组合
-        // 简化：将所有约束转换为 (E_left - E_right) ~ 0 的形式，然后比较 E_left
-        // 假设 AtomicGuard 已经规范化为 c1 - c2 ~ E
-        // 那么 currentGuard 是 c1 - c2 ~ currentE
-        // newGuard 是 c1 - c2 ~ newE
-        // 比较 currentE 和 newE
-        // 例如：currentE <= newE
-        ParameterConstraint comparisonConstraint = createComparisonConstraint(currentGuard, newGuard);
-
-        // 3. 调用 Z3 Oracle 检查 C(D, f) 与当前参数约束集 C 的关系
-        Z3Oracle.OracleResult oracleResult = oracle.checkCoverage(comparisonConstraint, currentConstraintSet);
+            results.add(CPDBM.of(currentConstraintSet, this)); // 返回原 PDBM
+            return results;
+        }
+
+        int index = i * size + j;
+        LinearExpression currentBound = bound(index);
+        LinearExpression newBound = upperBound(newGuard);
+        boolean newStrict = isStrict(newGuard);
+
+        // 快速路径：区域与新约束都不含参数时，直接在整数 DBM 上收紧
+        DBM dbm = toConcrete();
+        if (dbm != null && isConcrete(newBound)) {
+            long raw = encode(newBound, newStrict);
+            DBM tightened = incremental ? dbm.constrain(i, j, raw)
+                    : (raw < dbm.get(i, j) ? dbm.with(i, j, raw).canonical() : dbm);
+            return concreteResult(currentConstraintSet, tightened);
+        }
+
+        // 2. 无穷边界无需询问 Oracle：新边界为 ∞ 时当前边界一定不更松，当前边界为 ∞ 时新边界一定更紧
+        Z3Oracle.OracleResult oracleResult;
+        ParameterConstraint comparisonConstraint = null;
+        if (isInfinite(newBound)) {
+            oracleResult = Z3Oracle.OracleResult.YES;
+            PRE_DECISION_STATISTICS.recordHit();
+        } else if (isInfinite(currentBound)) {
+            oracleResult = Z3Oracle.OracleResult.NO;
+            PRE_DECISION_STATISTICS.recordHit();
+        } else {
+            // 3. 构造 C(D, f) = e_ij (rel_ij ⇒ rel) e，先尝试语法判定，否则检查它与当前参数约束集 C 的关系
+            comparisonConstraint = createComparisonConstraint(
+                    currentBound, relation(index) == REL_LT, newBound, newStrict);
+            oracleResult = decide(comparisonConstraint, currentConstraintSet, oracle);
+        }
 
         switch (oracleResult) {
             case YES:
-                // C(D, f) 在 C 中恒真，说明新约束比当前约束更宽松或等价，PDBM 不变
-                resultPDBMs.add(this);
+                // C(D, f) 在 C 中恒真，说明当前约束已经不比新约束宽松，PDBM 不变
+                results.add(CPDBM.of(currentConstraintSet, this));
                 break;
             case NO:
-                // C(D, f) 在 C 中恒假，说明新约束比当前约束更紧，PDBM 必须更新
-                // 创建一个新的 PDBM 实例，更新对应的边界
-                AtomicGuard[][] newBoundsMatrix = deepCopyBoundsMatrix();
-                newBoundsMatrix[i][j] = newGuard; // 直接替换为新约束
-                PDBM updatedPDBM = new PDBM(clockList, clockIndexMap, newBoundsMatrix);
-                resultPDBMs.add(updatedPDBM);
+                // C(D, f) 在 C 中恒假，说明新约束比当前约束更紧，收紧后重新闭包
+                results.addAll(tighten(i, j, newBound, newStrict, currentConstraintSet, oracle, incremental));
                 break;
             case SPLIT:
-                // C(D, f) 在 C 中分裂，需要返回两个 PDBM
-                // PDBM1: C /\ C(D, f) -> PDBM 不变
-                // PDBM2: C /\ ¬C(D, f) -> PDBM 更新
-                // 注意：这里返回的是 PDBM，而不是 ConstrainedPDBM
-                // ConstrainedPDBM 的分裂逻辑应该在 ConstrainedPDBM.applyGuard 中处理
-                // PDBM.addGuard 应该只返回 PDBM 自身的变化
-                // 论文中 PDBM.addGuard 似乎不直接导致分裂，分裂发生在 ConstrainedPDBM 层面
-                // 重新理解论文规则 R3, R4: 它们返回的是 (C', D')，其中 C' 包含了 C(D,f) 或 ¬C(D,f)
-                // 这意味着 PDBM.addGuard 应该只返回一个 PDBM，而分裂由 ConstrainedPDBM 负责
-                // 如果是这样，PDBM.addGuard 就不应该返回 Set<PDBM>，而是一个 PDBM
-                // 让我们假设 PDBM.addGuard 总是返回一个 PDBM，分裂由 ConstrainedPDBM 处理
-                logger.warn("PDBM.addGuard 遇到 SPLIT 结果，这通常应在 ConstrainedPDBM 层面处理。返回原 PDBM。");
-                resultPDBMs.add(this); // 暂时返回原 PDBM，等待 ConstrainedPDBM 处理分裂
+                // 论文规则 R3, R4：C ∧ C(D, f) 中 PDBM 不变，C ∧ ¬C(D, f) 中收紧
+                results.add(CPDBM.of(currentConstraintSet.and(comparisonConstraint), this));
+                results.addAll(tighten(i, j, newBound, newStrict,
+                        currentConstraintSet.and(comparisonConstraint.negate()), oracle, incremental));
                 break;
             case UNKNOWN:
+            default:
                 logger.warn("Z3 Oracle 返回 UNKNOWN 结果，无法确定约束关系。返回原 PDBM。");
-                resultPDBMs.add(this); // 无法确定，返回原 PDBM
+                results.add(CPDBM.of(currentConstraintSet, this)); // 无法确定，返回原 PDBM
                 break;
-            default:
         }
-        return resultPDBMs; // 暂时返回 Set，如果 PDBM.addGuard 总是返回一个，则改为 PDBM
+        return results;
+    }
+
+    /**
+     * 将一组 AtomicGuard 一次性合取到当前 PDBM 中 (例如一条迁移上的全部时钟约束)。
+     * 与逐个调用 {@link #addGuard} 不同，这里先只收紧各单元格 (按需分裂参数空间)，不做闭包，
+     * 最后对每个分支做一次完整的 {@link #canonical}；没有任何单元格被收紧的分支直接复用当前实例。
+     * 要求当前 PDBM 是规范形式。
+     *
+     * @param guards 要合取的 AtomicGuard，按顺序处理。
+     * @param currentConstraintSet 当前的参数约束集 (C)。
+     * @param oracle Z3 Oracle 实例。
+     * @return 规范化后的 (参数约束集, PDBM) 对；时钟区域在整个 C 上都为空时返回空列表。
+     */
+    public List<CPDBM> addGuards(List<AtomicGuard> guards, ConstraintSet currentConstraintSet, Z3Oracle oracle) {
+        if (guards.size() == 1) {
+            return addGuard(guards.get(0), currentConstraintSet, oracle);
+        }
+        List<CPDBM> branches = new ArrayList<>();
+        branches.add(CPDBM.of(currentConstraintSet, this));
+        for (AtomicGuard guard : guards) {
+            Integer i = clockIndexMap.get(upperClock(guard));
+            Integer j = clockIndexMap.get(lowerClock(guard));
+            if (i == null || j == null) {
+                logger.warn("addGuards: 约束 {} 中的时钟未在 PDBM 中找到，忽略此约束。", guard);
+                continue;
+            }
+            int index = i * size + j;
+            LinearExpression newBound = upperBound(guard);
+            boolean newStrict = isStrict(guard);
+            if (isInfinite(newBound)) {
+                PRE_DECISION_STATISTICS.recordHit();
+                continue;
+            }
+
+            List<CPDBM> next = new ArrayList<>(branches.size());
+            for (CPDBM branch : branches) {
+                ConstraintSet constraintSet = branch.getConstraintSet();
+                PDBM pdbm = branch.getPdbm();
+                LinearExpression currentBound = pdbm.bound(index);
+                ParameterConstraint comparison = null;
+                Z3Oracle.OracleResult result;
+                if (isInfinite(currentBound)) {
+                    PRE_DECISION_STATISTICS.recordHit();
+                    result = Z3Oracle.OracleResult.NO;
+                } else {
+                    comparison = createComparisonConstraint(currentBound, pdbm.relation(index) == REL_LT,
+                            newBound, newStrict);
+                    result = decide(comparison, constraintSet, oracle);
+                }
+                switch (result) {
+                    case NO:
+                        next.add(CPDBM.of(constraintSet, pdbm.withCell(index, newBound, newStrict)));
+                        break;
+                    case SPLIT:
+                        next.add(CPDBM.of(constraintSet.and(comparison), pdbm));
+                        next.add(CPDBM.of(constraintSet.and(comparison.negate()),
+                                pdbm.withCell(index, newBound, newStrict)));
+                        break;
+                    case UNKNOWN:
+                        logger.warn("addGuards: Z3 Oracle 返回 UNKNOWN 结果，无法确定 {} ，保留原边界。", comparison);
+                        next.add(branch);
+                        break;
+                    case YES:
+                    default:
+                        next.add(branch);
+                        break;
+                }
+            }
+            branches = next;
+        }
+
+        List<CPDBM> results = new ArrayList<>();
+        for (CPDBM branch : branches) {
+            if (branch.getPdbm() == this) {
+                results.add(branch); // 未被收紧，仍是规范形式
+            } else {
+                results.addAll(branch.getPdbm().canonical(branch.getConstraintSet(), oracle));
+            }
+        }
+        return results;
     }
 
     /**
-     * 辅助方法：根据两个 AtomicGuard 构造一个 ParameterConstraint 用于比较。
-     * 论文中 C(D, f) = e_ij (rel_ij rel) e
-     * @param currentGuard PDBM 中已有的 AtomicGuard (c_i - c_j ~ E_current)
-     * @param newGuard 要添加的 AtomicGuard (c_i - c_j ~ E_new)
-     * @return 比较这两个 AtomicGuard 边界的 ParameterConstraint。
+     * 判定比较约束：先做语法预判定，无法判定时交给 Oracle。
      */
-    private ParameterConstraint createComparisonConstraint(AtomicGuard currentGuard, AtomicGuard newGuard) {
-        // 假设 currentGuard 和 newGuard 已经规范化为相同的 clock1 和 clock2 顺序
-        // 比较 currentGuard.bound 和 newGuard.bound
-        // 论文中 C(D, f) 的定义是 e_ij (rel_ij rel) e
-        // 这里的 rel_ij 是 currentGuard.getRelation()
-        // rel 是 newGuard.getRelation()
-        // e_ij 是 currentGuard.getBound()
-        // e 是 newGuard.getBound()
+    private static Z3Oracle.OracleResult decide(ParameterConstraint comparison, ConstraintSet constraintSet,
+                                                Z3Oracle oracle) {
+        Z3Oracle.OracleResult result = preDecide(comparison);
+        if (result != null) {
+            PRE_DECISION_STATISTICS.recordHit();
+            return result;
+        }
+        PRE_DECISION_STATISTICS.recordMiss();
+        return oracle.checkCoverage(comparison, constraintSet);
+    }
 
-        // 这是一个复杂的逻辑，需要根据关系类型组合
-        // 简单化：我们通常比较的是新约束是否比旧约束更紧
-        // 例如，如果 currentGuard 是 x-y <= E_curr，newGuard 是 x-y <= E_new
-        // 那么 C(D,f) 可能是 E_curr <= E_new
-        // 论文 Definition 9 (Canonical Form) 提到 C = e_ij (rel_ij => rel_ik rel_kj) e_ik + e_kj
-        // 这里的 C(D,f) 应该是一个 ParameterConstraint，表示新边界是否比旧边界更紧
-        // 假设我们只关心新边界是否比旧边界更紧，即 newGuard.bound <= currentGuard.bound
-        // 这是一个简化的例子，实际需要根据论文 Definition 9 的精确语义来构造
-        // 论文中 Adding Guards 部分的 C(D,xi - xj < e) = e_ij (rel_ij rel) e
-        // 这里的 rel_ij 是 DBM 中存储的关系，rel 是新 guard 的关系
-        // 这是一个复杂的逻辑，需要根据 rel_ij 和 rel 的组合来确定最终的 ParameterConstraint
-        // 暂时简化为：检查 newGuard 是否比 currentGuard 更紧
-        // 例如：newGuard.bound <= currentGuard.bound
-        // 或者：newGuard.bound < currentGuard.bound
-        // 这是一个需要精确实现的地方，暂时用一个简单的例子代替
-        return ParameterConstraint.of(newGuard.getBound(), currentGuard.getBound(), RelationType.LE); // 假设新边界 <= 旧边界
+    /**
+     * 只修改单元格 (index) 的新实例，不做闭包，与当前实例共享底层数组。
+     */
+    private PDBM withCell(int index, LinearExpression bound, boolean strict) {
+        TreeMap<Integer, Cell> patch = new TreeMap<>();
+        patch.put(index, new Cell(bound, strict ? REL_LT : REL_LE));
+        return applyPatch(patch);
     }
 
+    /**
+     * 将单元格 (i, j) 收紧为 (bound, strict) 并恢复规范形式。
+     */
+    private List<CPDBM> tighten(int i, int j, LinearExpression bound, boolean strict,
+                                ConstraintSet constraintSet, Z3Oracle oracle, boolean incremental) {
+        ClosureBranch branch = new ClosureBranch(constraintSet, materializeBounds(), materializeRelations(),
+                fingerprint, 0, new HashMap<>());
+        branch.set(i * size + j, bound, strict);
+        if (!incremental) {
+            return withCells(branch.bounds, branch.relations, branch.fingerprint).canonical(constraintSet, oracle);
+        }
+        return closeIJ(i, j, branch, oracle);
+    }
+
+    /**
+     * 增量闭包 (close-ij)：矩阵在单元格 (i, j) 被收紧之前是规范形式，只需考虑经过边 i → j 的路径，
+     * 即对每个 (k, l) 比较 D[k][i] + D[i][j] + D[j][l] 与 D[k][l]。
+     * 第一步检查负环 D[i][j] + D[j][i]，一旦为负立即终止；没有负环时，第 i 列与第 j 行不可能再被收紧，
+     * 其他对角线也不可能出现负环 (规范形式下 D[j][i] &lt;= D[j][k] + D[k][i])，这些单元格都不必比较，
+     * 因此路径的两段 D[k][i]、D[j][l] 在整个过程中保持不变。
+     */
+    private List<CPDBM> closeIJ(int i, int j, ClosureBranch tightened, Z3Oracle oracle) {
+        return close("closeIJ", tightened, 1 + size * size,
+                (branch, step) -> {
+                    if (step == 0) {
+                        return branch.path(i, i, i, j, i); // 负环检查：i → j → i
+                    }
+                    int k = (step - 1) / size;
+                    int l = (step - 1) % size;
+                    if (k == l || l == i || k == j || (k == i && l == j)) {
+                        return null;
+                    }
+                    return branch.path(k, l, k, i, j, l);
+                }, oracle);
+    }
+
+    /**
+     * 辅助方法：构造论文中的比较约束 C(D, f) = e_ij (rel_ij ⇒ rel) e，
+     * 即“当前边界 (e_ij, rel_ij) 不比新边界 (e, rel) 宽松”。
+     * 当前边界非严格而新边界严格时，需要 e_ij &lt; e；其余情况 e_ij &lt;= e 即可。
+     * @param currentBound 当前边界 e_ij。
+     * @param currentStrict 当前边界是否严格 (rel_ij 为 &lt;)。
+     * @param newBound 新边界 e。
+     * @param newStrict 新边界是否严格 (rel 为 &lt;)。
+     * @return 比较约束，YES 表示保留当前边界，NO 表示新边界更紧。
+     */
+    private static ParameterConstraint createComparisonConstraint(LinearExpression currentBound, boolean currentStrict,
+                                                                  LinearExpression newBound, boolean newStrict) {
+        RelationType relation = (!currentStrict && newStrict) ? RelationType.LT : RelationType.LE;
+        return ParameterConstraint.of(currentBound, newBound, relation);
+    }
+
+    /**
+     * 比较约束的语法预判定：比较约束规范为 e ~ 0 (~ 为 &lt; 或 &lt;=)，其中 e = Σ aₖ·pₖ + c 是两个边界之差。
+     * 两个边界都是常数或只差一个常数时 e 就是常数 c，直接判定；
+     * 否则利用参数非负 (与 {@link Z3VariableManager#assertGlobalConstraints} 断言的全局约束一致)：
+     * 所有 aₖ &lt;= 0 时 e &lt;= c，c ~ 0 成立即为 YES；所有 aₖ &gt;= 0 时 e &gt;= c，c ~ 0 不成立即为 NO。
+     * 判定结果与 C 无关 (C 不可满足时 Oracle 会回答 NO，此时两种回答对 PDBM 都没有意义)。
+     *
+     * @param comparison 比较约束。
+     * @return YES 或 NO；需要 Oracle 时返回 null。
+     */
+    private static Z3Oracle.OracleResult preDecide(ParameterConstraint comparison) {
+        RelationType relation = comparison.getRelation();
+        if (relation != RelationType.LE && relation != RelationType.LT) {
+            return null;
+        }
+        LinearExpression difference = comparison.getLeftExpr();
+        boolean allNonNegative = true;
+        boolean allNonPositive = true;
+        for (int k = 0; k < difference.size(); k++) {
+            int sign = difference.getCoefficient(k).signum();
+            allNonNegative &= sign >= 0;
+            allNonPositive &= sign <= 0;
+        }
+        int constantSign = difference.getConstant().signum();
+        boolean constantHolds = relation == RelationType.LT ? constantSign < 0 : constantSign <= 0;
+        if (allNonPositive && constantHolds) {
+            return Z3Oracle.OracleResult.YES;
+        }
+        if (allNonNegative && !constantHolds) {
+            return Z3Oracle.OracleResult.NO;
+        }
+        return null;
+    }
+
+    /**
+     * 获取边界比较语法预判定的统计：命中次数即省去的 Oracle 查询次数。
+     * @return 统计信息。
+     */
+    public static CacheStatistics getPreDecisionStatistics() {
+        return PRE_DECISION_STATISTICS;
+    }
 
     /**
      * 将 PDBM 转换为规范形式 (Canonical Form)。
-     * 使用 Floyd-Warshall 算法计算所有点对之间的最短路径，收紧约束。
-     * 规范形式对于判空和包含检查是必需的。
-     * 此操作可能导致 PDBM 分裂，因此返回一个 PDBM 集合。
+     * 使用符号化 Floyd-Warshall 算法，对每个 (k, i, j) 比较路径 i → k → j 与直接边界 i → j：
+     * 比较约束由 Oracle 判定，YES 保留原边界，NO 收紧为路径边界，SPLIT 时参数空间一分为二，
+     * 两个分支分别从当前位置继续闭包。整个过程用工作列表驱动，每个工作项是 (C, 矩阵, 下一个 (k, i, j))。
+     * <p>
+     * 为控制代价：
+     * 含 ∞ 的路径直接跳过；直接边界为 ∞ 时无需询问 Oracle；
+     * 每个分支记录已知的 Oracle 结果，相同的比较约束不重复查询 (分裂后 YES/NO 结果对子区域仍然成立)；
+     * 对角线上出现负环时该分支为空，立即终止，不再继续计算。
      *
      * @param currentConstraintSet 当前的参数约束集 (C)，用于 Z3 Oracle 查询。
      * @param oracle Z3 Oracle 实例。
-     * @return 包含一个或多个规范化 PDBM 的集合。如果导致不可满足，返回空集合。
+     * @return 规范化后的 (参数约束集, PDBM) 对，各参数约束集互不相交且并集为 C 中使时钟区域非空的部分；
+     *         对所有参数取值时钟区域都为空时返回空列表。
      */
-    public Set<PDBM> canonical(ConstraintSet currentConstraintSet, Z3Oracle oracle) {
+    public List<CPDBM> canonical(ConstraintSet currentConstraintSet, Z3Oracle oracle) {
         logger.debug("canonical: 规范化 PDBM {}", this);
-        // 这是 PDBM 最复杂的核心算法，涉及符号化 Floyd-Warshall
-        // 伪代码：
-        // resultPDBMs = {this}
-        // for k from 0 to size-1:
-        //   for i from 0 to size-1:
-        //     for j from 0 to size-1:
-        //       if (i == k || k == j || i == j) continue; // 跳过对角线和自循环
-        //       // 尝试通过 k 路径收紧 i -> j
-        //       // path_ij = path_ik + path_kj
-        //       // path_ik_guard = boundsMatrix[i][k]
-        //       // path_kj_guard = boundsMatrix[k][j]
-        //       // direct_ij_guard = boundsMatrix[i][j]
-        //
-        //       // 1. 计算 path_ij 的边界表达式 (LinearExpression)
-        //       //    E_path = E_ik + E_kj
-        //       //    Rel_path = combineRelations(Rel_ik, Rel_kj)
-        //       LinearExpression pathBound = boundsMatrix[i][k].getBound().add(boundsMatrix[k][j].getBound());
-        //       RelationType pathRelation = combineRelations(boundsMatrix[i][k].getRelation(), boundsMatrix[k][j].getRelation());
-        //       AtomicGuard pathGuard = AtomicGuard.of(clockList.get(i), clockList.get(j), pathBound, pathRelation);
-        //
-        //       // 2. 构造 ParameterConstraint C(D, pathGuard)
-        //       //    比较 pathGuard 和 direct_ij_guard
-        //       ParameterConstraint comparisonConstraint = createComparisonConstraint(boundsMatrix[i][j], pathGuard);
-        //
-        //       // 3. 调用 Z3 Oracle 检查 comparisonConstraint 与 currentConstraintSet 的关系
-        //       Z3Oracle.OracleResult oracleResult = oracle.checkCoverage(comparisonConstraint, currentConstraintSet);
-        //
-        //       switch (oracleResult) {
-        //           case YES:
-        //               // pathGuard 比 direct_ij_guard 更宽松或等价，无需收紧，PDBM 不变
-        //               break;
-        //           case NO:
-        //               // pathGuard 比 direct_ij_guard 更紧，PDBM 必须收紧
-        //               // 创建一个新的 PDBM 实例，更新对应的边界
-        //               AtomicGuard[][] newBoundsMatrix = deepCopyBoundsMatrix();
-        //               newBoundsMatrix[i][j] = pathGuard; // 替换为更紧的路径约束
-        //               resultPDBMs.add(new PDBM(clockList, clockIndexMap, newBoundsMatrix));
-        //               // 注意：这里会产生新的 PDBM，需要递归调用 canonical 或在外部管理
-        //               // 符号化 Floyd-Warshall 通常是迭代的，直到没有 PDBM 发生变化或分裂
-        //               break;
-        //           case SPLIT:
-        //               // 边界分裂，需要返回多个 PDBM
-        //               // 这是一个复杂的分裂处理，通常在 ConstrainedPDBM 层面处理
-        //               // PDBM.canonical 应该返回 Set<PDBM>，每个 PDBM 对应一个参数子区域
-        //               // 论文中 PDBM.canonical 似乎不直接导致分裂，分裂发生在 ConstrainedPDBM 层面
-        //               // 让我们假设 PDBM.canonical 总是返回一个 PDBM，分裂由 ConstrainedPDBM 处理
-        //               logger.warn("PDBM.canonical 遇到 SPLIT 结果，这通常应在 ConstrainedPDBM 层面处理。");
-        //               // 暂时返回当前 PDBM，等待 ConstrainedPDBM 处理分裂
-        //               break;
-        //           case UNKNOWN:
-        //               logger.warn("Z3 Oracle 返回 UNKNOWN 结果，无法确定约束关系。");
-        //               // 无法确定，返回当前 PDBM
-        //               break;
-        //       }
-        //
-        // return resultPDBMs; // 暂时返回 Set，如果 PDBM.canonical 总是返回一个，则改为 PDBM
-        //
-        // 实际实现会更复杂，需要迭代地应用 Floyd-Warshall 步骤，并处理 Z3 Oracle 的 SPLIT 结果
-        // 每次 SPLIT 都会导致 PDBM 集合的扩展
-        // 这是一个半决定性算法，可能不终止
-        logger.warn("PDBM.canonical 方法尚未完全实现符号化 Floyd-Warshall 算法。");
-        Set<PDBM> canonicalPDBMs = new HashSet<>();
-        canonicalPDBMs.add(this); // 暂时返回自身
-        return canonicalPDBMs;
-    }
-
-    /**
-     * 辅助方法：组合两个关系类型。
-     * 例如：< 和 < 组合是 <；< 和 <= 组合是 <；<= 和 <= 组合是 <=。
-     * @param rel1 关系类型1。
-     * @param rel2 关系类型2。
-     * @return 组合后的关系类型。
-     */
-    private RelationType combineRelations(RelationType rel1, RelationType rel2) {
-        if (rel1 == RelationType.LT || rel2 == RelationType.LT) {
-            return RelationType.LT; // 只要有一个是严格小于，结果就是严格小于
-        }
-        if (rel1 == RelationType.GT || rel2 == RelationType.GT) {
-            return RelationType.GT; // 只要有一个是严格大于，结果就是严格大于
-        }
-        // 其他情况，例如 <= 和 <= 组合是 <=
-        // 或者 >= 和 >= 组合是 >=
-        // 这里的逻辑需要根据具体语义来完善
-        // 论文中通常只考虑 <= 和 < 的组合
-        // 假设我们只处理上界约束 (<=, <)
-        if (rel1 == RelationType.LE && rel2 == RelationType.LE) {
-            return RelationType.LE;
-        }
-        if (rel1 == RelationType.GE && rel2 == RelationType.GE) {
-            return RelationType.GE;
-        }
-        // 混合类型组合需要更复杂的逻辑，或者在 PDBM 中只存储一种规范化关系
-        // 例如，如果 PDBM 只存储 <= 形式，那么 < V 转换为 <= V - epsilon
-        logger.warn("combineRelations: 遇到未处理的关系类型组合 {} 和 {}", rel1, rel2);
-        return RelationType.LE; // 默认返回 LE，需要根据实际情况调整
+        DBM dbm = toConcrete();
+        if (dbm != null) {
+            return concreteResult(currentConstraintSet, dbm.canonical());
+        }
+        ClosureBranch initial = new ClosureBranch(currentConstraintSet, materializeBounds(), materializeRelations(),
+                fingerprint, 0, new HashMap<>());
+        return close("canonical", initial, size * size * size,
+                (branch, step) -> {
+                    int k = step / (size * size);
+                    int i = (step / size) % size;
+                    int j = step % size;
+                    if (i == k || j == k) {
+                        return null;
+                    }
+                    return branch.path(i, j, i, k, j);
+                }, oracle);
+    }
+
+    /**
+     * 闭包的公共驱动：依次处理 [0, totalSteps) 中的每一步，每一步给出一个目标单元格及一条候选路径，
+     * 用 Oracle 判定路径是否更紧。SPLIT 时分出新分支压入工作列表，从下一步继续。
+     * 目标单元格在对角线上时，路径更紧即为负环，该分支为空。
+     * 没有收紧任何单元格的分支直接复用当前实例。
+     *
+     * @param operation 操作名，用于日志。
+     * @param initial 初始分支。
+     * @param totalSteps 步数。
+     * @param steps 第 step 步的候选路径，null 表示跳过。
+     * @param oracle Z3 Oracle 实例。
+     * @return 非空分支对应的 (参数约束集, PDBM) 对。
+     */
+    private List<CPDBM> close(String operation, ClosureBranch initial, int totalSteps, ClosureStep steps,
+                              Z3Oracle oracle) {
+        List<CPDBM> results = new ArrayList<>();
+        Deque<ClosureBranch> worklist = new ArrayDeque<>();
+        worklist.push(initial);
+        int oracleQueries = 0;
+        int reusedAnswers = 0;
+        int preDecided = 0;
+        int branches = 1;
+
+        while (!worklist.isEmpty()) {
+            ClosureBranch branch = worklist.pop();
+            boolean empty = false;
+
+            for (int step = branch.nextStep; step < totalSteps && !empty; step++) {
+                PathCandidate path = steps.candidate(branch, step);
+                if (path == null) {
+                    continue;
+                }
+                int i = path.row;
+                int j = path.col;
+                int index = i * size + j;
+
+                LinearExpression currentBound = branch.bounds[index];
+                Z3Oracle.OracleResult result;
+                ParameterConstraint comparison = null;
+                if (isInfinite(currentBound)) {
+                    result = Z3Oracle.OracleResult.NO;
+                    PRE_DECISION_STATISTICS.recordHit();
+                    preDecided++;
+                } else {
+                    // 对角线 (i == j) 上 C(D, f) 不成立即为负环
+                    comparison = createComparisonConstraint(currentBound, branch.relations[index] == REL_LT,
+                            path.bound, path.strict);
+                    result = preDecide(comparison);
+                    if (result != null) {
+                        PRE_DECISION_STATISTICS.recordHit();
+                        preDecided++;
+                    } else if ((result = branch.known.get(comparison)) != null) {
+                        reusedAnswers++;
+                    } else {
+                        PRE_DECISION_STATISTICS.recordMiss();
+                        result = oracle.checkCoverage(comparison, branch.constraintSet);
+                        oracleQueries++;
+                        branch.known.put(comparison, result);
+                    }
+                }
+
+                switch (result) {
+                    case YES:
+                        break;
+                    case NO:
+                        if (i == j) {
+                            empty = true;
+                        } else {
+                            branch.set(index, path.bound, path.strict);
+                        }
+                        break;
+                    case SPLIT:
+                        // 在 C ∧ ¬C(D,f) 中路径更紧：分出新分支，从下一步继续 (负环时该分支为空，直接丢弃)
+                        if (i != j) {
+                            ClosureBranch tightened = new ClosureBranch(branch.constraintSet.and(comparison.negate()),
+                                    branch.bounds.clone(), branch.relations.clone(), branch.fingerprint, step + 1,
+                                    branch.inheritKnown(comparison, Z3Oracle.OracleResult.NO));
+                            tightened.set(index, path.bound, path.strict);
+                            worklist.push(tightened);
+                            branches++;
+                        }
+                        // 当前分支继续处理 C ∧ C(D,f)，原边界保持不变
+                        branch.restrict(comparison);
+                        break;
+                    case UNKNOWN:
+                    default:
+                        logger.warn("{}: Z3 Oracle 返回 UNKNOWN 结果，无法确定 {} ，保留原边界。", operation, comparison);
+                        break;
+                }
+            }
+
+            if (!empty) {
+                PDBM closed = branch.changed ? withCells(branch.bounds, branch.relations, branch.fingerprint) : this;
+                results.add(CPDBM.of(branch.constraintSet, closed));
+            }
+        }
+        logger.debug("{}: {} 次 Oracle 查询，{} 次语法判定，{} 次复用已知结果，{} 个分支，{} 个非空结果",
+                operation, oracleQueries, preDecided, reusedAnswers, branches, results.size());
+        return results;
+    }
+
+    /**
+     * 闭包中的一步：给出第 step 步的候选路径。
+     */
+    @FunctionalInterface
+    private interface ClosureStep {
+        PathCandidate candidate(ClosureBranch branch, int step);
+    }
+
+    /**
+     * 候选路径：目标单元格 (row, col) 与路径边界 (bound, strict)。
+     */
+    private static final class PathCandidate {
+        private final int row;
+        private final int col;
+        private final LinearExpression bound;
+        private final boolean strict;
+
+        PathCandidate(int row, int col, LinearExpression bound, boolean strict) {
+            this.row = row;
+            this.col = col;
+            this.bound = bound;
+            this.strict = strict;
+        }
+    }
+
+    /**
+     * 闭包的一个工作项：分支的参数约束集、正在收紧的扁平矩阵 (分支私有)、
+     * 下一个待处理的步骤，以及该分支上已知的 Oracle 结果。
+     */
+    private final class ClosureBranch {
+        private ConstraintSet constraintSet;
+        private final LinearExpression[] bounds;
+        private final byte[] relations;
+        /** 当前矩阵的结构指纹，随 set 增量更新 */
+        private long fingerprint;
+        private final int nextStep;
+        private final Map<ParameterConstraint, Z3Oracle.OracleResult> known;
+        /** 矩阵是否已与当前实例不同 */
+        private boolean changed;
+
+        ClosureBranch(ConstraintSet constraintSet, LinearExpression[] bounds, byte[] relations, long fingerprint,
+                      int nextStep, Map<ParameterConstraint, Z3Oracle.OracleResult> known) {
+            this.constraintSet = constraintSet;
+            this.bounds = bounds;
+            this.relations = relations;
+            this.fingerprint = fingerprint;
+            this.nextStep = nextStep;
+            this.known = known;
+        }
+
+        void set(int index, LinearExpression bound, boolean strict) {
+            byte relation = strict ? REL_LT : REL_LE;
+            fingerprint ^= cellFingerprint(index, bounds[index], relations[index]) ^ cellFingerprint(index, bound, relation);
+            bounds[index] = bound;
+            relations[index] = relation;
+            changed = true;
+        }
+
+        /**
+         * 目标单元格 (row, col) 与沿 via 中各时钟依次经过的路径，路径中有 ∞ 时返回 null。
+         */
+        PathCandidate path(int row, int col, int... via) {
+            LinearExpression pathBound = null;
+            boolean strict = false;
+            for (int s = 0; s + 1 < via.length; s++) {
+                int index = via[s] * size + via[s + 1];
+                if (isInfinite(bounds[index])) {
+                    return null; // 经过 ∞ 的路径不可能更紧
+                }
+                pathBound = pathBound == null ? bounds[index] : pathBound.add(bounds[index]);
+                strict |= relations[index] == REL_LT;
+            }
+            return new PathCandidate(row, col, pathBound, strict);
+        }
+
+        /**
+         * 将分支限制到 C ∧ comparison。C 变小后原来的 YES/NO 仍然成立，SPLIT 需要重新判定。
+         */
+        void restrict(ParameterConstraint comparison) {
+            constraintSet = constraintSet.and(comparison);
+            known.values().removeIf(r -> r == Z3Oracle.OracleResult.SPLIT || r == Z3Oracle.OracleResult.UNKNOWN);
+            known.put(comparison, Z3Oracle.OracleResult.YES);
+        }
+
+        /**
+         * 为 C ∧ ¬comparison 分支复制已知结果。
+         */
+        Map<ParameterConstraint, Z3Oracle.OracleResult> inheritKnown(ParameterConstraint comparison,
+                                                                      Z3Oracle.OracleResult result) {
+            Map<ParameterConstraint, Z3Oracle.OracleResult> copy = new HashMap<>(known);
+            copy.values().removeIf(r -> r == Z3Oracle.OracleResult.SPLIT || r == Z3Oracle.OracleResult.UNKNOWN);
+            copy.put(comparison, result);
+            return copy;
+        }
+    }
+
+    // --- 单元格辅助方法 ---
+    // 单元格 (i, j) 表示上界 c_i - c_j (<|<=) e_ij，但 AtomicGuard 会把时钟规范为 id 升序，
+    // 当 c_i 的 id 大于 c_j 时得到的是 c_j - c_i (>|>=) -e_ij。以下方法屏蔽这一差异。
+
+    /**
+     * 约束作为上界时，被减时钟 (c_i - c_j ~ e 中的 c_i)。
+     */
+    static Clock upperClock(AtomicGuard guard) {
+        return isUpperForm(guard) ? guard.getClock1() : guard.getClock2();
+    }
+
+    /**
+     * 约束作为上界时，减数时钟 (c_i - c_j ~ e 中的 c_j)。
+     */
+    static Clock lowerClock(AtomicGuard guard) {
+        return isUpperForm(guard) ? guard.getClock2() : guard.getClock1();
+    }
+
+    private static boolean isUpperForm(AtomicGuard guard) {
+        return guard.getRelation() == RelationType.LE || guard.getRelation() == RelationType.LT;
+    }
+
+    /**
+     * 约束作为上界 c_i - c_j ~ e 时的边界 e。
+     */
+    static LinearExpression upperBound(AtomicGuard guard) {
+        return isUpperForm(guard) ? guard.getBound() : guard.getBound().negate();
+    }
+
+    private static boolean isStrict(AtomicGuard guard) {
+        return guard.getRelation() == RelationType.LT || guard.getRelation() == RelationType.GT;
+    }
+
+    private static boolean isInfinite(LinearExpression bound) {
+        return bound.isConstant() && bound.getConstant().isPositiveInfinity();
+    }
+
+    /**
+     * 构造单元格 (i, j) 的约束 c_i - c_j (<|<=) bound。
+     */
+    private AtomicGuard cellGuard(int i, int j, LinearExpression bound, boolean strict) {
+        return AtomicGuard.of(clockList.get(i), clockList.get(j), bound, strict ? RelationType.LT : RelationType.LE);
+    }
+
+    /**
+     * 参数化区域包含判定：对 C 中的每个参数取值，当前区域都是 other 的子集。
+     * 两者都应是 C 上的规范形式 (例如同一 C 上 {@link #canonical} 的结果)，此时包含等价于逐单元格
+     * D[i][j] 不比 D'[i][j] 宽松，即比较约束 C(D, D'[i][j]) 在 C 上恒真 (YES)。
+     * <p>
+     * 判定分两轮：第一轮只做语法判定 (∞、常数差与参数非负，见 {@link #preDecide})，遇到一定不成立的单元格立即返回；
+     * 第二轮把剩下的比较约束去重后作为一批交给 Oracle ({@link Z3Oracle#checkCoverageBatch})，C 只断言一次。
+     * 两个区域都不含参数时直接用 {@link DBM#isIncludedIn} 逐单元格比较整数。
+     *
+     * @param other 另一个 PDBM，时钟必须相同。
+     * @param currentConstraintSet 参数约束集 (C)。
+     * @param oracle Z3 Oracle 实例。
+     * @return true 如果在整个 C 上当前区域都包含于 other；Oracle 返回 UNKNOWN 时保守地返回 false。
+     * @throws IllegalArgumentException 如果两者的时钟不同。
+     */
+    public boolean includedIn(PDBM other, ConstraintSet currentConstraintSet, Z3Oracle oracle) {
+        if (this == other) {
+            return true;
+        }
+        if (size != other.size || !clockList.equals(other.clockList)) {
+            throw new IllegalArgumentException("PDBM-includedIn: 两个 PDBM 的时钟不同");
+        }
+        DBM thisConcrete = toConcrete();
+        DBM otherConcrete = thisConcrete == null ? null : other.toConcrete();
+        if (otherConcrete != null) {
+            return thisConcrete.isIncludedIn(otherConcrete);
+        }
+
+        // 第一轮：语法判定，收集需要 Oracle 的比较约束
+        Set<ParameterConstraint> pending = new LinkedHashSet<>();
+        for (int index = 0; index < size * size; index++) {
+            LinearExpression otherBound = other.bound(index);
+            if (isInfinite(otherBound)) {
+                PRE_DECISION_STATISTICS.recordHit();
+                continue;
+            }
+            LinearExpression thisBound = bound(index);
+            if (isInfinite(thisBound)) {
+                PRE_DECISION_STATISTICS.recordHit();
+                logger.debug("includedIn: 单元格 {} 为 ∞，而 other 有上界 {}", index, otherBound);
+                return false;
+            }
+            ParameterConstraint comparison = createComparisonConstraint(thisBound, relation(index) == REL_LT,
+                    otherBound, other.relation(index) == REL_LT);
+            Z3Oracle.OracleResult result = preDecide(comparison);
+            if (result == null) {
+                pending.add(comparison);
+            } else {
+                PRE_DECISION_STATISTICS.recordHit();
+                if (result != Z3Oracle.OracleResult.YES) {
+                    logger.debug("includedIn: 单元格 {} 语法判定不包含: {}", index, comparison);
+                    return false;
+                }
+            }
+        }
+
+        // 第二轮：剩余的参数化比较交给 Oracle
+        return allCovered(pending, currentConstraintSet, oracle);
     }
 
+    /**
+     * 与已保存的最小约束形式做包含判定：当前区域包含于 other 当且仅当满足 other 的每条保留边，
+     * 即对每条保留边 (i, j)，D[i][j] 不比它宽松。当前 PDBM 应是 C 上的规范形式，other 不需要是。
+     * 与 {@link #includedIn(PDBM, ConstraintSet, Z3Oracle)} 相比只需检查保留的边。
+     *
+     * @param other 最小约束形式，时钟必须相同。
+     * @param currentConstraintSet 参数约束集 (C)。
+     * @param oracle Z3 Oracle 实例。
+     * @return true 如果在整个 C 上当前区域都包含于 other；Oracle 返回 UNKNOWN 时保守地返回 false。
+     * @throws IllegalArgumentException 如果两者的时钟不同。
+     */
+    public boolean includedIn(MinimalPDBM other, ConstraintSet currentConstraintSet, Z3Oracle oracle) {
+        if (!clockList.equals(other.getClockList())) {
+            throw new IllegalArgumentException("PDBM-includedIn: PDBM 与最小约束形式的时钟不同");
+        }
+        DBM thisConcrete = toConcrete();
+        Set<ParameterConstraint> pending = new LinkedHashSet<>();
+        for (int k = 0; k < other.getEdgeCount(); k++) {
+            int index = other.getEdge(k);
+            LinearExpression otherBound = other.getBound(k);
+            if (thisConcrete != null && isConcrete(otherBound)) {
+                if (thisConcrete.get(index / size, index % size) > encode(otherBound, other.isStrict(k))) {
+                    return false;
+                }
+                continue;
+            }
+            LinearExpression thisBound = bound(index);
+            if (isInfinite(thisBound)) {
+                PRE_DECISION_STATISTICS.recordHit();
+                return false;
+            }
+            ParameterConstraint comparison = createComparisonConstraint(thisBound, relation(index) == REL_LT,
+                    otherBound, other.isStrict(k));
+            Z3Oracle.OracleResult result = preDecide(comparison);
+            if (result == null) {
+                pending.add(comparison);
+            } else {
+                PRE_DECISION_STATISTICS.recordHit();
+                if (result != Z3Oracle.OracleResult.YES) {
+                    return false;
+                }
+            }
+        }
+        return allCovered(pending, currentConstraintSet, oracle);
+    }
+
+    /**
+     * 包含判定的第二轮：去重后的比较约束共享同一个 C，作为一批交给 {@link Z3Oracle#checkCoverageBatch}，
+     * C 只断言一次；只有一条时直接查询，省去切换到执行器的开销。全部为 YES 时包含。
+     */
+    private static boolean allCovered(Set<ParameterConstraint> pending, ConstraintSet currentConstraintSet,
+                                      Z3Oracle oracle) {
+        if (pending.isEmpty()) {
+            return true;
+        }
+        PRE_DECISION_STATISTICS.recordMisses(pending.size());
+        List<ParameterConstraint> comparisons = new ArrayList<>(pending);
+        List<Z3Oracle.OracleResult> results;
+        if (comparisons.size() == 1) {
+            results = Collections.singletonList(oracle.checkCoverage(comparisons.get(0), currentConstraintSet));
+        } else {
+            try {
+                results = oracle.checkCoverageBatch(comparisons, currentConstraintSet).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+        for (int k = 0; k < results.size(); k++) {
+            if (results.get(k) != Z3Oracle.OracleResult.YES) {
+                logger.debug("includedIn: {} 在 C 上的结果为 {}，不包含", comparisons.get(k), results.get(k));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --- 最小约束形式 ---
+
+    /**
+     * 计算最小约束形式 (shortest-path reduction)：去掉能由其它保留边推出的边，对角线与 ∞ 单元格不保存。
+     * <p>
+     * 按下标顺序依次考察每条有限边 (i, j)，若存在 k 使 i → k 与 k → j 当前仍被保留，且路径 D[i][k] + D[k][j]
+     * 不比 D[i][j] 宽松，则 (i, j) 冗余并去掉。判定只依赖当前仍保留的边，因此被去掉的边总能由最终保留的边推出，
+     * 零环 (如 x = y) 上的边也不会互相消去。不含参数时比较是整数运算；含参数时只用语法判定 ({@link #preDecide})，
+     * 判定对所有非负参数取值成立，与 C 无关；无法判定的边保留，结果仍然可靠，只是可能不是最小的。
+     * 当前实例是规范形式且不含参数时，结果与 Larsen 等人的最小约束系统一样小。
+     *
+     * @return 最小约束形式。
+     */
+    public MinimalPDBM toMinimal() {
+        int cells = size * size;
+        LinearExpression[] cellBounds = materializeBounds();
+        byte[] cellRelations = materializeRelations();
+        DBM dbm = toConcrete();
+        boolean[] kept = new boolean[cells];
+        int count = 0;
+        for (int index = 0; index < cells; index++) {
+            kept[index] = index / size != index % size && !isInfinite(cellBounds[index]);
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int index = i * size + j;
+                if (!kept[index]) {
+                    continue;
+                }
+                for (int k = 0; k < size; k++) {
+                    int ik = i * size + k;
+                    int kj = k * size + j;
+                    if (k == i || k == j || !kept[ik] || !kept[kj]) {
+                        continue;
+                    }
+                    boolean redundant;
+                    if (dbm != null) {
+                        redundant = DBM.add(dbm.get(i, k), dbm.get(k, j)) <= dbm.get(i, j);
+                    } else {
+                        ParameterConstraint comparison = createComparisonConstraint(
+                                cellBounds[ik].add(cellBounds[kj]),
+                                cellRelations[ik] == REL_LT || cellRelations[kj] == REL_LT,
+                                cellBounds[index], cellRelations[index] == REL_LT);
+                        redundant = preDecide(comparison) == Z3Oracle.OracleResult.YES;
+                    }
+                    if (redundant) {
+                        kept[index] = false;
+                        break;
+                    }
+                }
+                if (kept[index]) {
+                    count++;
+                }
+            }
+        }
+
+        int[] edges = new int[count];
+        LinearExpression[] edgeBounds = new LinearExpression[count];
+        boolean[] edgeStrict = new boolean[count];
+        int k = 0;
+        for (int index = 0; index < cells; index++) {
+            if (kept[index]) {
+                edges[k] = index;
+                edgeBounds[k] = cellBounds[index];
+                edgeStrict[k] = cellRelations[index] == REL_LT;
+                k++;
+            }
+        }
+        logger.debug("最小约束形式: 保留 {} / {} 条边", count, cells - size);
+        return new MinimalPDBM(clockList, clockIndexMap, edges, edgeBounds, edgeStrict);
+    }
+
+    /**
+     * 由最小约束形式的保留边还原 PDBM，其余非对角单元格为 ∞ (一般不是规范形式)。
+     */
+    static PDBM fromEdges(List<Clock> clockList, Map<Clock, Integer> clockIndexMap,
+                          int[] edges, LinearExpression[] edgeBounds, boolean[] edgeStrict) {
+        int size = clockList.size();
+        LinearExpression[] newBounds = new LinearExpression[size * size];
+        byte[] newRelations = new byte[size * size];
+        Arrays.fill(newBounds, INFINITE_BOUND);
+        for (int i = 0; i < size; i++) {
+            newBounds[i * size + i] = ZERO_BOUND;
+        }
+        for (int k = 0; k < edges.length; k++) {
+            newBounds[edges[k]] = edgeBounds[k];
+            newRelations[edges[k]] = edgeStrict[k] ? REL_LT : REL_LE;
+        }
+        return new PDBM(clockList, clockIndexMap, newBounds, newRelations, null, null, null,
+                fingerprintOf(newBounds, newRelations));
+    }
+
+    /**
+     * 区域外推，使前向探索只产生有限多个不同的区域。对每个 i ≠ j (L、U 取自 clockBounds 在 C 上的值)：
+     * <ul>
+     *   <li>D[i][j] &gt; (L(c_i), &lt;=) 时置为 ∞；</li>
+     *   <li>否则 D[i][j] &lt; (-U(c_j), &lt;) 时放宽为 (-U(c_j), &lt;)。</li>
+     * </ul>
+     * MAX_CONSTANT 模式下 L 与 U 都取 max(L, U)。含参数的边界只在对 C 中所有参数取值都满足条件时才改写，
+     * 判定用参数区间完成 ({@link ParameterIntervals})，不调用 Oracle；无法判定的单元格保持不变，结果仍然可靠。
+     * 外推只放宽单元格，结果一般不是规范形式，需要再调用 {@link #canonical}
+     * (或使用 {@link CPDBM#extrapolate})。区域不含参数且常数都是整数时在 {@link DBM} 上完成。
+     *
+     * @param clockBounds 模型的时钟常数。
+     * @param mode 外推方式。
+     * @param currentConstraintSet 当前的参数约束集 (C)。
+     * @return 外推后的 PDBM，没有变化时返回当前实例。
+     */
+    public PDBM extrapolate(ClockBounds clockBounds, ClockBounds.Extrapolation mode, ConstraintSet currentConstraintSet) {
+        Rational[] lower = new Rational[size];
+        Rational[] upper = new Rational[size];
+        boolean integral = true;
+        for (int i = 0; i < size; i++) {
+            Clock clock = clockList.get(i);
+            lower[i] = clockBounds.getLower(clock, currentConstraintSet);
+            upper[i] = clockBounds.getUpper(clock, currentConstraintSet);
+            if (mode == ClockBounds.Extrapolation.MAX_CONSTANT) {
+                lower[i] = upper[i] = Rational.max(lower[i], upper[i]);
+            }
+            integral &= isEncodable(lower[i]) && isEncodable(upper[i]);
+        }
+
+        DBM dbm = integral ? toConcrete() : null;
+        if (dbm != null) {
+            long[] lowerRaw = new long[size];
+            long[] upperRaw = new long[size];
+            for (int i = 0; i < size; i++) {
+                lowerRaw[i] = lower[i].isInfinity() ? DBM.INFINITY : lower[i].longValue();
+                upperRaw[i] = upper[i].isInfinity() ? DBM.INFINITY : upper[i].longValue();
+            }
+            return fromConcrete(dbm.extrapolate(lowerRaw, upperRaw));
+        }
+
+        ParameterIntervals intervals = null;
+        TreeMap<Integer, Cell> patch = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int index = i * size + j;
+                LinearExpression bound = bound(index);
+                if (i == j || isInfinite(bound)) {
+                    continue;
+                }
+                Rational minimum = bound.getConstant();
+                Rational maximum = bound.getConstant();
+                if (!bound.isConstant()) {
+                    if (intervals == null) {
+                        intervals = ParameterIntervals.of(currentConstraintSet);
+                    }
+                    minimum = intervals.lowerBound(bound);
+                    maximum = intervals.upperBound(bound);
+                }
+                // (e, ~) > (L, <=) 当且仅当 e > L；(e, ~) < (-U, <) 当且仅当 e < -U
+                if (!lower[i].isInfinity() && minimum.compareTo(lower[i]) > 0) {
+                    patch.put(index, new Cell(INFINITE_BOUND, REL_LE));
+                } else if (!upper[j].isInfinity() && maximum.compareTo(upper[j].negate()) < 0) {
+                    patch.put(index, new Cell(LinearExpression.of(upper[j].negate()), REL_LT));
+                }
+            }
+        }
+        return patch.isEmpty() ? this : applyPatch(patch);
+    }
+
+    /**
+     * 外推常数能否用于 DBM：+∞，或不超过 {@link DBM#MAX_CONSTANT} 的整数。
+     */
+    private static boolean isEncodable(Rational value) {
+        return value.isPositiveInfinity() || isConcrete(LinearExpression.of(value));
+    }
 
     /**
      * 移除相对于零时钟的上界约束，将 M[i][0] (代表 c_i - x0 <= V, 即 c_i <= V) 设置为无穷大 (< ∞)。
-     * 此操作返回一个新的 PDBM 实例。
+     * 只改动第 0 列，新实例与当前实例共享底层数组；第 0 列已全为 ∞ 时返回当前实例。
      *
-     * @return 移除约束后的新 PDBM 实例。
+     * @return 移除约束后的 PDBM 实例。
      */
     public PDBM delay() {
-        AtomicGuard[][] newBoundsMatrix = deepCopyBoundsMatrix();
+        TreeMap<Integer, Cell> patch = new TreeMap<>();
         for (int i = 1; i < size; i++) { // 从 1 开始，跳过 M[0][0]
-            Clock ci = clockList.get(i);
             // ci - x0 <= infinity
-            newBoundsMatrix[i][0] = AtomicGuard.of(ci, Clock.ZERO_CLOCK, LinearExpression.of(Rational.INFINITY), RelationType.LE);
+            patch.put(i * size, new Cell(INFINITE_BOUND, REL_LE));
+        }
+        // 论文中 delay 后需要 canonicalize，由调用方在需要时调用 canonical
+        PDBM result = applyPatch(patch);
+        DBM dbm = concrete;
+        if (result != this && dbm != null && dbm != NOT_CONCRETE) {
+            result.inheritConcrete(dbm.delay());
         }
-        // 论文中 delay 后需要 canonicalize
-        // 但 PDBM 是不可变的，所以 canonicalize 应该在外部调用，或者 timeSuccessor 返回 canonical 后的结果
-        // 暂时只返回 up 后的结果
-        PDBM upPDBM = new PDBM(clockList, clockIndexMap, newBoundsMatrix);
-        // 论文中 timeSuccessor 后需要 canonicalize
-        // return upPDBM.canonical(currentConstraintSet, oracle); // 这会引入循环依赖和复杂性
-        return upPDBM;
+        return result;
     }
 
     /**
      * 将指定的时钟重置为指定值。
-     * 此操作返回一个新的 PDBM 实例。
+     * 每个被重置的时钟只改动一行一列，新实例与当前实例共享底层数组。
      *
      * @param resetSet 要重置的时钟集合及其值。
-     * @return 重置后的新 PDBM 实例。
+     * @return 重置后的 PDBM 实例。
      */
     public PDBM reset(ResetSet resetSet) {
-        AtomicGuard[][] newBoundsMatrix = deepCopyBoundsMatrix();
+        PDBM result = this;
         for (Map.Entry<Clock, Rational> entry : resetSet.getResets().entrySet()) {
             Clock clockToReset = entry.getKey();
             Rational resetValue = entry.getValue(); // 重置值
@@ -412,61 +1156,255 @@ public final class PDBM implements Comparable<PDBM>, ToZ3BoolExpr {
                 continue;
             }
 
-            // 论文中 DBM reset 操作：
-            // M[idx][j] = M[0][j] (x_idx - x_j <= x0 - x_j)
-            // M[j][idx] = M[j][0] (x_j - x_idx <= x_j - x0)
-            // M[idx][idx] = 0 (x_idx - x_idx <= 0)
-            // 这里的 resetValue 是 0，所以 x_idx = 0
-            // 实际上是 x_idx - x_j <= 0 - x_j => x_idx - x_j <= -x_j
-            // x_j - x_idx <= x_j - 0 => x_j - x_idx <= x_j
-            // 这与 DBM 的 reset 逻辑不同，PDBM 的 reset 应该更复杂，因为它涉及参数
-            // 论文中 PDBM 的 reset 操作是：
-            // D[xi := b] (xi - xj) = (b - xj)
-            // D[xi := b] (xj - xi) = (xj - b)
-            // D[xi := b] (xi - xi) = 0
-            // 这意味着需要将 LinearExpression 中的 xi 替换为 b
-            // 这是一个复杂的替换操作，需要遍历所有边界
-            logger.warn("PDBM.reset 方法尚未完全实现含参表达式的重置逻辑。");
-
-            // 简化实现：假设重置为 0
+            // 论文中 PDBM 的 reset 操作 D[xr := b]：
+            // xr - xj = b + (x0 - xj)，即 M[r][j] = (b + e_0j, rel_0j)
+            // xj - xr = (xj - x0) - b，即 M[j][r] = (e_j0 - b, rel_j0)
+            // M[r][r] = (0, <=)
+            // 要求 D 已是规范形式，结果仍是规范形式；多个时钟依次重置
+            LinearExpression b = LinearExpression.of(resetValue);
+            TreeMap<Integer, Cell> patch = new TreeMap<>();
             for (int j = 0; j < size; j++) {
-                Clock cj = clockList.get(j);
-                // M[index][j] = clockToReset - cj <= 0 - cj
-                newBoundsMatrix[index][j] = AtomicGuard.of(clockToReset, cj, LinearExpression.of(cj).negate(), RelationType.LE);
-                // M[j][index] = cj - clockToReset <= cj - 0
-                newBoundsMatrix[j][index] = AtomicGuard.of(cj, clockToReset, LinearExpression.of(cj), RelationType.LE);
+                if (j == index) {
+                    continue;
+                }
+                LinearExpression boundFromZero = result.bound(j);
+                LinearExpression boundToZero = result.bound(j * size);
+                patch.put(index * size + j, new Cell(
+                        isInfinite(boundFromZero) ? boundFromZero : b.add(boundFromZero), result.relation(j)));
+                patch.put(j * size + index, new Cell(
+                        isInfinite(boundToZero) ? boundToZero : boundToZero.subtract(b), result.relation(j * size)));
+            }
+            patch.put(index * size + index, new Cell(ZERO_BOUND, REL_LE));
+            PDBM previous = result;
+            result = result.applyPatch(patch);
+            DBM previousConcrete = previous.concrete;
+            if (result != previous && previousConcrete != null && previousConcrete != NOT_CONCRETE && index > 0) {
+                // 整数重置值下 DBM 随之在整数上重置，省去下次规范化时的转换；非整数重置值使 M[r][0] 不再是整数
+                result.inheritConcrete(isConcrete(b) ? previousConcrete.reset(index, resetValue.longValue()) : null);
             }
-            newBoundsMatrix[index][index] = AtomicGuard.of(clockToReset, clockToReset, LinearExpression.of(Rational.ZERO), RelationType.LE);
         }
-        return new PDBM(clockList, clockIndexMap, newBoundsMatrix);
+        return result;
     }
 
+    // --- 具体 DBM 快速路径 ---
+
     /**
-     * 深拷贝内部的 boundsMatrix。
-     * @return 新的 AtomicGuard[][] 矩阵。
+     * 所有边界都是整数常数 (或 ∞) 时返回对应的 {@link DBM}，否则返回 null。结果缓存在实例中。
      */
-    private AtomicGuard[][] deepCopyBoundsMatrix() {
-        AtomicGuard[][] newMatrix = new AtomicGuard[size][size];
-        for (int i = 0; i < size; i++) {
-            System.arraycopy(this.boundsMatrix[i], 0, newMatrix[i], 0, size);
+    private DBM toConcrete() {
+        DBM dbm = concrete;
+        if (dbm == null) {
+            long[] raw = new long[size * size];
+            boolean ok = true;
+            for (int index = 0; index < size * size && ok; index++) {
+                LinearExpression bound = bound(index);
+                if (isInfinite(bound)) {
+                    raw[index] = DBM.INFINITY;
+                } else if (isConcrete(bound)) {
+                    raw[index] = encode(bound, relation(index) == REL_LT);
+                } else {
+                    ok = false;
+                }
+            }
+            dbm = ok ? DBM.of(size, raw) : NOT_CONCRETE;
+            concrete = dbm;
         }
-        return newMatrix;
+        return dbm == NOT_CONCRETE ? null : dbm;
     }
 
-    // === Z3 转换 ===
+    /**
+     * 为刚由补丁得到的实例记下已知的具体 DBM (null 表示已知不是具体的)，免去下次重新转换。
+     * 结果与 toConcrete 计算的相同，因此与并发的惰性计算没有冲突。
+     */
+    private void inheritConcrete(DBM dbm) {
+        concrete = dbm == null ? NOT_CONCRETE : dbm;
+    }
 
-    @Override
-    public BoolExpr toZ3BoolExpr(Context ctx, Z3VariableManager varManager) {
-        List<BoolExpr> z3Guards = new ArrayList<>();
+    /**
+     * 边界能否编码进 DBM：不含参数的有限整数常数，且绝对值不超过 {@link DBM#MAX_CONSTANT}。
+     */
+    private static boolean isConcrete(LinearExpression bound) {
+        if (!bound.isConstant()) {
+            return false;
+        }
+        Rational value = bound.getConstant();
+        if (isInfinite(bound)) {
+            return true;
+        }
+        if (!value.isFinite() || !value.isInteger()) {
+            return false;
+        }
+        long limit = DBM.MAX_CONSTANT;
+        return value.compareTo(Rational.valueOf(limit)) <= 0 && value.compareTo(Rational.valueOf(-limit)) >= 0;
+    }
+
+    private static long encode(LinearExpression bound, boolean strict) {
+        return isInfinite(bound) ? DBM.INFINITY : DBM.bound(bound.getConstant().longValue(), strict);
+    }
+
+    /**
+     * 把整数快速路径的结果包装为 (C, PDBM) 列表：区域为空时为空列表，否则只有一项。
+     */
+    private List<CPDBM> concreteResult(ConstraintSet constraintSet, DBM dbm) {
+        List<CPDBM> results = new ArrayList<>(1);
+        if (dbm != null) {
+            results.add(CPDBM.of(constraintSet, fromConcrete(dbm)));
+        }
+        return results;
+    }
+
+    /**
+     * 把 DBM 转回同一组时钟上的 PDBM。与当前实例相同的单元格复用原来的边界对象，DBM 未变时返回当前实例。
+     */
+    private PDBM fromConcrete(DBM dbm) {
+        DBM current = toConcrete();
+        if (dbm.equals(current)) {
+            return this;
+        }
+        LinearExpression[] newBounds = materializeBounds();
+        byte[] newRelations = materializeRelations();
+        long newFingerprint = fingerprint;
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
-                z3Guards.add(boundsMatrix[i][j].toZ3BoolExpr(ctx, varManager));
+                int index = i * size + j;
+                long raw = dbm.get(i, j);
+                if (current != null && raw == current.get(i, j)) {
+                    continue;
+                }
+                newFingerprint ^= cellFingerprint(index, newBounds[index], newRelations[index]);
+                if (raw == DBM.INFINITY) {
+                    newBounds[index] = INFINITE_BOUND;
+                    newRelations[index] = REL_LE;
+                } else {
+                    newBounds[index] = LinearExpression.of(Rational.valueOf(DBM.boundValue(raw)));
+                    newRelations[index] = DBM.isStrict(raw) ? REL_LT : REL_LE;
+                }
+                newFingerprint ^= cellFingerprint(index, newBounds[index], newRelations[index]);
+            }
+        }
+        PDBM result = withCells(newBounds, newRelations, newFingerprint);
+        result.inheritConcrete(dbm);
+        return result;
+    }
+
+    // --- 结构共享 ---
+
+    /**
+     * 补丁中的一个单元格：上界与关系编码。
+     */
+    private static final class Cell {
+        private final LinearExpression bound;
+        private final byte relation;
+
+        Cell(LinearExpression bound, byte relation) {
+            this.bound = bound;
+            this.relation = relation;
+        }
+    }
+
+    /**
+     * 在当前实例上叠加补丁 (下标到新单元格)，得到新实例。与当前值相同的单元格被忽略，全部相同时返回当前实例。
+     * 新补丁与已有补丁合并，补丁深度始终为 1；合并后超过矩阵的 1/4 时展开为完整数组，否则与当前实例共享底层数组。
+     */
+    private PDBM applyPatch(TreeMap<Integer, Cell> patch) {
+        patch.entrySet().removeIf(e -> e.getValue().relation == relation(e.getKey())
+                && e.getValue().bound.equals(bound(e.getKey())));
+        if (patch.isEmpty()) {
+            return this;
+        }
+        long newFingerprint = fingerprint;
+        for (Map.Entry<Integer, Cell> entry : patch.entrySet()) {
+            int index = entry.getKey();
+            newFingerprint ^= cellFingerprint(index, bound(index), relation(index))
+                    ^ cellFingerprint(index, entry.getValue().bound, entry.getValue().relation);
+        }
+        if (patchIndices != null) {
+            for (int slot = 0; slot < patchIndices.length; slot++) {
+                patch.putIfAbsent(patchIndices[slot], new Cell(patchBounds[slot], patchRelations[slot]));
+            }
+        }
+
+        if (patch.size() > size * size / 4) {
+            LinearExpression[] newBounds = bounds.clone();
+            byte[] newRelations = relations.clone();
+            for (Map.Entry<Integer, Cell> entry : patch.entrySet()) {
+                newBounds[entry.getKey()] = entry.getValue().bound;
+                newRelations[entry.getKey()] = entry.getValue().relation;
+            }
+            return withCells(newBounds, newRelations, newFingerprint);
+        }
+        int[] newIndices = new int[patch.size()];
+        LinearExpression[] newPatchBounds = new LinearExpression[patch.size()];
+        byte[] newPatchRelations = new byte[patch.size()];
+        int slot = 0;
+        for (Map.Entry<Integer, Cell> entry : patch.entrySet()) {
+            newIndices[slot] = entry.getKey();
+            newPatchBounds[slot] = entry.getValue().bound;
+            newPatchRelations[slot] = entry.getValue().relation;
+            slot++;
+        }
+        return new PDBM(clockList, clockIndexMap, bounds, relations, newIndices, newPatchBounds, newPatchRelations,
+                newFingerprint);
+    }
+
+    /**
+     * 叠加补丁后的完整边界数组 (新数组，调用方可修改)。
+     */
+    private LinearExpression[] materializeBounds() {
+        LinearExpression[] result = bounds.clone();
+        if (patchIndices != null) {
+            for (int slot = 0; slot < patchIndices.length; slot++) {
+                result[patchIndices[slot]] = patchBounds[slot];
             }
         }
-        if (z3Guards.isEmpty()) {
-            return ctx.mkTrue(); // 空 PDBM 表示恒真
+        return result;
+    }
+
+    /**
+     * 叠加补丁后的完整关系数组 (新数组，调用方可修改)。
+     */
+    private byte[] materializeRelations() {
+        byte[] result = relations.clone();
+        if (patchIndices != null) {
+            for (int slot = 0; slot < patchIndices.length; slot++) {
+                result[patchIndices[slot]] = patchRelations[slot];
+            }
         }
-        return ctx.mkAnd(z3Guards.toArray(new BoolExpr[0]));
+        return result;
+    }
+
+    // --- 结构指纹 ---
+
+    /**
+     * 单元格 (下标, 边界, 关系) 的 64 位混合哈希 (SplitMix64 的终结函数)。
+     * 边界的哈希值在 LinearExpression 构造时已缓存，因此这里是常数时间。
+     */
+    private static long cellFingerprint(int index, LinearExpression bound, byte relation) {
+        long h = index * 0x9E3779B97F4A7C15L + (((long) bound.hashCode() << 1) | relation);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * 完整数组的结构指纹，只在没有可增量更新的来源时使用 (初始区域、由最小约束形式还原)。
+     */
+    private static long fingerprintOf(LinearExpression[] cellBounds, byte[] cellRelations) {
+        long h = 0L;
+        for (int index = 0; index < cellBounds.length; index++) {
+            h ^= cellFingerprint(index, cellBounds[index], cellRelations[index]);
+        }
+        return h;
+    }
+
+    // === Z3 转换 ===
+
+    /**
+     * 导出为 Z3 公式：只包含最小约束形式 ({@link #toMinimal()}) 的保留边，对角线与 ∞ 单元格恒真，不会导出。
+     */
+    @Override
+    public BoolExpr toZ3BoolExpr(Context ctx, Z3VariableManager varManager) {
+        return toMinimal().toZ3BoolExpr(ctx, varManager);
     }
 
     // === Object 方法 ===
@@ -481,16 +1419,27 @@ public final class PDBM implements Comparable<PDBM>, ToZ3BoolExpr {
         }
         PDBM pdbm = (PDBM) o;
         // 比较时钟列表和矩阵内容
-        if (!clockList.equals(pdbm.clockList)) {
+        if (size != pdbm.size || !clockList.equals(pdbm.clockList)) {
             return false;
         }
-        // Arrays.deepEquals 用于比较二维数组的内容
-        return Arrays.deepEquals(boundsMatrix, pdbm.boundsMatrix);
+        if (bounds == pdbm.bounds && relations == pdbm.relations && patchIndices == pdbm.patchIndices) {
+            return true; // 共享同一份存储
+        }
+        if (fingerprint != pdbm.fingerprint) {
+            return false;
+        }
+        for (int index = 0; index < size * size; index++) {
+            if (relation(index) != pdbm.relation(index) || !bound(index).equals(pdbm.bound(index))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return hashCode;
+        // 指纹按逻辑单元格计算，与存储是否共享、补丁如何划分无关
+        return Long.hashCode(fingerprint);
     }
 
     @Override
@@ -520,8 +1469,9 @@ public final class PDBM implements Comparable<PDBM>, ToZ3BoolExpr {
             Clock clock_i = this.clockList.get(i);
             sb.append(String.format("%" + maxClockNameWidth + "s |", clock_i.getName())); // 行标题 时钟名
             for (int j = 0; j < size; j++) {
-                AtomicGuard guard = boundsMatrix[i][j];
-                String element = String.format("%s %s", guard.getRelation().getSymbol(), guard.getBound().toString());
+                int index = i * size + j;
+                RelationType relation = relation(index) == REL_LT ? RelationType.LT : RelationType.LE;
+                String element = String.format("%s %s", relation.getSymbol(), bound(index).toString());
                 sb.append(String.format(" %-" + elementWidth + "s", element));
             }
             sb.append('\n');
@@ -536,20 +1486,25 @@ public final class PDBM implements Comparable<PDBM>, ToZ3BoolExpr {
         if (cmp != 0) {
             return cmp;
         }
-        cmp = this.clockList.toString().compareTo(other.clockList.toString());
-        if (cmp != 0) {
-            return cmp;
-        }
-
-        // 比较矩阵内容
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                cmp = this.boundsMatrix[i][j].compareTo(other.boundsMatrix[i][j]);
+        if (this.clockList != other.clockList) {
+            for (int i = 0; i < size; i++) {
+                cmp = Integer.compare(this.clockList.get(i).getId(), other.clockList.get(i).getId());
                 if (cmp != 0) {
                     return cmp;
                 }
             }
         }
+
+        // 比较矩阵内容
+        for (int index = 0; index < size * size; index++) {
+            cmp = this.bound(index).compareTo(other.bound(index));
+            if (cmp == 0) {
+                cmp = Byte.compare(this.relation(index), other.relation(index));
+            }
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
         return 0;
     }
 }
@@ -2,8 +2,10 @@ package org.example.expressions.parameters; // 放在 expressions.parameters 包
 
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Context;
-import lombok.Getter;
+import org.example.core.ParameterValuation;
+import org.example.expressions.RelationType;
 import org.example.expressions.ToZ3BoolExpr;
+import org.example.symbolic.SimplexSolver;
 import org.example.symbolic.Z3VariableManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,32 +16,88 @@ import java.util.stream.Collectors;
 /**
  * 代表一个参数约束的集合，其语义为集合中所有约束的合取。
  * 定义了参数空间中的一个凸多面体区域。
+ * <p>
+ * {@link #and} 只会让集合变大，分裂多次之后集合中会积累大量被蕴含的约束。
+ * 合取后的约束数超过阈值 ({@link #setMinimizeThreshold}) 且至少是上次化简结果的两倍时，自动调用 {@link #minimize()}，
+ * 因此约束数始终不超过不可约表示的两倍 (或阈值)，每条约束平均只参与常数次化简。
+ * <p>
+ * {@link #and(ParameterConstraint)} 不复制已有约束，只记录父约束集与新加入的一条约束，
+ * 同一前缀分裂出的各分支共享父约束集。包含判定 ({@link #contains}) 沿父链查找，
+ * 参数区间 ({@link #getIntervals()}) 由父约束集的区间加入一条约束得到；
+ * 只有需要有序集合时 ({@link #getConstraints()}、equals、compareTo、化简与求解器翻译) 才展开并缓存。
+ * 父链长度不超过 {@link #MAX_DEPTH}，超过时直接展开。
  * 此类是不可变的。
  */
-@Getter
 public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolExpr {
 
     private static final Logger logger = LoggerFactory.getLogger(ConstraintSet.class);
 
-    // 内部存储 ParameterConstraint 的有序集合，确保规范化和比较的一致性
-    private final SortedSet<ParameterConstraint> constraints;
+    /** 父链的最大长度 */
+    static final int MAX_DEPTH = 32;
+
+    // 内部存储 ParameterConstraint 的有序集合，确保规范化和比较的一致性；父链上的约束集首次使用时展开
+    private volatile SortedSet<ParameterConstraint> constraints;
+
+    // 父约束集与在其上新加入的约束；展开构造的约束集两者都为 null
+    private final ConstraintSet parent;
+    private final ParameterConstraint added;
+    // 到最近的展开祖先的链长，展开构造的约束集为 0
+    private final int depth;
+    private final int size;
 
     // 预定义常量：表示恒真（空约束集）和恒假（矛盾约束集）
-    public static final ConstraintSet TRUE_CONSTRAINT_SET = new ConstraintSet(Collections.emptySet());
+    public static final ConstraintSet TRUE_CONSTRAINT_SET = new ConstraintSet(Collections.emptySet(), 0);
+
     // FALSE_CONSTRAINT_SET 不好定义。目前的方案是尽可能避免直接需求恒假量的情况，一切交由Oracle判断
     private final int hashCode;
+    // 各约束哈希码之和，与 Set.hashCode 相同，可沿父链增量计算
+    private final int elementHashSum;
+
+    // 各参数的取值区间，首次使用时计算 (并发计算的结果相同，无需加锁)
+    private volatile ParameterIntervals intervals;
+
+    // 最近一次化简 (本实例或其祖先) 得到的约束数，0 表示从未化简
+    private final int minimizedSize;
+
+    /** 自动化简的默认阈值 */
+    public static final int DEFAULT_MINIMIZE_THRESHOLD = 16;
+    // 合取后约束数超过该值时自动化简，0 表示关闭
+    private static volatile int minimizeThreshold = DEFAULT_MINIMIZE_THRESHOLD;
 
     /**
      * 私有构造函数，用于创建 ConstraintSet 实例。
      * @param constraints 包含 ParameterConstraint 的集合。
+     * @param minimizedSize 最近一次化简得到的约束数。
      */
-    private ConstraintSet(Set<ParameterConstraint> constraints) {
+    private ConstraintSet(Set<ParameterConstraint> constraints, int minimizedSize) {
         Objects.requireNonNull(constraints, "Constraints set cannot be null");
         // 防御性拷贝并确保有序性
         this.constraints = Collections.unmodifiableSortedSet(new TreeSet<>(constraints));
-        logger.debug("创建 ConstraintSet: {}", this);
+        this.parent = null;
+        this.added = null;
+        this.depth = 0;
+        this.size = this.constraints.size();
         // 由于内部是 SortedSet，直接计算集合的哈希码即可
+        this.elementHashSum = this.constraints.hashCode();
         this.hashCode = Objects.hash(this.constraints);
+        this.minimizedSize = minimizedSize;
+        logger.debug("创建 ConstraintSet: {}", this);
+    }
+
+    /**
+     * 私有构造函数：在父约束集上加入一条不在其中的约束，不复制父约束集。
+     * @param parent 父约束集。
+     * @param added 新加入的约束。
+     */
+    private ConstraintSet(ConstraintSet parent, ParameterConstraint added) {
+        this.parent = parent;
+        this.added = Objects.requireNonNull(added, "Constraint cannot be null");
+        this.depth = parent.depth + 1;
+        this.size = parent.size + 1;
+        this.elementHashSum = parent.elementHashSum + added.hashCode();
+        // 与 Objects.hash(SortedSet) 相同
+        this.hashCode = 31 + elementHashSum;
+        this.minimizedSize = parent.minimizedSize;
     }
 
     /**
@@ -48,7 +106,7 @@ public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolE
      * @return ConstraintSet 实例。
      */
     public static ConstraintSet of(Set<ParameterConstraint> constraints) {
-        return new ConstraintSet(constraints);
+        return new ConstraintSet(constraints, 0);
     }
 
     /**
@@ -57,7 +115,7 @@ public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolE
      * @return 包含该约束的 ConstraintSet 实例。
      */
     public static ConstraintSet of(ParameterConstraint constraint) {
-        return new ConstraintSet(Collections.singleton(constraint));
+        return new ConstraintSet(Collections.singleton(constraint), 0);
     }
 
     /**
@@ -66,10 +124,16 @@ public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolE
      * @return 合取后的新 ConstraintSet。
      */
     public ConstraintSet and(ParameterConstraint otherConstraint) {
-        Set<ParameterConstraint> newConstraints = new TreeSet<>(this.constraints);
-        newConstraints.add(otherConstraint);
+        if (contains(otherConstraint)) {
+            return this; // 已包含，分支之间直接共享同一实例
+        }
         logger.debug("对ConstraintSet{}和Constraint{}进行合取", this, otherConstraint);
-        return new ConstraintSet(newConstraints);
+        if (depth < MAX_DEPTH) {
+            return minimizeIfLarge(new ConstraintSet(this, otherConstraint));
+        }
+        Set<ParameterConstraint> newConstraints = new TreeSet<>(getConstraints());
+        newConstraints.add(otherConstraint);
+        return minimizeIfLarge(new ConstraintSet(newConstraints, minimizedSize));
     }
 
     /**
@@ -78,10 +142,170 @@ public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolE
      * @return 合取后的新 ConstraintSet。
      */
     public ConstraintSet and(ConstraintSet otherSet) {
-        Set<ParameterConstraint> newConstraints = new TreeSet<>(this.constraints);
-        newConstraints.addAll(otherSet.constraints);
+        Set<ParameterConstraint> newConstraints = new TreeSet<>(getConstraints());
+        newConstraints.addAll(otherSet.getConstraints());
         logger.debug("对ConstraintSet{}和ConstraintSet{}进行合取", this, otherSet);
-        return new ConstraintSet(newConstraints);
+        return minimizeIfLarge(new ConstraintSet(newConstraints, Math.max(minimizedSize, otherSet.minimizedSize)));
+    }
+
+    /**
+     * 判断约束集在给定参数取值下是否成立，即其中每条约束都成立。
+     * @param parameterValuation 参数赋值，须包含约束中出现的所有参数。
+     * @return true 如果所有约束都成立。
+     */
+    public boolean isSatisfiedBy(ParameterValuation parameterValuation) {
+        for (ParameterConstraint constraint : getConstraints()) {
+            if (!constraint.isSatisfiedBy(parameterValuation)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断约束是否在集合中 (语法比较)。沿父链查找，不展开约束集。
+     * @param constraint 要查找的约束。
+     * @return true 如果集合中含有该约束。
+     */
+    public boolean contains(ParameterConstraint constraint) {
+        ConstraintSet node = this;
+        while (node.constraints == null) {
+            if (node.added.equals(constraint)) {
+                return true;
+            }
+            node = node.parent;
+        }
+        return node.constraints.contains(constraint);
+    }
+
+    /**
+     * 获取有序的约束集合。父链上的约束集首次调用时展开并缓存 (并发展开的结果相同，无需加锁)。
+     * @return 不可修改的有序集合。
+     */
+    public SortedSet<ParameterConstraint> getConstraints() {
+        SortedSet<ParameterConstraint> result = constraints;
+        if (result == null) {
+            List<ParameterConstraint> chain = new ArrayList<>(depth);
+            ConstraintSet node = this;
+            while (node.constraints == null) {
+                chain.add(node.added);
+                node = node.parent;
+            }
+            SortedSet<ParameterConstraint> expanded = new TreeSet<>(node.constraints);
+            expanded.addAll(chain);
+            result = Collections.unmodifiableSortedSet(expanded);
+            constraints = result;
+        }
+        return result;
+    }
+
+    // --- 冗余约束消除 ---
+
+    /**
+     * 消除冗余约束，得到语义相同的不可约表示 (最小 H 表示)：
+     * <ol>
+     *   <li>语法支配：去掉恒真约束；法向量相同 (除常数外完全相同) 的约束只保留最紧的一条
+     *       (常数更大者，常数相同时严格者)；含恒假约束时整个集合化为这一条恒假约束。</li>
+     *   <li>LP 蕴含：按顺序检查剩余的每条约束 k，若其余仍保留的约束 ∧ ¬k 不可满足 (由 {@link SimplexSolver} 判定)，
+     *       则 k 被蕴含，去掉。每次只依据当前仍保留的约束，因此结果与原集合等价。</li>
+     * </ol>
+     * 与 Oracle 一致，判定时所有参数非负。含非有限常数的约束不参与 LP 检查，保持原样。
+     * @return 化简后的约束集；没有冗余约束时返回自身。
+     */
+    public ConstraintSet minimize() {
+        // 第一步：语法支配，按法向量分组
+        SortedSet<ParameterConstraint> constraints = getConstraints();
+        Map<LinearExpression, ParameterConstraint> strongest = new LinkedHashMap<>();
+        for (ParameterConstraint constraint : constraints) {
+            if (constraint.isContradiction()) {
+                logger.debug("minimize: {} 含恒假约束 {}", this, constraint);
+                return constraints.size() == 1 ? this : new ConstraintSet(Collections.singleton(constraint), 1);
+            }
+            if (constraint.isTautology()) {
+                continue;
+            }
+            LinearExpression expr = constraint.getLeftExpr();
+            LinearExpression normal = expr.subtract(LinearExpression.of(expr.getConstant()));
+            strongest.merge(normal, constraint, ConstraintSet::stronger);
+        }
+        List<ParameterConstraint> kept = new ArrayList<>(strongest.values());
+        int syntactic = constraints.size() - kept.size();
+
+        // 第二步：LP 蕴含
+        int implied = 0;
+        for (int k = 0; k < kept.size() && kept.size() > 1; ) {
+            if (isImpliedByOthers(kept, k)) {
+                kept.remove(k);
+                implied++;
+            } else {
+                k++;
+            }
+        }
+
+        if (syntactic == 0 && implied == 0) {
+            return minimizedSize == constraints.size() ? this : new ConstraintSet(constraints, constraints.size());
+        }
+        logger.debug("minimize: {} 条约束化简为 {} 条 (语法支配 {} 条，LP 蕴含 {} 条)",
+                constraints.size(), kept.size(), syntactic, implied);
+        return new ConstraintSet(new HashSet<>(kept), kept.size());
+    }
+
+    /**
+     * 法向量相同的两条约束 E0 + a ~ 0 与 E0 + b ~ 0 中更紧的一条：常数更大者，常数相同时严格者。
+     */
+    private static ParameterConstraint stronger(ParameterConstraint first, ParameterConstraint second) {
+        int cmp = first.getLeftExpr().getConstant().compareTo(second.getLeftExpr().getConstant());
+        if (cmp != 0) {
+            return cmp > 0 ? first : second;
+        }
+        return first.getRelation() == RelationType.LT ? first : second;
+    }
+
+    /**
+     * kept 中除第 index 条以外的约束是否蕴含第 index 条。
+     */
+    private static boolean isImpliedByOthers(List<ParameterConstraint> kept, int index) {
+        ParameterConstraint candidate = kept.get(index);
+        try {
+            SimplexSolver solver = new SimplexSolver();
+            for (int j = 0; j < kept.size(); j++) {
+                if (j != index) {
+                    solver.assertConstraint(kept.get(j));
+                }
+            }
+            solver.assertConstraint(candidate.negate());
+            return !solver.check();
+        } catch (IllegalArgumentException e) {
+            logger.debug("minimize: 单纯形无法处理 {}，保留该约束: {}", candidate, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 约束数超过阈值且至少是上次化简结果的两倍时化简。
+     */
+    private static ConstraintSet minimizeIfLarge(ConstraintSet set) {
+        int threshold = minimizeThreshold;
+        int size = set.size;
+        if (threshold <= 0 || size <= threshold || size < 2 * set.minimizedSize) {
+            return set;
+        }
+        return set.minimize();
+    }
+
+    /**
+     * 设置自动化简的阈值 (默认 {@link #DEFAULT_MINIMIZE_THRESHOLD})：合取后约束数超过该值时调用 {@link #minimize()}。
+     * @param threshold 阈值，0 表示关闭自动化简。
+     */
+    public static void setMinimizeThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("ConstraintSet: 化简阈值不能为负数，实际为 " + threshold);
+        }
+        minimizeThreshold = threshold;
+    }
+
+    public static int getMinimizeThreshold() {
+        return minimizeThreshold;
     }
 
     /**
@@ -90,16 +314,41 @@ public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolE
      * @return true 如果为空，false 否则。
      */
     public boolean isEmpty() {
-        return constraints.isEmpty();
+        return size == 0;
+    }
+
+    /**
+     * @return 约束的条数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取由单参数约束推出的各参数取值区间，用于不调用 Oracle 的语法判定。结果缓存在实例中。
+     * 父链上的约束集由父约束集的区间加入一条约束得到，不展开。
+     * @return 区间盒。
+     */
+    public ParameterIntervals getIntervals() {
+        ParameterIntervals result = intervals;
+        if (result == null) {
+            result = parent != null ? parent.getIntervals().and(added) : ParameterIntervals.of(this);
+            intervals = result;
+        }
+        return result;
     }
 
     // --- Z3 转换 ---
     @Override
     public BoolExpr toZ3BoolExpr(Context ctx, Z3VariableManager varManager) {
-        if (constraints.isEmpty()) {
+        if (isEmpty()) {
             return ctx.mkTrue(); // 空约束集表示恒真
         }
-        BoolExpr[] z3Constraints = constraints.stream()
+        return varManager.translate(this, () -> buildZ3BoolExpr(ctx, varManager));
+    }
+
+    private BoolExpr buildZ3BoolExpr(Context ctx, Z3VariableManager varManager) {
+        BoolExpr[] z3Constraints = getConstraints().stream()
                 .map(c -> c.toZ3BoolExpr(ctx, varManager))
                 .toArray(BoolExpr[]::new);
         return ctx.mkAnd(z3Constraints);
@@ -115,8 +364,14 @@ public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolE
             return false;
         }
         ConstraintSet that = (ConstraintSet) o;
+        if (hashCode != that.hashCode || size != that.size) {
+            return false;
+        }
+        if (parent != null && parent == that.parent) {
+            return added.equals(that.added);
+        }
         // 由于内部是 SortedSet，直接比较集合即可
-        return constraints.equals(that.constraints);
+        return getConstraints().equals(that.getConstraints());
     }
 
     @Override
@@ -126,11 +381,11 @@ public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolE
 
     @Override
     public String toString() {
-        if (constraints.isEmpty()) {
+        if (isEmpty()) {
             return "TRUE"; // 语义上表示恒真
         }
         return "(" +
-                constraints.stream()
+                getConstraints().stream()
                         .map(ParameterConstraint::toString)
                         .collect(Collectors.joining(" /\\ ")) +
                 ")";
@@ -139,8 +394,8 @@ public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolE
     @Override
     public int compareTo(ConstraintSet other) {
         // 比较两个集合，按元素顺序逐个比较
-        Iterator<ParameterConstraint> thisIt = this.constraints.iterator();
-        Iterator<ParameterConstraint> otherIt = other.constraints.iterator();
+        Iterator<ParameterConstraint> thisIt = this.getConstraints().iterator();
+        Iterator<ParameterConstraint> otherIt = other.getConstraints().iterator();
 
         while (thisIt.hasNext() && otherIt.hasNext()) {
             ParameterConstraint thisC = thisIt.next();
@@ -151,6 +406,6 @@ public final class ConstraintSet implements Comparable<ConstraintSet>, ToZ3BoolE
             }
         }
         // 如果一个集合是另一个集合的前缀，则较长的集合更大
-        return Integer.compare(this.constraints.size(), other.constraints.size());
+        return Integer.compare(this.size, other.size);
     }
 }
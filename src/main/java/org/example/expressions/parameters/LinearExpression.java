@@ -8,46 +8,94 @@ import org.example.core.Parameter;
 import org.example.core.ParameterValuation; // 用于求值
 import org.example.expressions.ToZ3ArithExpr;
 import org.example.symbolic.Z3VariableManager;
+import org.example.utils.CacheStatistics;
 import org.example.utils.Rational;
+import org.example.utils.RationalAccumulator;
+import org.example.utils.WeakInterner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 代表一个只包含参数的线性表达式，形式为 c1*p1 + c2*p2 + ... + const。
+ * 内部采用紧凑表示：按参数 ID 升序排列的 int[] 以及平行的参数数组和系数数组，
+ * 加减法是两个有序数组的线性归并，比较、判等与哈希都不需要装箱。
  */
-@Getter
 public final class LinearExpression implements Comparable<LinearExpression>, ToZ3ArithExpr {
 
-    Logger logger = LoggerFactory.getLogger(LinearExpression.class);
+    private static final Logger logger = LoggerFactory.getLogger(LinearExpression.class);
 
-    private final SortedMap<Parameter, Rational> coefficients;
+    private static final Parameter[] NO_PARAMETERS = new Parameter[0];
+    private static final int[] NO_IDS = new int[0];
+    private static final Rational[] NO_COEFFICIENTS = new Rational[0];
 
+    // 哈希构造表：结构相等的表达式共享同一实例 (大小为粗略估算：对象头与字段 + 三个数组)
+    private static final WeakInterner<LinearExpression> INTERNER = new WeakInterner<>("LinearExpression",
+            e -> 40L + 3 * 16L + 12L * e.parameterIds.length);
+
+    // 三个平行数组，按参数 ID 严格升序，系数均非零
+    private final Parameter[] parameters;
+    private final int[] parameterIds;
+    private final Rational[] coefficientValues;
+
+    @Getter
     private final Rational constant;
 
     private final int hashCode;
 
+    // getCoefficients() 的 Map 视图，首次访问时才构建
+    private volatile SortedMap<Parameter, Rational> coefficientsView;
+
+    /**
+     * 私有构造函数，直接接管已规范化的数组 (ID 严格升序，系数非零)，不做拷贝。
+     * @param parameters 参数数组。
+     * @param parameterIds 参数 ID 数组。
+     * @param coefficientValues 系数数组。
+     * @param constant 常数项。
+     */
+    private LinearExpression(Parameter[] parameters, int[] parameterIds, Rational[] coefficientValues, Rational constant) {
+        this.parameters = parameters;
+        this.parameterIds = parameterIds;
+        this.coefficientValues = coefficientValues;
+        this.constant = Objects.requireNonNull(constant, "Constant term cannot be null");
+        int h = constant.hashCode();
+        for (int k = 0; k < parameterIds.length; k++) {
+            h = 31 * h + parameterIds[k];
+            h = 31 * h + coefficientValues[k].hashCode();
+        }
+        this.hashCode = h;
+        logger.debug("创建 LinearExpression: {}", this);
+    }
+
     /**
-     * 私有构造函数。
+     * 从 Map 构建：过滤零系数并按参数 ID 排序。
      * @param coefficients 参数到其系数的映射。
      * @param constant 常数项。
      */
-    private LinearExpression(Map<Parameter, Rational> coefficients, Rational constant) {
-        // 防御性拷贝并确保有序性，同时过滤掉系数为零的参数
-        Map<Parameter, Rational> tempCoefficients = new HashMap<>();
-        for (Map.Entry<Parameter, Rational> entry : Objects.requireNonNull(coefficients, "Coefficients map cannot be null").entrySet()) {
+    private static LinearExpression fromMap(Map<Parameter, Rational> coefficients, Rational constant) {
+        Objects.requireNonNull(coefficients, "Coefficients map cannot be null");
+        Parameter[] params = new Parameter[coefficients.size()];
+        int n = 0;
+        for (Map.Entry<Parameter, Rational> entry : coefficients.entrySet()) {
             Parameter param = Objects.requireNonNull(entry.getKey(), "Parameter in coefficients map cannot be null");
             Rational coeff = Objects.requireNonNull(entry.getValue(), "Coefficient cannot be null");
             if (!coeff.isZero()) {
-                tempCoefficients.put(param, coeff);
+                params[n++] = param;
             }
         }
-        this.coefficients = Collections.unmodifiableSortedMap(new TreeMap<>(tempCoefficients));
-        this.constant = Objects.requireNonNull(constant, "Constant term cannot be null");
-        this.hashCode = Objects.hash(this.coefficients, this.constant);
-        logger.debug("创建 LinearExpression: {}，常数项为{}", this.coefficients, this.constant);
+        if (n == 0) {
+            return intern(new LinearExpression(NO_PARAMETERS, NO_IDS, NO_COEFFICIENTS, constant));
+        }
+        params = Arrays.copyOf(params, n);
+        Arrays.sort(params, Comparator.comparingInt(Parameter::getId));
+        int[] ids = new int[n];
+        Rational[] coeffs = new Rational[n];
+        for (int k = 0; k < n; k++) {
+            ids[k] = params[k].getId();
+            coeffs[k] = coefficients.get(params[k]);
+        }
+        return intern(new LinearExpression(params, ids, coeffs, constant));
     }
 
     /**
@@ -57,7 +105,7 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
      * @return LinearExpression 实例。
      */
     public static LinearExpression of(Map<Parameter, Rational> coefficients, Rational constant) {
-        return new LinearExpression(coefficients, constant);
+        return fromMap(coefficients, constant);
     }
 
     /**
@@ -66,7 +114,7 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
      * @return LinearExpression 实例。
      */
     public static LinearExpression of(Map<Parameter, Rational> coefficients) {
-        return new LinearExpression(coefficients, Rational.ZERO);
+        return fromMap(coefficients, Rational.ZERO);
     }
 
     /**
@@ -75,7 +123,7 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
      * @return LinearExpression 实例。
      */
     public static LinearExpression of(Rational constant) {
-        return new LinearExpression(Collections.emptyMap(), constant); // 使用空 Map 表示没有参数
+        return intern(new LinearExpression(NO_PARAMETERS, NO_IDS, NO_COEFFICIENTS, constant)); // 使用空数组表示没有参数
     }
 
     /**
@@ -84,7 +132,7 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
      * @return LinearExpression 实例。
      */
     public static LinearExpression of(Parameter parameter) {
-        return new LinearExpression(Map.of(parameter, Rational.ONE), Rational.ZERO);
+        return of(parameter, Rational.ONE);
     }
 
     /**
@@ -94,7 +142,83 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
      * @return LinearExpression 实例。
      */
     public static LinearExpression of(Parameter parameter, Rational coefficient) {
-        return new LinearExpression(Map.of(parameter, coefficient), Rational.ZERO);
+        Objects.requireNonNull(parameter, "Parameter cannot be null");
+        Objects.requireNonNull(coefficient, "Coefficient cannot be null");
+        if (coefficient.isZero()) {
+            return of(Rational.ZERO);
+        }
+        return intern(new LinearExpression(new Parameter[]{parameter}, new int[]{parameter.getId()},
+                new Rational[]{coefficient}, Rational.ZERO));
+    }
+
+    private static LinearExpression intern(LinearExpression expression) {
+        return INTERNER.intern(expression);
+    }
+
+    /**
+     * 获取哈希构造表的命中统计。
+     * @return 统计信息。
+     */
+    public static CacheStatistics getInternStatistics() {
+        return INTERNER.getStatistics();
+    }
+
+    // --- 访问方法 ---
+
+    /**
+     * 参数到系数的有序映射视图 (不可修改)。首次调用时由内部数组构建并缓存。
+     * 热路径上优先使用 size()/getParameter(k)/getCoefficient(k)。
+     * @return 参数到系数的映射。
+     */
+    public SortedMap<Parameter, Rational> getCoefficients() {
+        SortedMap<Parameter, Rational> view = coefficientsView;
+        if (view == null) {
+            SortedMap<Parameter, Rational> map = new TreeMap<>();
+            for (int k = 0; k < parameters.length; k++) {
+                map.put(parameters[k], coefficientValues[k]);
+            }
+            view = Collections.unmodifiableSortedMap(map);
+            coefficientsView = view;
+        }
+        return view;
+    }
+
+    /**
+     * 非零系数的参数个数。
+     */
+    public int size() {
+        return parameterIds.length;
+    }
+
+    /**
+     * 是否为常数表达式 (不含任何参数)。
+     */
+    public boolean isConstant() {
+        return parameterIds.length == 0;
+    }
+
+    /**
+     * 按 ID 升序的第 k 个参数。
+     */
+    public Parameter getParameter(int k) {
+        return parameters[k];
+    }
+
+    /**
+     * 按 ID 升序的第 k 个参数的系数。
+     */
+    public Rational getCoefficient(int k) {
+        return coefficientValues[k];
+    }
+
+    /**
+     * 指定参数的系数，不出现时为零。
+     * @param parameter 参数。
+     * @return 系数。
+     */
+    public Rational getCoefficient(Parameter parameter) {
+        int k = Arrays.binarySearch(parameterIds, parameter.getId());
+        return k >= 0 ? coefficientValues[k] : Rational.ZERO;
     }
 
 
@@ -104,12 +228,8 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
      * @return 相加后的新 LinearExpression。
      */
     public LinearExpression add(LinearExpression other) {
-        Map<Parameter, Rational> newCoefficients = new HashMap<>(this.coefficients);
-        other.coefficients.forEach((para, value) -> {
-            newCoefficients.merge(para, value, Rational::add);
-        });
         logger.debug("计算了{}和{}的和", this, other);
-        return new LinearExpression(newCoefficients, this.constant.add(other.constant));
+        return merge(other, false);
     }
 
     /**
@@ -118,12 +238,8 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
      * @return 相减后的新 LinearExpression。
      */
     public LinearExpression subtract(LinearExpression other) {
-        Map<Parameter, Rational> newCoefficients = new HashMap<>(this.coefficients);
-        other.coefficients.forEach((para, value) -> {
-            newCoefficients.merge(para, value.negate(), Rational::add); // 减去相当于加上负数
-        });
         logger.debug("计算了{}和{}的差", this, other);
-        return new LinearExpression(newCoefficients, this.constant.subtract(other.constant));
+        return merge(other, true);
     }
 
     /**
@@ -131,10 +247,91 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
      * @return 取反后的新 LinearExpression。
      */
     public LinearExpression negate() {
-        Map<Parameter, Rational> negatedCoefficients = this.coefficients.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().negate()));
+        int n = coefficientValues.length;
+        Rational[] negated = new Rational[n];
+        for (int k = 0; k < n; k++) {
+            negated[k] = coefficientValues[k].negate();
+        }
         logger.debug("计算了{}的相反数", this);
-        return new LinearExpression(negatedCoefficients, this.constant.negate());
+        // 取反不改变参数集合，参数数组可以共享
+        return intern(new LinearExpression(parameters, parameterIds, negated, this.constant.negate()));
+    }
+
+    /**
+     * 将此表达式的所有系数与常数除以一个正的有限数。
+     * @param divisor 除数，必须为正的有限数。
+     * @return 相除后的新 LinearExpression；divisor 为 1 时返回自身。
+     * @throws IllegalArgumentException 如果 divisor 不是正的有限数。
+     */
+    public LinearExpression divideByPositive(Rational divisor) {
+        if (!divisor.isFinite() || divisor.signum() <= 0) {
+            throw new IllegalArgumentException("LinearExpression-divideByPositive: 除数必须为正的有限数，实际为 " + divisor);
+        }
+        if (divisor.equals(Rational.ONE)) {
+            return this;
+        }
+        int n = coefficientValues.length;
+        Rational[] scaled = new Rational[n];
+        for (int k = 0; k < n; k++) {
+            scaled[k] = coefficientValues[k].divide(divisor);
+        }
+        // 正数缩放不改变参数集合，参数数组可以共享
+        return intern(new LinearExpression(parameters, parameterIds, scaled, this.constant.divide(divisor)));
+    }
+
+    /**
+     * 两个有序数组的线性归并：this + other 或 this - other，同时丢弃相消为零的项。
+     */
+    private LinearExpression merge(LinearExpression other, boolean subtractOther) {
+        Rational newConstant = subtractOther ? this.constant.subtract(other.constant) : this.constant.add(other.constant);
+        if (other.parameterIds.length == 0) {
+            return intern(new LinearExpression(parameters, parameterIds, coefficientValues, newConstant));
+        }
+        if (this.parameterIds.length == 0 && !subtractOther) {
+            return intern(new LinearExpression(other.parameters, other.parameterIds, other.coefficientValues, newConstant));
+        }
+        int[] ids1 = this.parameterIds;
+        int[] ids2 = other.parameterIds;
+        int capacity = ids1.length + ids2.length;
+        Parameter[] params = new Parameter[capacity];
+        int[] ids = new int[capacity];
+        Rational[] coeffs = new Rational[capacity];
+        int a = 0;
+        int b = 0;
+        int n = 0;
+        while (a < ids1.length || b < ids2.length) {
+            Rational coeff;
+            Parameter param;
+            if (b >= ids2.length || (a < ids1.length && ids1[a] < ids2[b])) {
+                param = this.parameters[a];
+                coeff = this.coefficientValues[a++];
+            } else if (a >= ids1.length || ids2[b] < ids1[a]) {
+                param = other.parameters[b];
+                coeff = subtractOther ? other.coefficientValues[b].negate() : other.coefficientValues[b];
+                b++;
+            } else {
+                param = this.parameters[a];
+                coeff = subtractOther ? this.coefficientValues[a].subtract(other.coefficientValues[b])
+                        : this.coefficientValues[a].add(other.coefficientValues[b]);
+                a++;
+                b++;
+            }
+            if (!coeff.isZero()) {
+                params[n] = param;
+                ids[n] = param.getId();
+                coeffs[n] = coeff;
+                n++;
+            }
+        }
+        if (n == 0) {
+            return intern(new LinearExpression(NO_PARAMETERS, NO_IDS, NO_COEFFICIENTS, newConstant));
+        }
+        if (n < capacity) {
+            params = Arrays.copyOf(params, n);
+            ids = Arrays.copyOf(ids, n);
+            coeffs = Arrays.copyOf(coeffs, n);
+        }
+        return intern(new LinearExpression(params, ids, coeffs, newConstant));
     }
 
     /**
@@ -143,13 +340,13 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
      * @return 表达式的 Rational 值。
      */
     public Rational evaluate(ParameterValuation parameterValuation) {
-        Rational result = this.constant;
-        for (Map.Entry<Parameter, Rational> entry : coefficients.entrySet()) {
-            Parameter param = entry.getKey();
-            Rational coeff = entry.getValue();
-            Rational paramValue = parameterValuation.getValue(param); // 获取参数的具体值
-            result = result.add(coeff.multiply(paramValue));
+        // 用累加器求点积，中间结果不产生新的 Rational
+        RationalAccumulator accumulator = new RationalAccumulator(this.constant);
+        for (int k = 0; k < parameters.length; k++) {
+            Rational paramValue = parameterValuation.getValue(parameters[k]); // 获取参数的具体值
+            accumulator.addProduct(coefficientValues[k], paramValue);
         }
+        Rational result = accumulator.toRational();
         logger.debug("根据参数赋值{}计算了{}的结果为{}", parameterValuation, this, result);
         return result;
     }
@@ -160,13 +357,9 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
         boolean firstTerm = true;
 
         // 遍历有序的系数，确保输出顺序稳定
-        for (Map.Entry<Parameter, Rational> entry : coefficients.entrySet()) {
-            Parameter param = entry.getKey();
-            Rational coeff = entry.getValue();
-
-            if (coeff.isZero()) {
-                continue;
-            }
+        for (int k = 0; k < parameters.length; k++) {
+            Parameter param = parameters[k];
+            Rational coeff = coefficientValues[k];
 
             if (!firstTerm) {
                 sb.append(" + ");
@@ -200,7 +393,10 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
             return false;
         }
         LinearExpression that = (LinearExpression) o;
-        return coefficients.equals(that.coefficients) && constant.equals(that.constant);
+        return hashCode == that.hashCode
+                && Arrays.equals(parameterIds, that.parameterIds)
+                && constant.equals(that.constant)
+                && Arrays.equals(coefficientValues, that.coefficientValues);
     }
 
     @Override
@@ -210,12 +406,14 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
 
     @Override
     public ArithExpr toZ3ArithExpr(Context ctx, Z3VariableManager varManager) {
+        return varManager.translate(this, () -> buildZ3ArithExpr(ctx, varManager));
+    }
+
+    private ArithExpr buildZ3ArithExpr(Context ctx, Z3VariableManager varManager) {
         ArithExpr result = constant.toZ3Real(ctx);
-        for (Map.Entry<Parameter, Rational> entry : coefficients.entrySet()) {
-            Parameter param = entry.getKey();
-            Rational coeff = entry.getValue();
-            ArithExpr paramExpr = varManager.getZ3Var(param);
-            ArithExpr z3Coeff = coeff.toZ3Real(ctx);
+        for (int k = 0; k < parameters.length; k++) {
+            ArithExpr paramExpr = varManager.getZ3Var(parameters[k]);
+            ArithExpr z3Coeff = coefficientValues[k].toZ3Real(ctx);
             result = ctx.mkAdd(result, ctx.mkMul(z3Coeff, paramExpr));
         }
         return result;
@@ -229,16 +427,19 @@ public final class LinearExpression implements Comparable<LinearExpression>, ToZ
             return cmp;
         }
 
-        // 2. 比较系数 Map (按参数 ID 顺序遍历)
-        // 获取所有涉及到的参数，并排序
-        Set<Parameter> allParameters = new TreeSet<>(Comparator.comparingInt(Parameter::getId));
-        allParameters.addAll(this.coefficients.keySet());
-        allParameters.addAll(other.coefficients.keySet());
-
-        for (Parameter param : allParameters) {
-            Rational thisCoeff = this.coefficients.getOrDefault(param, Rational.ZERO);
-            Rational otherCoeff = other.coefficients.getOrDefault(param, Rational.ZERO);
-            cmp = thisCoeff.compareTo(otherCoeff);
+        // 2. 按参数 ID 顺序归并比较系数，缺失的参数视为系数为零
+        int[] ids1 = this.parameterIds;
+        int[] ids2 = other.parameterIds;
+        int a = 0;
+        int b = 0;
+        while (a < ids1.length || b < ids2.length) {
+            if (b >= ids2.length || (a < ids1.length && ids1[a] < ids2[b])) {
+                cmp = this.coefficientValues[a++].compareTo(Rational.ZERO);
+            } else if (a >= ids1.length || ids2[b] < ids1[a]) {
+                cmp = Rational.ZERO.compareTo(other.coefficientValues[b++]);
+            } else {
+                cmp = this.coefficientValues[a++].compareTo(other.coefficientValues[b++]);
+            }
             if (cmp != 0) {
                 return cmp;
             }
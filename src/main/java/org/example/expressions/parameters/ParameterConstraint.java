@@ -3,10 +3,14 @@ package org.example.expressions.parameters; // 放在 expressions.parameters 包
 import com.microsoft.z3.ArithExpr;
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Context;
+import lombok.Getter;
+import org.example.core.ParameterValuation;
 import org.example.expressions.RelationType;
 import org.example.expressions.ToZ3BoolExpr;
 import org.example.symbolic.Z3VariableManager;
+import org.example.utils.CacheStatistics;
 import org.example.utils.Rational;
+import org.example.utils.WeakInterner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,17 +18,35 @@ import java.util.Objects;
 
 /**
  * 代表一个纯粹的参数约束，形式为 E1 ~ E2，其中 E1 和 E2 都是含参线性表达式。
- * 内部规范化为 E_normalized ~ 0 的形式。
+ * 内部规范化为 E ~ 0 的形式，并进一步规范为同一半空间唯一的表示：
+ * <ul>
+ *   <li>&gt;、&gt;= 两边取反，关系只剩 &lt; 与 &lt;=；</li>
+ *   <li>除以首个参数系数的绝对值，使首项系数为 ±1；不含参数时除以常数的绝对值，常数只剩 -1、0、1。</li>
+ * </ul>
+ * 因此 2p - 4 &lt;= 0、p - 2 &lt;= 0 与 -p + 2 &gt;= 0 是同一个约束 (同一实例)，
+ * 在 ConstraintSet、Oracle 缓存的键与 Z3 公式中只出现一次。
  * 此类是不可变的。
  */
 public final class ParameterConstraint implements Comparable<ParameterConstraint>, ToZ3BoolExpr {
 
     private static final Logger logger = LoggerFactory.getLogger(ParameterConstraint.class);
 
+    // 哈希构造表：结构相等的约束共享同一实例
+    private static final WeakInterner<ParameterConstraint> INTERNER = new WeakInterner<>("ParameterConstraint", c -> 24L);
+
     // 规范化后的形式：leftExpr ~ 0
+    @Getter
     private final LinearExpression leftExpr; // 规范化后的左侧表达式 (E1 - E2)
+    @Getter
     private final RelationType relation;     // 规范化后的关系类型 (~')
 
+    /** 左侧为常数且约束恒真 */
+    @Getter
+    private final boolean tautology;
+    /** 左侧为常数且约束恒假 */
+    @Getter
+    private final boolean contradiction;
+
     private final int hashCode;
 
     /**
@@ -43,22 +65,32 @@ public final class ParameterConstraint implements Comparable<ParameterConstraint
 
         // 规范化为 E_normalized ~ 0 的形式
         // E1 ~ E2  =>  (E1 - E2) ~ 0
-        this.leftExpr = left.subtract(right);
-        this.relation = relation; // 关系类型保持不变，因为只是移项
+        LinearExpression expr = left.subtract(right);
+        RelationType rel = relation;
+        // E > 0  =>  -E < 0，E >= 0  =>  -E <= 0
+        if (rel == RelationType.GT || rel == RelationType.GE) {
+            expr = expr.negate();
+            rel = rel.flip();
+        }
+        // 按正数缩放不改变半空间：首项系数 (不含参数时为常数) 的绝对值缩放为 1
+        Rational scale = expr.isConstant() ? expr.getConstant().abs() : expr.getCoefficient(0).abs();
+        if (expr.getConstant().isFinite() && scale.isFinite() && scale.signum() > 0) {
+            expr = expr.divideByPositive(scale);
+        }
+        this.leftExpr = expr;
+        this.relation = rel;
 
-        // 检查自身矛盾或恒真 (可选，Z3 也会处理)
+        // 检查自身矛盾或恒真，结果保留下来供 Oracle 的语法预判定使用
         // 如果 leftExpr 是一个常数 (没有参数)
-        if (this.leftExpr.getCoefficients().isEmpty()) {
+        boolean isTrue = false;
+        boolean isFalse = false;
+        if (this.leftExpr.isConstant()) {
             Rational constantValue = this.leftExpr.getConstant();
-            boolean isTrue = false;
-            boolean isFalse = false;
 
             switch (this.relation) {
                 case LT: isTrue = constantValue.compareTo(Rational.ZERO) < 0; isFalse = constantValue.compareTo(Rational.ZERO) >= 0; break;
                 case LE: isTrue = constantValue.compareTo(Rational.ZERO) <= 0; isFalse = constantValue.compareTo(Rational.ZERO) > 0; break;
-                case GT: isTrue = constantValue.compareTo(Rational.ZERO) > 0; isFalse = constantValue.compareTo(Rational.ZERO) <= 0; break;
-                case GE: isTrue = constantValue.compareTo(Rational.ZERO) >= 0; isFalse = constantValue.compareTo(Rational.ZERO) < 0; break;
-                default: break; // TODO: 有其他类型再说
+                default: throw new IllegalStateException("ParameterConstraint-构造函数: 规范化后只应出现 LT/LE，实际为 " + this.relation);
             }
 
             if (isFalse) {
@@ -67,6 +99,8 @@ public final class ParameterConstraint implements Comparable<ParameterConstraint
                 logger.debug("ParameterConstraint-构造函数: 创建了一个恒真约束: {}", this);
             }
         }
+        this.tautology = isTrue;
+        this.contradiction = isFalse;
         this.hashCode = Objects.hash(this.leftExpr, this.relation);
         logger.debug("创建 ParameterConstraint: {}", this);
     }
@@ -79,7 +113,19 @@ public final class ParameterConstraint implements Comparable<ParameterConstraint
      * @return ParameterConstraint 实例。
      */
     public static ParameterConstraint of(LinearExpression left, LinearExpression right, RelationType relation) {
-        return new ParameterConstraint(left, right, relation);
+        return intern(new ParameterConstraint(left, right, relation));
+    }
+
+    private static ParameterConstraint intern(ParameterConstraint constraint) {
+        return INTERNER.intern(constraint);
+    }
+
+    /**
+     * 获取哈希构造表的命中统计。
+     * @return 统计信息。
+     */
+    public static CacheStatistics getInternStatistics() {
+        return INTERNER.getStatistics();
     }
 
     /**
@@ -88,19 +134,33 @@ public final class ParameterConstraint implements Comparable<ParameterConstraint
      */
     public ParameterConstraint negate() {
         // ¬(E_normalized ~ 0) => E_normalized ~' 0
-        return new ParameterConstraint(this.leftExpr, LinearExpression.of(Rational.ZERO), this.relation.negate());
+        return intern(new ParameterConstraint(this.leftExpr, LinearExpression.of(Rational.ZERO), this.relation.negate()));
+    }
+
+    /**
+     * 判断约束在给定参数取值下是否成立。
+     * @param parameterValuation 参数赋值，须包含约束中出现的所有参数。
+     * @return true 如果 E ~ 0 成立。
+     */
+    public boolean isSatisfiedBy(ParameterValuation parameterValuation) {
+        int sign = leftExpr.evaluate(parameterValuation).signum();
+        return relation == RelationType.LT ? sign < 0 : sign <= 0;
     }
 
     @Override
     public BoolExpr toZ3BoolExpr(Context ctx, Z3VariableManager varManager) {
+        return varManager.translate(this, () -> buildZ3BoolExpr(ctx, varManager));
+    }
+
+    private BoolExpr buildZ3BoolExpr(Context ctx, Z3VariableManager varManager) {
         ArithExpr z3LeftExpr = leftExpr.toZ3ArithExpr(ctx, varManager);
         ArithExpr z3Zero = ctx.mkReal(0);
 
         return switch (relation) {
             case LT -> ctx.mkLt(z3LeftExpr, z3Zero);
             case LE -> ctx.mkLe(z3LeftExpr, z3Zero);
-            case GT -> ctx.mkGt(z3LeftExpr, z3Zero);
-            case GE -> ctx.mkGe(z3LeftExpr, z3Zero);
+            // 构造函数已将 GT/GE 化为 LT/LE
+            default -> throw new IllegalStateException("ParameterConstraint: 规范化后只应出现 LT/LE，实际为 " + relation);
         };
     }
 
@@ -115,7 +175,7 @@ public final class ParameterConstraint implements Comparable<ParameterConstraint
         }
         ParameterConstraint that = (ParameterConstraint) o;
         // 由于构造函数已规范化，直接比较字段即可
-        return relation == that.relation && leftExpr.equals(that.leftExpr);
+        return hashCode == that.hashCode && relation == that.relation && leftExpr.equals(that.leftExpr);
     }
 
     @Override
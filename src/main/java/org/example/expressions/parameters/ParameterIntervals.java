@@ -0,0 +1,191 @@
+package org.example.expressions.parameters;
+
+import org.example.core.Parameter;
+import org.example.expressions.RelationType;
+import org.example.utils.Rational;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 由参数约束集推出的各参数取值区间 (闭包络)，用于不调用 Oracle 的保守判定。
+ * 只利用恰好含一个参数的约束 a·p + c ~ 0，多参数约束被忽略；所有参数都有下界 0 (论文中参数是非负实数)。
+ * 因此得到的区间盒是 C 的解集的一个超集：在盒上恒成立的性质在 C 上也恒成立。
+ * 严格不等式按非严格处理，同样只会让区间变大。
+ * C 中全部是单参数约束时 ({@link #isExact()})，区间盒就是 C 的解集的闭包。
+ * 每个 ConstraintSet 只计算一次 (见 {@link ConstraintSet#getIntervals()})。
+ * 此类是不可变的。
+ * @author Ayalyt
+ */
+public final class ParameterIntervals {
+
+    private final Map<Parameter, Rational> lowerBounds;
+    private final Map<Parameter, Rational> upperBounds;
+    // C 中是否全部是单参数约束
+    private final boolean exact;
+    // 是否已能确定 C 不可满足 (某个区间为空，或含恒假约束)
+    private final boolean empty;
+
+    private ParameterIntervals(Map<Parameter, Rational> lowerBounds, Map<Parameter, Rational> upperBounds,
+                               boolean exact, boolean contradiction) {
+        this.lowerBounds = lowerBounds;
+        this.upperBounds = upperBounds;
+        this.exact = exact;
+        boolean anyEmpty = contradiction;
+        for (Parameter parameter : upperBounds.keySet()) {
+            anyEmpty |= getLower(parameter).compareTo(getUpper(parameter)) > 0;
+        }
+        this.empty = anyEmpty;
+    }
+
+    /**
+     * 从参数约束集计算各参数的区间。
+     * @param constraintSet 参数约束集。
+     * @return 区间盒。
+     */
+    public static ParameterIntervals of(ConstraintSet constraintSet) {
+        Map<Parameter, Rational> lower = new HashMap<>();
+        Map<Parameter, Rational> upper = new HashMap<>();
+        boolean exact = true;
+        boolean contradiction = false;
+        for (ParameterConstraint constraint : constraintSet.getConstraints()) {
+            contradiction |= constraint.isContradiction();
+            exact &= addBound(constraint, lower, upper);
+        }
+        return new ParameterIntervals(lower, upper, exact, contradiction);
+    }
+
+    /**
+     * 加入一条约束后的区间盒，用于由父约束集的区间增量计算 (见 {@link ConstraintSet#getIntervals()})。
+     * @param constraint 新加入的约束。
+     * @return 新的区间盒。
+     */
+    public ParameterIntervals and(ParameterConstraint constraint) {
+        Map<Parameter, Rational> lower = new HashMap<>(lowerBounds);
+        Map<Parameter, Rational> upper = new HashMap<>(upperBounds);
+        boolean single = addBound(constraint, lower, upper);
+        return new ParameterIntervals(lower, upper, exact && single, empty || constraint.isContradiction());
+    }
+
+    /**
+     * 把单参数约束 a·p + c ~ 0 收紧到对应的区间端点上。
+     * @return 约束是否是单参数约束或恒真约束 (即不影响 {@link #isExact()})。
+     */
+    private static boolean addBound(ParameterConstraint constraint, Map<Parameter, Rational> lower,
+                                    Map<Parameter, Rational> upper) {
+        LinearExpression expr = constraint.getLeftExpr();
+        if (expr.size() != 1) {
+            return constraint.isTautology();
+        }
+        Parameter parameter = expr.getParameter(0);
+        Rational coefficient = expr.getCoefficient(0);
+        // a·p + c ~ 0  =>  p ~' -c/a，a < 0 时关系反向
+        Rational bound = expr.getConstant().negate().divide(coefficient);
+        boolean upperForm = constraint.getRelation() == RelationType.LE || constraint.getRelation() == RelationType.LT;
+        if (upperForm == coefficient.signum() > 0) {
+            upper.merge(parameter, bound, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+        } else {
+            lower.merge(parameter, bound, Rational::max);
+        }
+        return true;
+    }
+
+    /**
+     * C 中是否全部是单参数约束 (恒真的常数约束除外)，此时区间盒是 C 的解集的闭包。
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * 是否已能确定 C 不可满足：某个参数的区间为空，或 C 含恒假约束。返回 false 不代表 C 可满足。
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * 区间盒的每一维都有内部 (下界严格小于上界)。与 {@link #isExact()} 同时成立时，C 的解集有非空内部，
+     * 严格与非严格的边界不影响可满足性。
+     */
+    public boolean hasInterior() {
+        for (Parameter parameter : lowerBounds.keySet()) {
+            if (getLower(parameter).compareTo(getUpper(parameter)) >= 0) {
+                return false;
+            }
+        }
+        for (Parameter parameter : upperBounds.keySet()) {
+            if (getLower(parameter).compareTo(getUpper(parameter)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 约束在整个区间盒上是否恒成立 (因此在 C 上恒成立)。
+     */
+    public boolean holds(ParameterConstraint constraint) {
+        LinearExpression expr = constraint.getLeftExpr();
+        return switch (constraint.getRelation()) {
+            case LT -> upperBound(expr).signum() < 0;
+            case LE -> upperBound(expr).signum() <= 0;
+            case GT -> lowerBound(expr).signum() > 0;
+            case GE -> lowerBound(expr).signum() >= 0;
+        };
+    }
+
+    /**
+     * 参数的下界，至少为 0。
+     */
+    public Rational getLower(Parameter parameter) {
+        Rational bound = lowerBounds.get(parameter);
+        return bound == null || bound.signum() < 0 ? Rational.ZERO : bound;
+    }
+
+    /**
+     * 参数的上界，没有上界时为 +∞。
+     */
+    public Rational getUpper(Parameter parameter) {
+        Rational bound = upperBounds.get(parameter);
+        return bound == null ? Rational.INFINITY : bound;
+    }
+
+    /**
+     * 表达式在区间盒上的最小值，可能为 -∞。
+     */
+    public Rational lowerBound(LinearExpression expr) {
+        return extreme(expr, false);
+    }
+
+    /**
+     * 表达式在区间盒上的最大值，可能为 +∞。
+     */
+    public Rational upperBound(LinearExpression expr) {
+        return extreme(expr, true);
+    }
+
+    private Rational extreme(LinearExpression expr, boolean maximize) {
+        Rational constant = expr.getConstant();
+        if (!constant.isFinite()) {
+            return constant;
+        }
+        Rational result = constant;
+        for (int k = 0; k < expr.size(); k++) {
+            Rational coefficient = expr.getCoefficient(k);
+            // 求最大值时正系数取上界、负系数取下界；求最小值时相反
+            boolean useUpper = maximize == coefficient.signum() > 0;
+            Rational value = useUpper ? getUpper(expr.getParameter(k)) : getLower(expr.getParameter(k));
+            if (value.isInfinity()) {
+                return maximize ? Rational.INFINITY : Rational.NEG_INFINITY;
+            }
+            result = result.add(coefficient.multiply(value));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterIntervals{lower=" + lowerBounds + ", upper=" + upperBounds + "}";
+    }
+}
@@ -0,0 +1,223 @@
+package org.example.symbolic;
+
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.utils.CacheStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Z3Oracle.checkCoverage 的结果缓存，键为 (ParameterConstraint, ConstraintSet) 对。
+ * 缓存的值只是 OracleResult 枚举，与 Z3 Context 无关，所以即使每个线程有自己的 Context，
+ * 也可以在线程之间共享。
+ * 容量有上界：内部分为若干段，每段是一个带容量上限的 LinkedHashMap，按所选策略淘汰。
+ * @author Ayalyt
+ */
+public final class CoverageCache {
+
+    /**
+     * 淘汰策略。
+     */
+    public enum EvictionPolicy {
+        /** 淘汰最久未被访问的条目 */
+        LRU,
+        /** 淘汰最早插入的条目 */
+        FIFO
+    }
+
+    /**
+     * 共享方式。
+     */
+    public enum SharingMode {
+        /** 所有线程共享同一份缓存 */
+        SHARED,
+        /** 每个线程一份独立缓存，互不加锁竞争，但不共享结果 */
+        PER_THREAD
+    }
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final int maxEntries;
+    private final EvictionPolicy evictionPolicy;
+    private final SharingMode sharingMode;
+    private final CacheStatistics statistics = new CacheStatistics("CoverageCache");
+
+    private final Segment[] sharedSegments;
+    private final ThreadLocal<Segment[]> threadSegments;
+
+    /**
+     * 创建覆盖查询缓存。
+     * @param maxEntries 最大条目数 (所有段之和，PER_THREAD 模式下为每个线程的上限)。
+     * @param evictionPolicy 淘汰策略。
+     * @param sharingMode 共享方式。
+     */
+    public CoverageCache(int maxEntries, EvictionPolicy evictionPolicy, SharingMode sharingMode) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("CoverageCache 容量必须为正数: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.evictionPolicy = Objects.requireNonNull(evictionPolicy, "evictionPolicy 不能为 null");
+        this.sharingMode = Objects.requireNonNull(sharingMode, "sharingMode 不能为 null");
+        if (sharingMode == SharingMode.SHARED) {
+            this.sharedSegments = newSegments();
+            this.threadSegments = null;
+        } else {
+            this.sharedSegments = null;
+            this.threadSegments = ThreadLocal.withInitial(this::newSegments);
+        }
+    }
+
+    /**
+     * 使用默认配置创建缓存：LRU 淘汰，线程间共享。
+     * @param maxEntries 最大条目数。
+     */
+    public CoverageCache(int maxEntries) {
+        this(maxEntries, EvictionPolicy.LRU, SharingMode.SHARED);
+    }
+
+    /**
+     * 查询缓存。
+     * @return 缓存的结果，未命中时返回 null。
+     */
+    public Z3Oracle.OracleResult get(ParameterConstraint c, ConstraintSet C) {
+        Key key = new Key(c, C);
+        Z3Oracle.OracleResult result = segmentFor(key).get(key);
+        if (result != null) {
+            statistics.recordHit();
+        } else {
+            statistics.recordMiss();
+        }
+        return result;
+    }
+
+    /**
+     * 写入缓存。UNKNOWN 不是确定的答案，不会被缓存。
+     */
+    public void put(ParameterConstraint c, ConstraintSet C, Z3Oracle.OracleResult result) {
+        if (result == null || result == Z3Oracle.OracleResult.UNKNOWN) {
+            return;
+        }
+        Key key = new Key(c, C);
+        segmentFor(key).put(key, result);
+    }
+
+    /**
+     * 清空当前可见的缓存 (PER_THREAD 模式下只清空调用线程的部分)。
+     */
+    public void clear() {
+        for (Segment segment : segments()) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * 命中/未命中/淘汰统计。每轮开始前可调用 {@link CacheStatistics#reset()} 得到按轮统计。
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    public SharingMode getSharingMode() {
+        return sharingMode;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public String toString() {
+        return statistics + " [" + evictionPolicy + ", " + sharingMode + ", max=" + maxEntries + "]";
+    }
+
+    // --- 私有辅助方法 ---
+
+    private Segment[] newSegments() {
+        int perSegment = Math.max(1, maxEntries / SEGMENT_COUNT);
+        Segment[] segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(perSegment, evictionPolicy == EvictionPolicy.LRU);
+        }
+        return segments;
+    }
+
+    private Segment[] segments() {
+        return sharingMode == SharingMode.SHARED ? sharedSegments : threadSegments.get();
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hashCode;
+        return segments()[(h ^ (h >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * 缓存键。两个组成部分都已预先计算好 hashCode，这里只做组合。
+     */
+    private static final class Key {
+        private final ParameterConstraint constraint;
+        private final ConstraintSet constraintSet;
+        private final int hashCode;
+
+        Key(ParameterConstraint constraint, ConstraintSet constraintSet) {
+            this.constraint = constraint;
+            this.constraintSet = constraintSet;
+            this.hashCode = 31 * constraint.hashCode() + constraintSet.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key that)) {
+                return false;
+            }
+            return hashCode == that.hashCode
+                    && constraint.equals(that.constraint)
+                    && constraintSet.equals(that.constraintSet);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * 带容量上限的一段缓存，所有访问都在段锁内进行。
+     */
+    private final class Segment {
+        private final LinkedHashMap<Key, Z3Oracle.OracleResult> map;
+
+        Segment(int capacity, boolean accessOrder) {
+            this.map = new LinkedHashMap<>(16, 0.75f, accessOrder) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Z3Oracle.OracleResult> eldest) {
+                    if (size() > capacity) {
+                        statistics.recordEviction();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Z3Oracle.OracleResult get(Key key) {
+            return map.get(key);
+        }
+
+        synchronized void put(Key key, Z3Oracle.OracleResult result) {
+            map.put(key, result);
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+    }
+}
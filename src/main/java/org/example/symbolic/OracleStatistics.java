@@ -0,0 +1,133 @@
+package org.example.symbolic;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Z3Oracle 的查询统计：覆盖查询次数、实际 solver.check 调用次数与累计耗时，以及本地单纯形后端的使用情况。
+ * 计数器基于 LongAdder，多线程下无锁累加。
+ * @author Ayalyt
+ */
+public final class OracleStatistics {
+
+    private final LongAdder coverageQueries = new LongAdder();
+    private final LongAdder solverChecks = new LongAdder();
+    private final LongAdder solverNanos = new LongAdder();
+    private final LongAdder scopesReused = new LongAdder();
+    private final LongAdder scopesPushed = new LongAdder();
+    private final LongAdder simplexQueries = new LongAdder();
+    private final LongAdder simplexFallbacks = new LongAdder();
+    private final LongAdder crossCheckMismatches = new LongAdder();
+
+    void recordCoverageQuery() {
+        coverageQueries.increment();
+    }
+
+    void recordSolverCheck(long nanos) {
+        solverChecks.increment();
+        solverNanos.add(nanos);
+    }
+
+    void recordPrefixSync(int reused, int pushed) {
+        scopesReused.add(reused);
+        scopesPushed.add(pushed);
+    }
+
+    void recordSimplexQuery() {
+        simplexQueries.increment();
+    }
+
+    void recordSimplexFallback() {
+        simplexFallbacks.increment();
+    }
+
+    void recordCrossCheckMismatch() {
+        crossCheckMismatches.increment();
+    }
+
+    /**
+     * 由本地单纯形判定的查询次数 (可满足性与覆盖查询)。
+     */
+    public long getSimplexQueries() {
+        return simplexQueries.sum();
+    }
+
+    /**
+     * 单纯形无法处理、退回 Z3 的查询次数。
+     */
+    public long getSimplexFallbacks() {
+        return simplexFallbacks.sum();
+    }
+
+    /**
+     * CROSS_CHECK 模式下单纯形与 Z3 结果不一致的次数，正常情况下应为 0。
+     */
+    public long getCrossCheckMismatches() {
+        return crossCheckMismatches.sum();
+    }
+
+    /**
+     * 增量模式下，因公共前缀而无需重新断言的约束作用域数。
+     */
+    public long getScopesReused() {
+        return scopesReused.sum();
+    }
+
+    /**
+     * 增量模式下新压入的约束作用域数。
+     */
+    public long getScopesPushed() {
+        return scopesPushed.sum();
+    }
+
+    /**
+     * 到达 Z3 的覆盖查询次数 (不含缓存命中)。
+     */
+    public long getCoverageQueries() {
+        return coverageQueries.sum();
+    }
+
+    /**
+     * solver.check 的调用次数。
+     */
+    public long getSolverChecks() {
+        return solverChecks.sum();
+    }
+
+    /**
+     * solver.check 的累计耗时 (纳秒)。
+     */
+    public long getSolverNanos() {
+        return solverNanos.sum();
+    }
+
+    /**
+     * 每次覆盖查询平均发起的 solver.check 次数。
+     */
+    public double getChecksPerCoverageQuery() {
+        long queries = getCoverageQueries();
+        return queries == 0 ? 0.0 : (double) getSolverChecks() / queries;
+    }
+
+    /**
+     * 清零所有计数器，用于按轮次统计。
+     */
+    public void reset() {
+        coverageQueries.reset();
+        solverChecks.reset();
+        solverNanos.reset();
+        scopesReused.reset();
+        scopesPushed.reset();
+        simplexQueries.reset();
+        simplexFallbacks.reset();
+        crossCheckMismatches.reset();
+    }
+
+    @Override
+    public String toString() {
+        long checks = getSolverChecks();
+        return String.format("OracleStatistics{coverageQueries=%d, solverChecks=%d, checksPerQuery=%.2f, avgCheck=%.1fµs, scopesReused=%d, scopesPushed=%d, simplexQueries=%d, simplexFallbacks=%d, crossCheckMismatches=%d}",
+                getCoverageQueries(), checks, getChecksPerCoverageQuery(),
+                checks == 0 ? 0.0 : getSolverNanos() / 1000.0 / checks, getScopesReused(), getScopesPushed(),
+                getSimplexQueries(), getSimplexFallbacks(), getCrossCheckMismatches());
+    }
+}
@@ -0,0 +1,472 @@
+package org.example.symbolic;
+
+import org.example.core.Parameter;
+import org.example.expressions.RelationType;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.utils.Rational;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 参数约束的纯 Java 精确判定过程：有界变量的一般单纯形法 (Dutertre &amp; de Moura)，
+ * 全程使用 Rational 精确运算，不经过 JNI，也不需要创建 Z3 Context。
+ * <p>
+ * 每条约束 Σ aᵢ·pᵢ + c ~ 0 化为松弛变量 s = Σ aᵢ·pᵢ 上的界 s ~ -c；
+ * 只含一个参数的约束直接化为该参数的界，不增加行。
+ * 严格不等式借助无穷小量 δ：s &lt; k 化为 s ≤ k - δ，s &gt; k 化为 s ≥ k + δ，
+ * 所有值都是 r + k·δ 形式的 {@link DeltaRational}，按字典序比较。
+ * 所有参数都带有下界 0 (论文中参数是非负实数)，与 Z3VariableManager 断言的全局约束一致。
+ * <p>
+ * 界可以通过 {@link #mark()} / {@link #restore(Mark)} 回溯，回溯后当前赋值仍满足表中的等式，
+ * 因此覆盖查询中的 C ∧ c 与 C ∧ ¬c 共用同一张表与松弛变量。
+ * 使用 Bland 规则选择进基/出基变量，保证终止。
+ * 此类不是线程安全的。
+ * @author Ayalyt
+ */
+public final class SimplexSolver {
+
+    private static final DeltaRational ZERO = new DeltaRational(Rational.ZERO, Rational.ZERO);
+
+    // 参数与松弛变量到变量编号的映射
+    private final Map<Parameter, Integer> parameterVars = new HashMap<>();
+    private final Map<LinearExpression, Integer> slackVars = new HashMap<>();
+    private final BitSet isParameterVar = new BitSet();
+
+    // 变量状态，按变量编号索引
+    private final List<DeltaRational> lower = new ArrayList<>();
+    private final List<DeltaRational> upper = new ArrayList<>();
+    private final List<DeltaRational> value = new ArrayList<>();
+    // 基变量所在的行号，非基变量为 -1
+    private final List<Integer> rowOfVar = new ArrayList<>();
+
+    // 单纯形表：第 r 行表示 basicVarOfRow[r] = Σ_k rows[r][k] · x_k (k 取遍非基变量)，缺省系数为 0
+    private final List<Rational[]> rows = new ArrayList<>();
+    private final List<Integer> basicVarOfRow = new ArrayList<>();
+
+    // 已断言的界之间存在直接矛盾 (不需要单纯形迭代)
+    private boolean conflict = false;
+
+    /**
+     * 判定约束集是否可满足。
+     * @param constraintSet 参数约束集。
+     * @return true 如果可满足。
+     * @throws IllegalArgumentException 如果约束中含有非有限的系数或常数。
+     */
+    public static boolean isSatisfiable(ConstraintSet constraintSet) {
+        SimplexSolver solver = new SimplexSolver();
+        solver.assertAll(constraintSet);
+        return solver.check();
+    }
+
+    /**
+     * 判定 c 是否覆盖 C，语义与 {@link Z3Oracle#checkCoverage} 相同：
+     * C ∧ c 不可满足时为 NO，否则 C ∧ ¬c 不可满足时为 YES，其余为 SPLIT。
+     * @param c 原子参数约束。
+     * @param C 参数约束集。
+     * @return OracleResult.YES、NO 或 SPLIT。
+     * @throws IllegalArgumentException 如果约束中含有非有限的系数或常数。
+     */
+    public static Z3Oracle.OracleResult checkCoverage(ParameterConstraint c, ConstraintSet C) {
+        SimplexSolver solver = new SimplexSolver();
+        solver.assertAll(C);
+        Mark mark = solver.mark();
+        solver.assertConstraint(c);
+        if (!solver.check()) {
+            return Z3Oracle.OracleResult.NO;
+        }
+        solver.restore(mark);
+        solver.assertConstraint(c.negate());
+        if (!solver.check()) {
+            return Z3Oracle.OracleResult.YES;
+        }
+        return Z3Oracle.OracleResult.SPLIT;
+    }
+
+    /**
+     * 断言约束集中的所有约束。
+     */
+    public void assertAll(ConstraintSet constraintSet) {
+        for (ParameterConstraint constraint : constraintSet.getConstraints()) {
+            assertConstraint(constraint);
+        }
+    }
+
+    /**
+     * 断言一条约束 E ~ 0。
+     * @param constraint 参数约束。
+     */
+    public void assertConstraint(ParameterConstraint constraint) {
+        LinearExpression expr = constraint.getLeftExpr();
+        RelationType relation = constraint.getRelation();
+        Rational constant = expr.getConstant();
+        if (!constant.isFinite()) {
+            throw new IllegalArgumentException("SimplexSolver 不支持非有限常数: " + constraint);
+        }
+        if (conflict) {
+            return;
+        }
+        if (expr.isConstant()) {
+            int sign = constant.signum();
+            boolean holds = switch (relation) {
+                case LT -> sign < 0;
+                case LE -> sign <= 0;
+                case GT -> sign > 0;
+                case GE -> sign >= 0;
+            };
+            conflict = !holds;
+            return;
+        }
+        for (int k = 0; k < expr.size(); k++) {
+            if (!expr.getCoefficient(k).isFinite()) {
+                throw new IllegalArgumentException("SimplexSolver 不支持非有限系数: " + constraint);
+            }
+        }
+
+        int var;
+        Rational bound;
+        if (expr.size() == 1) {
+            // a·p + c ~ 0  =>  p ~ -c/a，a 为负时关系翻转
+            Rational a = expr.getCoefficient(0);
+            var = parameterVar(expr.getParameter(0));
+            bound = constant.negate().divide(a);
+            if (a.signum() < 0) {
+                relation = relation.flip();
+            }
+        } else {
+            // Σ aᵢ·pᵢ + c ~ 0  =>  s ~ -c，s = Σ aᵢ·pᵢ
+            var = slackVar(expr.subtract(LinearExpression.of(constant)));
+            bound = constant.negate();
+        }
+
+        switch (relation) {
+            case LE -> assertUpper(var, new DeltaRational(bound, Rational.ZERO));
+            case LT -> assertUpper(var, new DeltaRational(bound, Rational.ONE.negate()));
+            case GE -> assertLower(var, new DeltaRational(bound, Rational.ZERO));
+            case GT -> assertLower(var, new DeltaRational(bound, Rational.ONE));
+        }
+    }
+
+    /**
+     * 运行单纯形迭代，判定当前断言的界是否可同时满足。
+     * @return true 如果可满足。
+     */
+    public boolean check() {
+        if (conflict) {
+            return false;
+        }
+        while (true) {
+            // Bland 规则：取编号最小的越界基变量
+            int leaving = -1;
+            boolean belowLower = false;
+            for (int v = 0; v < value.size(); v++) {
+                if (rowOfVar.get(v) < 0) {
+                    continue;
+                }
+                DeltaRational val = value.get(v);
+                if (lower.get(v) != null && val.compareTo(lower.get(v)) < 0) {
+                    leaving = v;
+                    belowLower = true;
+                    break;
+                }
+                if (upper.get(v) != null && val.compareTo(upper.get(v)) > 0) {
+                    leaving = v;
+                    belowLower = false;
+                    break;
+                }
+            }
+            if (leaving < 0) {
+                return true;
+            }
+
+            Rational[] row = rows.get(rowOfVar.get(leaving));
+            int entering = -1;
+            for (int k = 0; k < row.length; k++) {
+                Rational a = row[k];
+                if (a == null || a.isZero()) {
+                    continue;
+                }
+                boolean increase = (a.signum() > 0) == belowLower;
+                if (increase ? canIncrease(k) : canDecrease(k)) {
+                    entering = k;
+                    break;
+                }
+            }
+            if (entering < 0) {
+                // 该行的所有非基变量都已到达边界，基变量无法回到界内
+                return false;
+            }
+            pivotAndUpdate(leaving, entering, belowLower ? lower.get(leaving) : upper.get(leaving));
+        }
+    }
+
+    /**
+     * 记录当前所有变量的界，用于之后回溯。
+     */
+    public Mark mark() {
+        return new Mark(new ArrayList<>(lower), new ArrayList<>(upper), conflict);
+    }
+
+    /**
+     * 将界恢复到 mark 时的状态。mark 之后新建的变量保留，但其界被清除 (参数保留下界 0)。
+     * 界只会变松，当前赋值下的非基变量仍在界内，表与赋值无需改动。
+     */
+    public void restore(Mark mark) {
+        for (int v = 0; v < lower.size(); v++) {
+            if (v < mark.lower.size()) {
+                lower.set(v, mark.lower.get(v));
+                upper.set(v, mark.upper.get(v));
+            } else {
+                lower.set(v, isParameterVar.get(v) ? ZERO : null);
+                upper.set(v, null);
+            }
+        }
+        conflict = mark.conflict;
+    }
+
+    // --- 私有辅助方法 ---
+
+    private int parameterVar(Parameter parameter) {
+        Integer existing = parameterVars.get(parameter);
+        if (existing != null) {
+            return existing;
+        }
+        int var = newVar(ZERO, ZERO);
+        parameterVars.put(parameter, var);
+        isParameterVar.set(var);
+        return var;
+    }
+
+    /**
+     * 获取线性式 linear (常数项为 0) 对应的松弛变量，首次出现时在表中新增一行。
+     * 其中的参数可能已经是基变量，需要用其所在行代入，使新行只含非基变量。
+     */
+    private int slackVar(LinearExpression linear) {
+        Integer existing = slackVars.get(linear);
+        if (existing != null) {
+            return existing;
+        }
+        Rational[] row = new Rational[0];
+        DeltaRational initial = ZERO;
+        for (int k = 0; k < linear.size(); k++) {
+            int p = parameterVar(linear.getParameter(k));
+            Rational a = linear.getCoefficient(k);
+            initial = initial.add(value.get(p).multiply(a));
+            Integer r = rowOfVar.get(p);
+            if (r < 0) {
+                row = addTo(row, p, a);
+            } else {
+                Rational[] basicRow = rows.get(r);
+                for (int j = 0; j < basicRow.length; j++) {
+                    if (basicRow[j] != null && !basicRow[j].isZero()) {
+                        row = addTo(row, j, a.multiply(basicRow[j]));
+                    }
+                }
+            }
+        }
+        int slack = newVar(null, initial);
+        rowOfVar.set(slack, rows.size());
+        rows.add(row);
+        basicVarOfRow.add(slack);
+        slackVars.put(linear, slack);
+        return slack;
+    }
+
+    private int newVar(DeltaRational lowerBound, DeltaRational initial) {
+        lower.add(lowerBound);
+        upper.add(null);
+        value.add(initial);
+        rowOfVar.add(-1);
+        return value.size() - 1;
+    }
+
+    private static Rational[] addTo(Rational[] row, int index, Rational delta) {
+        Rational[] target = row.length > index ? row : Arrays.copyOf(row, index + 1);
+        target[index] = target[index] == null ? delta : target[index].add(delta);
+        return target;
+    }
+
+    private void assertUpper(int var, DeltaRational bound) {
+        DeltaRational current = upper.get(var);
+        if (current != null && current.compareTo(bound) <= 0) {
+            return;
+        }
+        DeltaRational low = lower.get(var);
+        if (low != null && low.compareTo(bound) > 0) {
+            conflict = true;
+            return;
+        }
+        upper.set(var, bound);
+        if (rowOfVar.get(var) < 0 && value.get(var).compareTo(bound) > 0) {
+            update(var, bound);
+        }
+    }
+
+    private void assertLower(int var, DeltaRational bound) {
+        DeltaRational current = lower.get(var);
+        if (current != null && current.compareTo(bound) >= 0) {
+            return;
+        }
+        DeltaRational up = upper.get(var);
+        if (up != null && up.compareTo(bound) < 0) {
+            conflict = true;
+            return;
+        }
+        lower.set(var, bound);
+        if (rowOfVar.get(var) < 0 && value.get(var).compareTo(bound) < 0) {
+            update(var, bound);
+        }
+    }
+
+    private boolean canIncrease(int var) {
+        return upper.get(var) == null || value.get(var).compareTo(upper.get(var)) < 0;
+    }
+
+    private boolean canDecrease(int var) {
+        return lower.get(var) == null || value.get(var).compareTo(lower.get(var)) > 0;
+    }
+
+    /**
+     * 将非基变量 var 的值改为 newValue，并相应地更新所有基变量。
+     */
+    private void update(int var, DeltaRational newValue) {
+        DeltaRational diff = newValue.subtract(value.get(var));
+        for (int r = 0; r < rows.size(); r++) {
+            Rational a = coefficient(rows.get(r), var);
+            if (!a.isZero()) {
+                int basic = basicVarOfRow.get(r);
+                value.set(basic, value.get(basic).add(diff.multiply(a)));
+            }
+        }
+        value.set(var, newValue);
+    }
+
+    /**
+     * 基变量 leaving 出基、非基变量 entering 进基，并使 leaving 取值 target。
+     */
+    private void pivotAndUpdate(int leaving, int entering, DeltaRational target) {
+        int pivotRow = rowOfVar.get(leaving);
+        Rational a = coefficient(rows.get(pivotRow), entering);
+        DeltaRational theta = target.subtract(value.get(leaving)).divide(a);
+        value.set(leaving, target);
+        value.set(entering, value.get(entering).add(theta));
+        for (int r = 0; r < rows.size(); r++) {
+            if (r == pivotRow) {
+                continue;
+            }
+            Rational c = coefficient(rows.get(r), entering);
+            if (!c.isZero()) {
+                int basic = basicVarOfRow.get(r);
+                value.set(basic, value.get(basic).add(theta.multiply(c)));
+            }
+        }
+        pivot(pivotRow, leaving, entering);
+    }
+
+    /**
+     * 在第 pivotRow 行上交换基变量 leaving 与非基变量 entering，并从其他行中消去 entering。
+     */
+    private void pivot(int pivotRow, int leaving, int entering) {
+        Rational[] oldRow = rows.get(pivotRow);
+        Rational a = coefficient(oldRow, entering);
+        Rational inverse = a.reciprocal();
+        // leaving = a·entering + Σ b_k·x_k  =>  entering = (1/a)·leaving - Σ (b_k/a)·x_k
+        Rational[] newRow = new Rational[Math.max(oldRow.length, leaving + 1)];
+        for (int k = 0; k < oldRow.length; k++) {
+            if (k != entering && oldRow[k] != null && !oldRow[k].isZero()) {
+                newRow[k] = oldRow[k].multiply(inverse).negate();
+            }
+        }
+        newRow[leaving] = inverse;
+        rows.set(pivotRow, newRow);
+        basicVarOfRow.set(pivotRow, entering);
+        rowOfVar.set(entering, pivotRow);
+        rowOfVar.set(leaving, -1);
+
+        for (int r = 0; r < rows.size(); r++) {
+            if (r == pivotRow) {
+                continue;
+            }
+            Rational[] row = rows.get(r);
+            Rational c = coefficient(row, entering);
+            if (c.isZero()) {
+                continue;
+            }
+            row[entering] = null;
+            for (int k = 0; k < newRow.length; k++) {
+                if (newRow[k] != null) {
+                    row = addTo(row, k, c.multiply(newRow[k]));
+                }
+            }
+            rows.set(r, row);
+        }
+    }
+
+    private static Rational coefficient(Rational[] row, int var) {
+        if (var >= row.length || row[var] == null) {
+            return Rational.ZERO;
+        }
+        return row[var];
+    }
+
+    /**
+     * {@link #mark()} 保存的界快照。
+     */
+    public static final class Mark {
+        private final List<DeltaRational> lower;
+        private final List<DeltaRational> upper;
+        private final boolean conflict;
+
+        private Mark(List<DeltaRational> lower, List<DeltaRational> upper, boolean conflict) {
+            this.lower = lower;
+            this.upper = upper;
+            this.conflict = conflict;
+        }
+    }
+
+    /**
+     * 形如 r + k·δ 的值，δ 为正无穷小量，按 (r, k) 字典序比较。此类是不可变的。
+     */
+    private static final class DeltaRational implements Comparable<DeltaRational> {
+        private final Rational real;
+        private final Rational delta;
+
+        DeltaRational(Rational real, Rational delta) {
+            this.real = real;
+            this.delta = delta;
+        }
+
+        DeltaRational add(DeltaRational other) {
+            return new DeltaRational(real.add(other.real), delta.add(other.delta));
+        }
+
+        DeltaRational subtract(DeltaRational other) {
+            return new DeltaRational(real.subtract(other.real), delta.subtract(other.delta));
+        }
+
+        DeltaRational multiply(Rational factor) {
+            return new DeltaRational(real.multiply(factor), delta.multiply(factor));
+        }
+
+        DeltaRational divide(Rational divisor) {
+            return new DeltaRational(real.divide(divisor), delta.divide(divisor));
+        }
+
+        @Override
+        public int compareTo(DeltaRational other) {
+            int cmp = real.compareTo(other.real);
+            return cmp != 0 ? cmp : delta.compareTo(other.delta);
+        }
+
+        @Override
+        public String toString() {
+            return real + (delta.isZero() ? "" : " + " + delta + "δ");
+        }
+    }
+}
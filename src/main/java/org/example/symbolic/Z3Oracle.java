@@ -7,35 +7,85 @@ import org.example.core.Parameter;
 import org.example.core.ParameterValuation;
 import org.example.expressions.parameters.ParameterConstraint;
 import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.ParameterIntervals;
+import org.example.utils.CacheStatistics;
 import org.example.utils.Rational;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
+ * 参数约束的判定 Oracle。Z3 资源有两种管理方式：
+ * <ul>
+ *   <li>线程模式 (默认)：每个线程首次使用时创建自己的 Context、Solver 与 Z3VariableManager，
+ *       适合固定大小的线程池；{@link #close()} 只清理调用线程的资源。</li>
+ *   <li>池化模式 ({@link #Z3Oracle(Set, Set, int)})：资源由容量固定的 {@link Z3SolverPool} 租借，
+ *       本地 Context 的数量与线程数无关，适合 ForkJoin 线程池与虚拟线程；{@link #close()} 释放池中的所有 Context。</li>
+ * </ul>
+ * isSatisfiable 与 checkCoverage 会自动租借；在池化模式下直接使用 {@link #getContext()}、{@link #getVarManager()}
+ * 或 {@link #check(BoolExpr)} 时，需要先用 {@link #lease()} 把一个会话固定在当前线程上。
  * @author Ayalyt
  */
 public class Z3Oracle implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(Z3Oracle.class);
 
-    // 为每个线程提供独立的 Z3 Context
-    private final ThreadLocal<Context> threadCtx;
-    // 为每个线程提供独立的 Z3 Solver，增量求解
-    private final ThreadLocal<Solver> threadSolver;
-    // 为每个线程提供独立的 Z3VariableManager
-    private final ThreadLocal<Z3VariableManager> threadVarManager;
+    // 线程模式：为每个线程提供独立的 Z3 会话 (Context、Solver、Z3VariableManager)，首次使用时创建
+    private final ThreadLocal<Z3Session> threadSession = new ThreadLocal<>();
+    // 池化模式下的会话池，线程模式下为 null
+    private final Z3SolverPool pool;
+    // 池化模式：当前线程正在租借的会话，只保存引用，归还时移除
+    private final ThreadLocal<Lease> currentLease = new ThreadLocal<>();
 
     private final Set<Parameter> allParameters;
     private final Set<Clock> allClocks;
 
+    // checkCoverage 的结果缓存，为 null 时不缓存
+    private volatile CoverageCache coverageCache;
+
+    // checkCoverage 的求解方式
+    private volatile CoverageMode coverageMode = CoverageMode.ASSUMPTIONS;
+
+    // 判定后端：本地单纯形或 Z3
+    private volatile Backend backend = Backend.Z3;
+
+    // 增量模式：Solver 作用域栈与上一次查询的 ConstraintSet 保持同步，只弹出/压入不同的后缀
+    private volatile boolean incremental = false;
+
+    private final OracleStatistics statistics = new OracleStatistics();
+
+    // 语法预判定：在缓存与判定后端之前回答能直接看出的查询
+    private volatile boolean preDecision = true;
+    private final CacheStatistics preDecisionStatistics = new CacheStatistics("Oracle 语法预判定");
+
+    // 异步查询的执行器
+    private volatile Executor executor = ForkJoinPool.commonPool();
+    // 异步查询：按 ConstraintSet 分组、尚未执行的批次
+    private final ConcurrentMap<ConstraintSet, PendingBatch> pendingBatches = new ConcurrentHashMap<>();
+
     /**
-     * 创建一个新的 Z3Oracle 实例。
+     * 创建一个线程模式的 Z3Oracle 实例。
      * 初始化 ThreadLocal，以便每个线程首次使用时创建自己的 Z3 Context、Solver 和 Z3VariableManager。
      */
     public Z3Oracle(Set<Parameter> allParameters, Set<Clock> allClocks) {
+        this(allParameters, allClocks, 0);
+    }
+
+    /**
+     * 创建一个 Z3Oracle 实例。
+     * @param allParameters PTA 中所有参数的集合。
+     * @param allClocks PTA 中所有时钟的集合 (必须包含零时钟)。
+     * @param poolSize 大于 0 时使用池化模式，最多同时存在 poolSize 个 Z3 会话；0 表示线程模式。
+     */
+    public Z3Oracle(Set<Parameter> allParameters, Set<Clock> allClocks, int poolSize) {
         this.allParameters = Objects.requireNonNull(allParameters, "All parameters set cannot be null.");
         this.allClocks = Objects.requireNonNull(allClocks, "All clocks set cannot be null.");
 
@@ -44,27 +94,61 @@ public class Z3Oracle implements AutoCloseable {
             throw new IllegalArgumentException("Z3Oracle 必须管理零时钟 (x0)。请确保 allClocks 包含 Clock.ZERO_CLOCK。");
         }
 
-        this.threadCtx = ThreadLocal.withInitial(() -> {
-            logger.debug("为线程 {} 初始化 Z3 Context。", Thread.currentThread().getId());
-            return new Context();
-        });
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Z3Oracle: poolSize 不能为负数，实际为 " + poolSize);
+        }
+        this.pool = poolSize > 0 ? new Z3SolverPool(this.allParameters, this.allClocks, poolSize) : null;
+    }
 
-        // 先初始化 varManager，因为它被 threadSolver 依赖
-        this.threadVarManager = ThreadLocal.withInitial(() -> {
-            logger.debug("为线程 {} 初始化 Z3VariableManager。", Thread.currentThread().getId());
-            // Z3VariableManager 构造时传入所有参数和时钟
-            return new Z3VariableManager(threadCtx.get(), this.allParameters, this.allClocks);
-        });
+    // --- 会话管理 ---
 
-        this.threadSolver = ThreadLocal.withInitial(() -> {
-            Context ctx = threadCtx.get();
-            Solver solver = ctx.mkSolver();
-            Z3VariableManager varManager = threadVarManager.get(); // 获取当前线程的 varManager
-            // 在 Solver 初始化时断言所有全局约束 (x0 == 0, xi >= 0, pi >= 0)
-            varManager.assertGlobalConstraints(solver);
-            logger.debug("为线程 {} 初始化 Z3 Solver。", Thread.currentThread().getId());
-            return solver;
-        });
+    /**
+     * 把一个 Z3 会话固定在当前线程上，直到返回的 Lease 被关闭；期间 getContext、getVarManager 与 check 都使用该会话。
+     * 可以嵌套，只有最外层的 Lease 关闭时才归还会话。池中没有空闲会话时阻塞等待。
+     * 线程模式下返回一个不做任何事情的 Lease。应在 try-with-resources 中使用，且只能在获取它的线程上关闭。
+     * @return 租借凭证。
+     */
+    public Lease lease() {
+        if (pool == null) {
+            return Lease.NONE;
+        }
+        Lease lease = currentLease.get();
+        if (lease != null) {
+            lease.depth++;
+            return lease;
+        }
+        lease = new Lease(this, pool.acquire());
+        currentLease.set(lease);
+        return lease;
+    }
+
+    /**
+     * 当前线程使用的会话：池化模式下为正在租借的会话，线程模式下为线程自己的会话。
+     * @throws IllegalStateException 如果池化模式下当前线程没有租借会话。
+     */
+    private Z3Session session() {
+        if (pool == null) {
+            Z3Session session = threadSession.get();
+            if (session == null) {
+                logger.debug("为线程 {} 初始化 Z3 Context、Solver 和 Z3VariableManager。", Thread.currentThread().getId());
+                session = new Z3Session(allParameters, allClocks);
+                threadSession.set(session);
+            }
+            return session;
+        }
+        Lease lease = currentLease.get();
+        if (lease == null) {
+            throw new IllegalStateException("池化模式下需要先调用 Z3Oracle.lease() 租借 Z3 会话");
+        }
+        return lease.session;
+    }
+
+    /**
+     * 获取会话池。
+     * @return 会话池，线程模式下为 null。
+     */
+    public Z3SolverPool getPool() {
+        return pool;
     }
 
     /**
@@ -72,7 +156,7 @@ public class Z3Oracle implements AutoCloseable {
      * @return 当前线程关联的 Z3 Context。
      */
     public Context getContext() { // 保持 public，因为 toZ3BoolExpr 方法需要 Context
-        return threadCtx.get();
+        return session().getContext();
     }
 
     /**
@@ -80,7 +164,7 @@ public class Z3Oracle implements AutoCloseable {
      * @return 当前线程关联的 Z3 Solver。
      */
     private Solver getSolver() {
-        return threadSolver.get();
+        return session().getSolver();
     }
 
     /**
@@ -88,7 +172,7 @@ public class Z3Oracle implements AutoCloseable {
      * @return 当前线程关联的 Z3VariableManager。
      */
     public Z3VariableManager getVarManager() { // 保持 public，因为 toZ3BoolExpr 方法需要 VarManager
-        return threadVarManager.get();
+        return session().getVarManager();
     }
 
     // --- 核心约束检查方法 (使用增量 Solver) ---
@@ -101,6 +185,15 @@ public class Z3Oracle implements AutoCloseable {
      * @return Status.SAT, Status.UNSAT, 或 Status.UNKNOWN。
      */
     public Status check(BoolExpr formula) {
+        // 任意公式与约束集前缀无关，先清空增量模式留下的作用域
+        syncAssertedPrefix(ConstraintSet.TRUE_CONSTRAINT_SET);
+        return checkOnTop(formula);
+    }
+
+    /**
+     * 在当前 Solver 作用域栈之上检查公式：push/add/check/pop，不触碰栈中已有的作用域。
+     */
+    private Status checkOnTop(BoolExpr formula) {
         Solver solver = getSolver();
         List<BoolExpr> addedAssertions = new ArrayList<>(); // 调试日志
 
@@ -109,7 +202,7 @@ public class Z3Oracle implements AutoCloseable {
             solver.add(formula);
             addedAssertions.add(formula);
 
-            Status status = solver.check();
+            Status status = timedCheck(solver);
             logger.debug("Z3 check for formula: {} -> Status: {}", formula, status);
             return status;
 
@@ -130,7 +223,42 @@ public class Z3Oracle implements AutoCloseable {
      * @return true 如果可满足，false 如果不可满足，null 如果未知。
      */
     public Boolean isSatisfiable(ConstraintSet constraintSet) {
-        Status status = check(constraintSet.toZ3BoolExpr(getContext(), getVarManager()));
+        if (preDecision) {
+            Boolean decided = preDecideSatisfiable(constraintSet);
+            if (decided != null) {
+                preDecisionStatistics.recordHit();
+                return decided;
+            }
+            preDecisionStatistics.recordMiss();
+        }
+        Backend currentBackend = this.backend;
+        if (currentBackend != Backend.Z3) {
+            Boolean local = simplexIsSatisfiable(constraintSet);
+            if (local != null) {
+                if (currentBackend == Backend.SIMPLEX) {
+                    return local;
+                }
+                Boolean expected = isSatisfiableWithZ3(constraintSet);
+                if (expected != null && !expected.equals(local)) {
+                    statistics.recordCrossCheckMismatch();
+                    logger.error("单纯形与 Z3 的可满足性结果不一致: C={}, simplex={}, z3={}", constraintSet, local, expected);
+                }
+                return expected;
+            }
+        }
+        return isSatisfiableWithZ3(constraintSet);
+    }
+
+    private Boolean isSatisfiableWithZ3(ConstraintSet constraintSet) {
+        Status status;
+        try (Lease lease = lease()) {
+            if (incremental) {
+                syncAssertedPrefix(constraintSet);
+                status = checkOnTop(getContext().mkTrue());
+            } else {
+                status = check(constraintSet.toZ3BoolExpr(getContext(), getVarManager()));
+            }
+        }
         if (status == Status.SATISFIABLE) {
             return true;
         }
@@ -147,17 +275,427 @@ public class Z3Oracle implements AutoCloseable {
      * @return OracleResult.YES, OracleResult.NO, OracleResult.SPLIT, 或 OracleResult.UNKNOWN。
      */
     public OracleResult checkCoverage(ParameterConstraint c, ConstraintSet C) {
+        OracleResult decided = preDecided(c, C);
+        if (decided != null) {
+            return decided;
+        }
+        CoverageCache cache = this.coverageCache;
+        if (cache != null) {
+            OracleResult cached = cache.get(c, C);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        OracleResult result = computeCoverage(c, C);
+        if (cache != null) {
+            cache.put(c, C, result);
+        }
+        return result;
+    }
+
+    /**
+     * 启用语法预判定时尝试直接回答覆盖查询，并记录命中统计。
+     * @return 判定结果；未启用或需要求解器时返回 null。
+     */
+    private OracleResult preDecided(ParameterConstraint c, ConstraintSet C) {
+        if (!preDecision) {
+            return null;
+        }
+        OracleResult decided = preDecideCoverage(c, C);
+        if (decided != null) {
+            preDecisionStatistics.recordHit();
+        } else {
+            preDecisionStatistics.recordMiss();
+        }
+        return decided;
+    }
+
+    /**
+     * 覆盖查询的语法预判定，不调用任何求解器：
+     * <ul>
+     *   <li>c 是恒假约束，或 c 的否定在 C 中：C ∧ c 不可满足，为 NO；</li>
+     *   <li>按 C 的参数区间 ({@link ConstraintSet#getIntervals()})：区间为空或 ¬c 在区间盒上恒成立，为 NO；</li>
+     *   <li>c 是恒真约束、c 本身在 C 中或 c 在区间盒上恒成立，且 C 的可满足性能由语法确定为真时，为 YES；</li>
+     *   <li>C 全部是单参数约束且解集有内部时，c 的左侧在区间盒上的最小值 &lt; 0 &lt; 最大值即为 SPLIT。</li>
+     * </ul>
+     * C 不可满足时求解器对任何 c 都回答 NO，因此 YES 只在 C 确定可满足时给出，回答与求解器完全一致。
+     * @return 判定结果；需要求解器时返回 null。
+     */
+    private static OracleResult preDecideCoverage(ParameterConstraint c, ConstraintSet C) {
+        if (c.isContradiction()) {
+            return OracleResult.NO;
+        }
+        ParameterConstraint negation = c.negate();
+        if (C.contains(negation)) {
+            return OracleResult.NO;
+        }
+        ParameterIntervals intervals = C.getIntervals();
+        if (intervals.isEmpty() || intervals.holds(negation)) {
+            return OracleResult.NO;
+        }
+        if (c.isTautology() || C.contains(c) || intervals.holds(c)) {
+            // C ∧ ¬c 不可满足；C 本身可满足时才是 YES，否则求解器回答 NO
+            return Boolean.TRUE.equals(preDecideSatisfiable(C)) ? OracleResult.YES : null;
+        }
+        if (intervals.isExact() && intervals.hasInterior()
+                && intervals.lowerBound(c.getLeftExpr()).signum() < 0
+                && intervals.upperBound(c.getLeftExpr()).signum() > 0) {
+            // 解集是有内部的区间盒，c 的左侧在盒上的取值严格跨过 0，在内部也能取到 0 两侧的值，
+            // 因此 C ∧ c 与 C ∧ ¬c 都可满足
+            return OracleResult.SPLIT;
+        }
+        return null;
+    }
+
+    /**
+     * 可满足性的语法预判定：空约束集为真；区间为空或含恒假约束为假；全部是单参数约束且区间盒有内部为真。
+     * @return 判定结果；需要求解器时返回 null。
+     */
+    private static Boolean preDecideSatisfiable(ConstraintSet C) {
+        if (C.isEmpty()) {
+            return true;
+        }
+        ParameterIntervals intervals = C.getIntervals();
+        if (intervals.isEmpty()) {
+            return false;
+        }
+        if (intervals.isExact() && intervals.hasInterior()) {
+            return true;
+        }
+        return null;
+    }
+
+    /**
+     * 打开或关闭语法预判定 (默认打开)。关闭后所有查询都交给缓存与判定后端，可用于交叉验证。
+     * @param preDecision 是否启用。
+     */
+    public void setPreDecision(boolean preDecision) {
+        this.preDecision = preDecision;
+    }
+
+    public boolean isPreDecision() {
+        return preDecision;
+    }
+
+    /**
+     * 获取语法预判定的统计：命中次数即无需任何求解器即可回答的查询次数。
+     * @return 统计信息。
+     */
+    public CacheStatistics getPreDecisionStatistics() {
+        return preDecisionStatistics;
+    }
+
+    /**
+     * 异步的覆盖查询，在 {@link #setExecutor 执行器} 上完成。
+     * 语法预判定或缓存命中时直接返回已完成的 future；否则查询进入按 ConstraintSet 分组的待处理批次，
+     * 同一时间提交的、C 相同的查询合并为一个任务，C 只断言一次 (见 {@link #checkCoverageBatch})。
+     * @param c 原子参数约束。
+     * @param C 参数约束集。
+     * @return 覆盖结果的 future；查询出错时以异常完成。
+     */
+    public CompletableFuture<OracleResult> checkCoverageAsync(ParameterConstraint c, ConstraintSet C) {
+        OracleResult decided = preDecided(c, C);
+        if (decided != null) {
+            return CompletableFuture.completedFuture(decided);
+        }
+        CoverageCache cache = this.coverageCache;
+        if (cache != null) {
+            OracleResult cached = cache.get(c, C);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        CompletableFuture<OracleResult> future = new CompletableFuture<>();
+        boolean[] created = new boolean[1];
+        pendingBatches.compute(C, (key, batch) -> {
+            if (batch == null) {
+                batch = new PendingBatch();
+                created[0] = true;
+            }
+            batch.queries.add(c);
+            batch.futures.add(future);
+            return batch;
+        });
+        if (created[0]) {
+            try {
+                executor.execute(() -> drainPendingBatch(C));
+            } catch (RejectedExecutionException e) {
+                logger.warn("执行器拒绝了覆盖查询批次，改为在调用线程上执行: {}", e.getMessage());
+                drainPendingBatch(C);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * 批量覆盖查询：所有约束共享同一个 C，在一个任务中完成。
+     * 使用 Z3 与假设文字方式时只租借一次会话，C 只断言一次，之后每条约束只需在其上做假设查询；
+     * 相同的约束只查询一次，预判定或缓存命中的约束不查询。其他后端与求解方式下逐条交给判定后端。
+     * @param constraints 原子参数约束列表。
+     * @param C 参数约束集。
+     * @return 与 constraints 一一对应的结果列表的 future；查询出错时以异常完成。
+     */
+    public CompletableFuture<List<OracleResult>> checkCoverageBatch(List<ParameterConstraint> constraints,
+                                                                    ConstraintSet C) {
+        List<ParameterConstraint> copy = new ArrayList<>(constraints);
+        return CompletableFuture.supplyAsync(() -> computeCoverageBatch(copy, C, true), executor);
+    }
+
+    /**
+     * 设置异步查询使用的执行器，默认为 {@link ForkJoinPool#commonPool()}。
+     * 线程模式下执行器的每个线程都会创建自己的 Z3 Context，线程数不固定的执行器应配合池化模式使用。
+     * @param executor 执行器。
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "executor 不能为 null");
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 取出 C 上所有待处理的异步查询并作为一个批次执行。
+     */
+    private void drainPendingBatch(ConstraintSet C) {
+        PendingBatch batch = pendingBatches.remove(C);
+        if (batch == null) {
+            return; // 已被先前的任务一并处理
+        }
+        try {
+            // 入队前已做过语法预判定
+            List<OracleResult> results = computeCoverageBatch(batch.queries, C, false);
+            for (int k = 0; k < results.size(); k++) {
+                batch.futures.get(k).complete(results.get(k));
+            }
+        } catch (Throwable e) {
+            // 包括本地库错误、内存不足等 Error：无论如何都要完成这一批 future，否则调用方会永远等待
+            for (CompletableFuture<OracleResult> future : batch.futures) {
+                future.completeExceptionally(e);
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    /**
+     * 同步地完成一批 C 相同的覆盖查询。每条约束依次经过语法预判定、缓存与判定后端，与 {@link #checkCoverage} 相同。
+     * @param preDecide 是否做语法预判定 (异步查询入队前已经做过)。
+     */
+    private List<OracleResult> computeCoverageBatch(List<ParameterConstraint> constraints, ConstraintSet C,
+                                                    boolean preDecide) {
+        CoverageCache cache = this.coverageCache;
+        Map<ParameterConstraint, OracleResult> answers = new HashMap<>();
+        Set<ParameterConstraint> forZ3 = new LinkedHashSet<>();
+        boolean grouped = backend == Backend.Z3 && coverageMode == CoverageMode.ASSUMPTIONS;
+        for (ParameterConstraint c : constraints) {
+            if (answers.containsKey(c) || forZ3.contains(c)) {
+                continue;
+            }
+            OracleResult decided = preDecide ? preDecided(c, C) : null;
+            if (decided != null) {
+                answers.put(c, decided);
+                continue;
+            }
+            OracleResult cached = cache == null ? null : cache.get(c, C);
+            if (cached != null) {
+                answers.put(c, cached);
+            } else if (grouped) {
+                forZ3.add(c);
+            } else {
+                // 已经做过预判定与缓存查找，直接计算，避免重复计入统计
+                OracleResult result = computeCoverage(c, C);
+                answers.put(c, result);
+                if (cache != null) {
+                    cache.put(c, C, result);
+                }
+            }
+        }
+        if (!forZ3.isEmpty()) {
+            try (Lease lease = lease()) {
+                // C 压入作用域栈一次，各约束在其上用假设文字查询
+                syncAssertedPrefix(C);
+                for (ParameterConstraint c : forZ3) {
+                    statistics.recordCoverageQuery();
+                    OracleResult result = coverageWithAssumptions(c, C, false);
+                    answers.put(c, result);
+                    if (cache != null) {
+                        cache.put(c, C, result);
+                    }
+                }
+            }
+            logger.debug("批量覆盖查询: {} 条约束，{} 条交给 Z3，C 断言一次", constraints.size(), forZ3.size());
+        }
+        List<OracleResult> results = new ArrayList<>(constraints.size());
+        for (ParameterConstraint c : constraints) {
+            results.add(answers.get(c));
+        }
+        return results;
+    }
+
+    /**
+     * 某个 ConstraintSet 上尚未执行的异步查询。
+     */
+    private static final class PendingBatch {
+        private final List<ParameterConstraint> queries = new ArrayList<>();
+        private final List<CompletableFuture<OracleResult>> futures = new ArrayList<>();
+    }
+
+    /**
+     * 按所选后端实际计算覆盖结果，不经过缓存。
+     */
+    private OracleResult computeCoverage(ParameterConstraint c, ConstraintSet C) {
+        Backend currentBackend = this.backend;
+        if (currentBackend != Backend.Z3) {
+            OracleResult local = simplexCoverage(c, C);
+            if (local != null) {
+                if (currentBackend == Backend.SIMPLEX) {
+                    return local;
+                }
+                OracleResult expected = computeCoverageWithZ3(c, C);
+                if (expected != OracleResult.UNKNOWN && expected != local) {
+                    statistics.recordCrossCheckMismatch();
+                    logger.error("单纯形与 Z3 的覆盖结果不一致: c={}, C={}, simplex={}, z3={}", c, C, local, expected);
+                }
+                return expected;
+            }
+        }
+        return computeCoverageWithZ3(c, C);
+    }
+
+    /**
+     * 用本地单纯形判定覆盖，约束超出其支持范围 (非有限常数或系数) 时返回 null，由调用方退回 Z3。
+     */
+    private OracleResult simplexCoverage(ParameterConstraint c, ConstraintSet C) {
+        try {
+            OracleResult result = SimplexSolver.checkCoverage(c, C);
+            statistics.recordSimplexQuery();
+            return result;
+        } catch (IllegalArgumentException e) {
+            statistics.recordSimplexFallback();
+            logger.debug("单纯形无法处理覆盖查询，退回 Z3: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 用本地单纯形判定可满足性，无法处理时返回 null。
+     */
+    private Boolean simplexIsSatisfiable(ConstraintSet constraintSet) {
+        try {
+            boolean result = SimplexSolver.isSatisfiable(constraintSet);
+            statistics.recordSimplexQuery();
+            return result;
+        } catch (IllegalArgumentException e) {
+            statistics.recordSimplexFallback();
+            logger.debug("单纯形无法处理可满足性查询，退回 Z3: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 实际向 Z3 发起覆盖查询。
+     */
+    private OracleResult computeCoverageWithZ3(ParameterConstraint c, ConstraintSet C) {
+        statistics.recordCoverageQuery();
+        try (Lease lease = lease()) {
+            if (coverageMode == CoverageMode.ASSUMPTIONS) {
+                return computeCoverageWithAssumptions(c, C);
+            }
+            return computeCoverageWithTwoQueries(c, C);
+        }
+    }
+
+    /**
+     * 基于假设文字的覆盖查询：C 只断言一次，c 与 ¬c 分别由会话固定的指示变量 a+、a- 守护
+     * (a+ ⇒ c，a- ⇒ ¬c)，再以 solver.check(a+)、solver.check(a-) 代替两轮 push/add/check/pop。
+     * 若 C ∧ c 不可满足，结果已确定为 NO，不再发起第二次查询。
+     */
+    private OracleResult computeCoverageWithAssumptions(ParameterConstraint c, ConstraintSet C) {
+        // 增量模式下 C 已经在作用域栈中，无需再次断言
+        syncAssertedPrefix(incremental ? C : ConstraintSet.TRUE_CONSTRAINT_SET);
+        return coverageWithAssumptions(c, C, !incremental);
+    }
+
+    /**
+     * 在当前 Solver 作用域栈之上做一次基于假设文字的覆盖查询。
+     * @param assertC 是否在临时作用域中断言 C；为 false 时 C 必须已经在作用域栈中。
+     */
+    private OracleResult coverageWithAssumptions(ParameterConstraint c, ConstraintSet C, boolean assertC) {
+        Context ctx = getContext();
+        Z3VariableManager varManager = getVarManager();
+        Solver solver = getSolver();
+        List<BoolExpr> addedAssertions = new ArrayList<>(); // 调试日志
+
+        try {
+            solver.push();
+            BoolExpr c_z3 = c.toZ3BoolExpr(ctx, varManager);
+            // 每个会话固定的两个指示变量：蕴含式只在本次 push/pop 作用域内，复用不会相互影响
+            Z3Session session = session();
+            BoolExpr positive = session.getPositiveIndicator();
+            BoolExpr negative = session.getNegativeIndicator();
+            if (assertC) {
+                addedAssertions.add(C.toZ3BoolExpr(ctx, varManager));
+            }
+            addedAssertions.add(ctx.mkImplies(positive, c_z3));
+            addedAssertions.add(ctx.mkImplies(negative, ctx.mkNot(c_z3)));
+            for (BoolExpr assertion : addedAssertions) {
+                solver.add(assertion);
+            }
+
+            // 检查 C /\ c 是否可满足
+            Status status_C_and_c = timedCheck(solver, positive);
+            if (status_C_and_c == Status.UNSATISFIABLE) {
+                return OracleResult.NO;
+            }
+            // 检查 C /\ ¬c 是否可满足
+            Status status_C_and_not_c = timedCheck(solver, negative);
+            if (status_C_and_not_c == Status.UNSATISFIABLE) {
+                return OracleResult.YES;
+            }
+            if (status_C_and_c == Status.SATISFIABLE && status_C_and_not_c == Status.SATISFIABLE) {
+                return OracleResult.SPLIT;
+            }
+            logger.warn("Z3 Oracle 遇到 UNKNOWN 状态或不确定结果：C&c={}, C&!c={}", status_C_and_c, status_C_and_not_c);
+            return OracleResult.UNKNOWN;
+
+        } catch (Z3Exception e) {
+            handleZ3Exception("checkCoverage", e, addedAssertions);
+            throw new Z3OracleException("Z3 错误 (checkCoverage): " + e.getMessage(), e);
+        } catch (Exception e) {
+            handleGenericException("checkCoverage", e, addedAssertions);
+            throw new Z3OracleException("意外错误 (checkCoverage): " + e.getMessage(), e);
+        } finally {
+            popSolver(solver);
+        }
+    }
+
+    /**
+     * 原始的覆盖查询方式：分别检查 C ∧ c 与 C ∧ ¬c，每次都完整地 push/add/check/pop。
+     * 保留用于交叉验证。
+     */
+    private OracleResult computeCoverageWithTwoQueries(ParameterConstraint c, ConstraintSet C) {
         Context ctx = getContext();
         Z3VariableManager varManager = getVarManager();
 
-        BoolExpr C_z3 = C.toZ3BoolExpr(ctx, varManager);
         BoolExpr c_z3 = c.toZ3BoolExpr(ctx, varManager);
         BoolExpr not_c_z3 = ctx.mkNot(c_z3);
 
-        // 检查 C /\ c 是否可满足
-        Status status_C_and_c = check(ctx.mkAnd(C_z3, c_z3));
-        // 检查 C /\ ¬c 是否可满足
-        Status status_C_and_not_c = check(ctx.mkAnd(C_z3, not_c_z3));
+        Status status_C_and_c;
+        Status status_C_and_not_c;
+        if (incremental) {
+            // C 已在作用域栈中，只需在栈顶分别检查 c 与 ¬c
+            syncAssertedPrefix(C);
+            status_C_and_c = checkOnTop(c_z3);
+            status_C_and_not_c = checkOnTop(not_c_z3);
+        } else {
+            BoolExpr C_z3 = C.toZ3BoolExpr(ctx, varManager);
+            // 检查 C /\ c 是否可满足
+            status_C_and_c = check(ctx.mkAnd(C_z3, c_z3));
+            // 检查 C /\ ¬c 是否可满足
+            status_C_and_not_c = check(ctx.mkAnd(C_z3, not_c_z3));
+        }
 
         if (status_C_and_c == Status.UNSATISFIABLE) {
             return OracleResult.NO;
@@ -173,6 +711,73 @@ public class Z3Oracle implements AutoCloseable {
         return OracleResult.UNKNOWN;
     }
 
+    /**
+     * 设置 checkCoverage 的求解方式。
+     * @param coverageMode 求解方式。
+     */
+    public void setCoverageMode(CoverageMode coverageMode) {
+        this.coverageMode = Objects.requireNonNull(coverageMode, "coverageMode 不能为 null");
+    }
+
+    public CoverageMode getCoverageMode() {
+        return coverageMode;
+    }
+
+    /**
+     * 选择 isSatisfiable 与 checkCoverage 的判定后端。
+     * SIMPLEX 在本地用精确有理数单纯形求解，不经过 JNI，也不创建 Z3 Context；
+     * 遇到单纯形不支持的约束 (非有限常数或系数) 时自动退回 Z3。
+     * CROSS_CHECK 同时调用两者，返回 Z3 的结果，并记录和输出不一致。
+     * @param backend 判定后端。
+     */
+    public void setBackend(Backend backend) {
+        this.backend = Objects.requireNonNull(backend, "backend 不能为 null");
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * 打开或关闭增量模式。
+     * 打开后，每个线程的 Solver 作用域栈与上一次查询的 ConstraintSet (按其有序约束) 保持同步：
+     * 查询新的约束集时只弹出不同的后缀并压入新增的约束，公共前缀保留在 Solver 中，
+     * Z3 可以在查询之间保留已学到的引理。适合状态空间探索中父子状态约束集只差少量约束的场景。
+     * @param incremental 是否启用。
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * 获取查询统计 (覆盖查询次数、solver.check 次数与耗时)。
+     * @return 统计信息。
+     */
+    public OracleStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 设置 checkCoverage 的结果缓存。传入 null 关闭缓存。
+     * 同一个 CoverageCache 可以被多个 Z3Oracle 共享，前提是它们管理相同的参数集合。
+     * @param coverageCache 结果缓存。
+     */
+    public void setCoverageCache(CoverageCache coverageCache) {
+        this.coverageCache = coverageCache;
+    }
+
+    /**
+     * 获取当前的覆盖查询缓存。
+     * @return 缓存，未启用时为 null。
+     */
+    public CoverageCache getCoverageCache() {
+        return coverageCache;
+    }
+
     /**
      * 从 Z3 模型中提取 ParameterValuation 和 ClockValuation。
      * @param model Z3 模型。
@@ -239,24 +844,147 @@ public class Z3Oracle implements AutoCloseable {
         YES, NO, SPLIT, UNKNOWN
     }
 
+    /**
+     * checkCoverage 的求解方式。
+     */
+    public enum CoverageMode {
+        /** 两次独立的 push/add/check/pop，每次都重新断言 C */
+        TWO_QUERIES,
+        /** C 只断言一次，用假设文字区分 c 与 ¬c，并在第一次查询已能确定结果时跳过第二次 */
+        ASSUMPTIONS
+    }
+
+    /**
+     * isSatisfiable 与 checkCoverage 的判定后端。
+     */
+    public enum Backend {
+        /** 全部交给 Z3 */
+        Z3,
+        /** 本地单纯形优先，Z3 作为后备 */
+        SIMPLEX,
+        /** 同时使用两者，以 Z3 为准并检查单纯形的结果 */
+        CROSS_CHECK
+    }
+
     // --- 资源管理 ---
 
     /**
-     * 清理与当前线程关联的 Z3 Context 和 Solver 资源。
-     * 调用此方法后，当前线程不应再使用此 Z3Oracle 实例。
+     * 线程模式下，清理与当前线程关联的 Z3 Context 和 Solver 资源，调用此方法后当前线程不应再使用此 Z3Oracle 实例。
+     * 池化模式下关闭会话池，释放所有线程租借过的本地 Context (正被租借的在归还时释放)，此后不能再使用此实例。
      */
     @Override
     public void close() {
+        if (pool != null) {
+            pool.close();
+            logger.debug("Z3Oracle 会话池已关闭: {}", pool);
+            return;
+        }
+        Z3Session session = threadSession.get();
+        if (session == null) {
+            return; // 当前线程从未使用过此实例，没有需要释放的资源
+        }
         logger.debug("线程 {} 的 Z3 资源正在清理。", Thread.currentThread().getId());
-        // 移除 Solver 和 Context
-        threadSolver.remove();
-        threadCtx.remove();
-        threadVarManager.remove();
+        // 释放 Context (翻译缓存中的 Z3 表达式随 Context 一起失效)，再移除会话
+        session.close();
+        threadSession.remove();
         logger.debug("线程 {} 的 Z3 资源已清理。", Thread.currentThread().getId());
     }
 
+    /**
+     * 池化模式下的租借凭证：关闭时归还会话。线程模式下为不做任何事情的 {@link #NONE}。
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private static final Lease NONE = new Lease(null, null);
+
+        private final Z3Oracle owner;
+        private final Z3Session session;
+        private int depth = 1;
+
+        private Lease(Z3Oracle owner, Z3Session session) {
+            this.owner = owner;
+            this.session = session;
+        }
+
+        @Override
+        public void close() {
+            if (owner == null || --depth > 0) {
+                return;
+            }
+            owner.currentLease.remove();
+            owner.pool.release(session);
+        }
+    }
+
     // --- 私有辅助方法 ---
 
+    /**
+     * 使当前线程 Solver 的作用域栈恰好对应 target 的有序约束：
+     * 保留与上次断言的最长公共前缀，弹出其余作用域，再为每条新增约束各压入一个作用域。
+     * 非增量模式下以 TRUE_CONSTRAINT_SET 调用，用于清空残留的作用域 (栈为空时没有开销)。
+     * @param target 目标约束集。
+     */
+    private void syncAssertedPrefix(ConstraintSet target) {
+        List<ParameterConstraint> asserted = session().getAssertedPrefix();
+        if (asserted.isEmpty() && target.isEmpty()) {
+            return;
+        }
+        Solver solver = getSolver();
+        Context ctx = getContext();
+        Z3VariableManager varManager = getVarManager();
+        try {
+            int common = 0;
+            boolean diverged = false;
+            int pushed = 0;
+            for (ParameterConstraint constraint : target.getConstraints()) {
+                if (!diverged) {
+                    if (common < asserted.size() && asserted.get(common).equals(constraint)) {
+                        common++;
+                        continue;
+                    }
+                    diverged = true;
+                    popAssertedSuffix(solver, asserted, common);
+                }
+                solver.push();
+                solver.add(constraint.toZ3BoolExpr(ctx, varManager));
+                asserted.add(constraint);
+                pushed++;
+            }
+            if (!diverged) {
+                popAssertedSuffix(solver, asserted, common);
+            }
+            statistics.recordPrefixSync(common, pushed);
+        } catch (Z3Exception e) {
+            logger.error("Z3 错误 (同步增量作用域栈): {}", e.getMessage());
+            resetSolverForCurrentThread();
+            throw new Z3OracleException("Z3 错误 (同步增量作用域栈): " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 弹出 keep 之后的所有作用域。
+     */
+    private void popAssertedSuffix(Solver solver, List<ParameterConstraint> asserted, int keep) {
+        int toPop = asserted.size() - keep;
+        if (toPop > 0) {
+            solver.pop(toPop);
+            asserted.subList(keep, asserted.size()).clear();
+        }
+    }
+
+    /**
+     * 调用 solver.check 并记录次数与耗时。
+     * @param solver Solver 实例。
+     * @param assumptions 假设文字。
+     * @return 求解结果。
+     */
+    private Status timedCheck(Solver solver, BoolExpr... assumptions) {
+        long start = System.nanoTime();
+        Status status = solver.check(assumptions);
+        statistics.recordSolverCheck(System.nanoTime() - start);
+        return status;
+    }
+
     /**
      * 安全地执行 solver.pop() 并处理潜在的异常。
      * 如果 pop 失败，会尝试重置当前线程的 Solver。
@@ -276,12 +1004,12 @@ public class Z3Oracle implements AutoCloseable {
     }
 
     /**
-     * 重置当前线程的 Solver。在 pop 失败或其他需要恢复的情况下调用。
-     * 移除旧 Solver，让 ThreadLocal 在下次访问时重新初始化。
+     * 重置当前线程所用会话的 Solver。在 pop 失败或其他需要恢复的情况下调用。
+     * 丢弃旧 Solver，新 Solver 的作用域栈为空。
      */
     private void resetSolverForCurrentThread() {
         logger.warn("警告: 重置线程 {} 的 Z3 Solver...", Thread.currentThread().getId());
-        threadSolver.remove(); // 移除旧的 (可能有问题的) Solver
+        session().resetSolver();
         // 下次调用 getSolver() 时会重新初始化一个新的 Solver
     }
 
@@ -0,0 +1,100 @@
+package org.example.symbolic;
+
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Solver;
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.expressions.parameters.ParameterConstraint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一组配套的 Z3 资源：Context、在其上创建的 Z3VariableManager 与 Solver，
+ * 以及增量模式下 Solver 作用域栈上已断言的约束。
+ * 同一时刻只能被一个线程使用：线程模式下每个线程持有一个，池化模式下由 {@link Z3SolverPool} 租借。
+ * @author Ayalyt
+ */
+final class Z3Session {
+
+    private final Context ctx;
+    private final Z3VariableManager varManager;
+    // 惰性创建；出错时丢弃，下次使用时重新创建
+    private Solver solver;
+    // 增量模式下 Solver 作用域栈上已断言的约束 (一个作用域一条约束，按 ConstraintSet 的顺序)
+    private final List<ParameterConstraint> assertedPrefix = new ArrayList<>();
+    // 覆盖查询的指示变量 a+、a-，惰性创建；Context 的符号表不会释放，因此每个会话只创建这两个
+    private BoolExpr positiveIndicator;
+    private BoolExpr negativeIndicator;
+
+    Z3Session(Set<Parameter> allParameters, Set<Clock> allClocks) {
+        this.ctx = new Context();
+        this.varManager = new Z3VariableManager(ctx, allParameters, allClocks);
+    }
+
+    Context getContext() {
+        return ctx;
+    }
+
+    Z3VariableManager getVarManager() {
+        return varManager;
+    }
+
+    /**
+     * 获取 Solver，首次使用时创建并断言全局约束 (x0 == 0, xi >= 0, pi >= 0)。
+     */
+    Solver getSolver() {
+        if (solver == null) {
+            solver = ctx.mkSolver();
+            varManager.assertGlobalConstraints(solver);
+        }
+        return solver;
+    }
+
+    List<ParameterConstraint> getAssertedPrefix() {
+        return assertedPrefix;
+    }
+
+    /**
+     * 覆盖查询中守护 c 的指示变量 a+ (a+ ⇒ c 只在查询的临时作用域中断言)。
+     */
+    BoolExpr getPositiveIndicator() {
+        if (positiveIndicator == null) {
+            positiveIndicator = ctx.mkBoolConst("cov!+");
+        }
+        return positiveIndicator;
+    }
+
+    /**
+     * 覆盖查询中守护 ¬c 的指示变量 a- (a- ⇒ ¬c 只在查询的临时作用域中断言)。
+     */
+    BoolExpr getNegativeIndicator() {
+        if (negativeIndicator == null) {
+            negativeIndicator = ctx.mkBoolConst("cov!-");
+        }
+        return negativeIndicator;
+    }
+
+    /**
+     * 丢弃 Solver (例如 pop 失败后)，新 Solver 的作用域栈为空。
+     */
+    void resetSolver() {
+        solver = null;
+        assertedPrefix.clear();
+    }
+
+    /**
+     * 释放本地 Z3 资源。此后不能再使用该会话及其创建的任何 Z3 表达式。
+     */
+    void close() {
+        // 翻译缓存中的 Z3 表达式属于当前 Context，随 Context 一起失效
+        varManager.clearTranslationCache();
+        solver = null;
+        assertedPrefix.clear();
+        positiveIndicator = null;
+        negativeIndicator = null;
+        ctx.close();
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.symbolic;
+
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 容量固定的 Z3 会话池 (Context、Solver、Z3VariableManager 各一个为一组)，供池化模式的 {@link Z3Oracle} 使用。
+ * <p>
+ * 线程模式下每个接触过 Oracle 的线程各持有一个 Context，在 ForkJoin 线程池或虚拟线程上会无限增长；
+ * 池化模式下本地 Context 的数量不超过容量，与线程数无关。会话在第一次需要时创建，
+ * 空闲会话放在阻塞队列中，租借时没有空闲会话且已达到容量则等待归还。
+ * {@link #close()} 释放所有本地 Context：空闲的立即释放，正被租借的在归还时释放。
+ * 此类是线程安全的。
+ * @author Ayalyt
+ */
+public final class Z3SolverPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(Z3SolverPool.class);
+
+    // 等待归还时检查池是否已关闭的间隔
+    private static final long CLOSE_CHECK_MILLIS = 100;
+
+    private final Set<Parameter> allParameters;
+    private final Set<Clock> allClocks;
+    private final int capacity;
+
+    private final BlockingQueue<Z3Session> idle;
+    private final AtomicInteger created = new AtomicInteger();
+    private volatile boolean closed;
+
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder blockedLeases = new LongAdder();
+    private final LongAdder leaseWaitNanos = new LongAdder();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+
+    /**
+     * 创建会话池。
+     * @param allParameters PTA 中所有参数的集合。
+     * @param allClocks PTA 中所有时钟的集合 (应包含零时钟)。
+     * @param capacity 最多同时存在的会话数。
+     */
+    public Z3SolverPool(Set<Parameter> allParameters, Set<Clock> allClocks, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Z3SolverPool: 容量必须为正数，实际为 " + capacity);
+        }
+        this.allParameters = allParameters;
+        this.allClocks = allClocks;
+        this.capacity = capacity;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * 租借一个会话，没有可用会话时阻塞等待。
+     * @return 会话，用完后必须 {@link #release}。
+     * @throws IllegalStateException 如果池已关闭。
+     * @throws Z3Oracle.Z3OracleException 如果等待时线程被中断 (中断标志会被保留)。
+     */
+    Z3Session acquire() {
+        long start = System.nanoTime();
+        Z3Session session = idle.poll();
+        if (session == null) {
+            session = createIfBelowCapacity();
+        }
+        if (session == null) {
+            blockedLeases.increment();
+            try {
+                while (session == null) {
+                    ensureOpen();
+                    session = idle.poll(CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Z3Oracle.Z3OracleException("等待 Z3 会话时被中断", e);
+            }
+        }
+        if (closed) {
+            release(session);
+            ensureOpen();
+        }
+        long waited = System.nanoTime() - start;
+        leases.increment();
+        leaseWaitNanos.add(waited);
+        maxLeaseWaitNanos.accumulateAndGet(waited, Math::max);
+        return session;
+    }
+
+    /**
+     * 归还会话。池已关闭时直接释放它的本地资源。
+     */
+    void release(Z3Session session) {
+        if (closed || !idle.offer(session)) {
+            session.close();
+            created.decrementAndGet();
+        } else if (closed && idle.remove(session)) {
+            // 与 close() 并发：放回队列时池恰好被关闭，且 close() 没有取走它
+            session.close();
+            created.decrementAndGet();
+        }
+    }
+
+    private Z3Session createIfBelowCapacity() {
+        ensureOpen();
+        if (created.incrementAndGet() > capacity) {
+            created.decrementAndGet();
+            return null;
+        }
+        try {
+            logger.debug("Z3SolverPool: 创建第 {} 个会话", created.get());
+            return new Z3Session(allParameters, allClocks);
+        } catch (RuntimeException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Z3SolverPool 已关闭");
+        }
+    }
+
+    /**
+     * 关闭会话池：立即释放所有空闲会话的本地 Context，正被租借的会话在归还时释放。此后不能再租借。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        int released = 0;
+        Z3Session session;
+        while ((session = idle.poll()) != null) {
+            session.close();
+            created.decrementAndGet();
+            released++;
+        }
+        logger.debug("Z3SolverPool 已关闭：释放 {} 个空闲会话，{} 个会话将在归还时释放", released, created.get());
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 当前存在 (空闲或被租借) 的会话数。
+     */
+    public int getCreatedSessions() {
+        return created.get();
+    }
+
+    /**
+     * 租借次数。
+     */
+    public long getLeases() {
+        return leases.sum();
+    }
+
+    /**
+     * 因没有空闲会话而需要等待的租借次数。
+     */
+    public long getBlockedLeases() {
+        return blockedLeases.sum();
+    }
+
+    /**
+     * 所有租借累计的等待时间 (纳秒)。
+     */
+    public long getLeaseWaitNanos() {
+        return leaseWaitNanos.sum();
+    }
+
+    /**
+     * 单次租借的最长等待时间 (纳秒)。
+     */
+    public long getMaxLeaseWaitNanos() {
+        return maxLeaseWaitNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        long count = getLeases();
+        return String.format("Z3SolverPool{capacity=%d, sessions=%d, leases=%d, blocked=%d, avgWait=%.1fµs, maxWait=%.1fµs%s}",
+                capacity, getCreatedSessions(), count, getBlockedLeases(),
+                count == 0 ? 0.0 : getLeaseWaitNanos() / 1000.0 / count, getMaxLeaseWaitNanos() / 1000.0,
+                closed ? ", closed" : "");
+    }
+}
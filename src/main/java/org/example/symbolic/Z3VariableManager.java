@@ -2,19 +2,25 @@ package org.example.symbolic;
 
 import com.microsoft.z3.ArithExpr;
 import com.microsoft.z3.Context;
+import com.microsoft.z3.Expr;
 import com.microsoft.z3.Solver;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.example.core.Clock;
 import org.example.core.Parameter;
+import org.example.utils.CacheStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * 负责管理 Java Parameter 和 Clock 对象到 Z3 ArithExpr 变量的映射。
  * 确保每个 Java 变量在 Z3 Context 中有唯一的对应 Z3 变量。
  * 在 Solver 初始化时，断言零时钟和所有已知时钟的非负约束。
+ * 同时持有本 Context 的翻译缓存：不可变的 Java 表达式对象 (ConstraintSet、ParameterConstraint、
+ * LinearExpression、AtomicGuard) 到其 Z3 表达式的映射，避免每次查询都重新构造 AST。
  * @author Ayalyt
  */
 @Getter
@@ -31,6 +37,15 @@ public class Z3VariableManager {
     private final Set<Parameter> allKnownParameters;
     private final Set<Clock> allKnownClocks;
 
+    // 翻译缓存的默认容量
+    public static final int DEFAULT_TRANSLATION_CACHE_SIZE = 1 << 16;
+
+    // 翻译缓存：键被弱引用持有，Java 对象被回收后条目自动消失；Z3 表达式不引用键，不会阻止回收
+    @Getter(AccessLevel.NONE)
+    private final Map<Object, Expr<?>> translationCache;
+    private final int translationCacheCapacity;
+    private final CacheStatistics translationStatistics = new CacheStatistics("Z3TranslationCache");
+
     /**
      * 构造函数。
      * @param ctx Z3 Context 实例。
@@ -38,7 +53,24 @@ public class Z3VariableManager {
      * @param allClocks PTA 中所有时钟的集合。
      */
     public Z3VariableManager(Context ctx, Set<Parameter> allParameters, Set<Clock> allClocks) {
+        this(ctx, allParameters, allClocks, DEFAULT_TRANSLATION_CACHE_SIZE);
+    }
+
+    /**
+     * 构造函数。
+     * @param ctx Z3 Context 实例。
+     * @param allParameters PTA 中所有参数的集合。
+     * @param allClocks PTA 中所有时钟的集合。
+     * @param translationCacheCapacity 翻译缓存的最大条目数，0 表示不缓存。
+     */
+    public Z3VariableManager(Context ctx, Set<Parameter> allParameters, Set<Clock> allClocks,
+                             int translationCacheCapacity) {
+        if (translationCacheCapacity < 0) {
+            throw new IllegalArgumentException("翻译缓存容量不能为负数: " + translationCacheCapacity);
+        }
         this.ctx = Objects.requireNonNull(ctx, "Z3 Context cannot be null.");
+        this.translationCache = new WeakHashMap<>();
+        this.translationCacheCapacity = translationCacheCapacity;
         this.allKnownParameters = Collections.unmodifiableSet(new HashSet<>(allParameters));
         this.allKnownClocks = Collections.unmodifiableSet(new HashSet<>(allClocks));
 
@@ -84,6 +116,42 @@ public class Z3VariableManager {
         });
     }
 
+    /**
+     * 从翻译缓存中取出 source 对应的 Z3 表达式，未命中时用 builder 构造并放入缓存。
+     * source 必须是不可变对象且正确实现 equals/hashCode。
+     * 缓存达到容量上限时整体清空 (记为一次驱逐) 后重新填充，保证占用有界。
+     * 本实例与 Context 一样只属于一个线程，因此无需加锁；builder 可以递归调用本方法。
+     * @param source 被翻译的 Java 表达式对象。
+     * @param builder 实际构造 Z3 表达式的函数。
+     * @return 对应的 Z3 表达式。
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Expr<?>> E translate(Object source, Supplier<E> builder) {
+        if (translationCacheCapacity == 0) {
+            return builder.get();
+        }
+        Expr<?> cached = translationCache.get(source);
+        if (cached != null) {
+            translationStatistics.recordHit();
+            return (E) cached;
+        }
+        translationStatistics.recordMiss();
+        E built = builder.get();
+        if (translationCache.size() >= translationCacheCapacity) {
+            translationCache.clear();
+            translationStatistics.recordEviction();
+        }
+        translationCache.put(source, built);
+        return built;
+    }
+
+    /**
+     * 清空翻译缓存。Context 关闭前必须调用，缓存中的 Z3 表达式在 Context 关闭后不再有效。
+     */
+    public void clearTranslationCache() {
+        translationCache.clear();
+    }
+
     /**
      * 向 Solver 断言零时钟 (x0) 的约束 (x0 == 0)
      * 和所有已知普通时钟的非负约束 (xi >= 0)。
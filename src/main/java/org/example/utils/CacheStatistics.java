@@ -0,0 +1,77 @@
+package org.example.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存/驻留表的命中统计：命中、未命中、驱逐次数。
+ * 计数器基于 LongAdder，可在多线程下无锁累加。
+ * @author Ayalyt
+ */
+public final class CacheStatistics {
+
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CacheStatistics(String name) {
+        this.name = name;
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * 一次记录多次未命中，用于批量查询。
+     * @param count 未命中次数。
+     */
+    public void recordMisses(long count) {
+        misses.add(count);
+    }
+
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 命中率，尚无请求时返回 0。
+     * @return 命中次数 / 请求次数
+     */
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * 清零所有计数器，用于按轮次统计。
+     */
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{hits=%d, misses=%d, evictions=%d, hitRate=%.2f%%}",
+                name, getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+    }
+}
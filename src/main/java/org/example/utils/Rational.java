@@ -2,7 +2,6 @@ package org.example.utils;
 
 import com.microsoft.z3.ArithExpr;
 import com.microsoft.z3.Context;
-import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,76 +11,84 @@ import java.math.RoundingMode;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.ForkJoinPool;
 import java.util.function.BinaryOperator;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-
+/**
+ * 精确有理数。
+ * 采用混合表示：绝大多数 PTA 常量都能用 long 表示，此时分子分母存放在 long 字段中，
+ * 运算通过 Math.*Exact 检查溢出；只有溢出时才提升为 BigInteger 表示。
+ * 规范化保证：能用 long 表示的值一定处于 long 表示，因此两种表示之间不会出现相等的值。
+ */
 public final class Rational implements Comparable<Rational> {
     private static final Logger logger = LoggerFactory.getLogger(Rational.class);
-    private static final int MAX_CACHE_MAGNITUDE = 1024;
-    private static final ConcurrentHashMap<String, Rational> CACHE = new ConcurrentHashMap<>(2048);
+    // 驻留表容量 (2 的幂)，满后按槽位覆盖旧值
+    private static final int INTERN_TABLE_CAPACITY = 1 << 14;
+    private static final InternTable CACHE = new InternTable(INTERN_TABLE_CAPACITY);
     private static final ForkJoinPool PARALLEL_POOL = new ForkJoinPool();
 
     // BigInteger 常量
     private static final BigInteger BIG_INT_ZERO = BigInteger.ZERO;
     private static final BigInteger BIG_INT_ONE = BigInteger.ONE;
-    private static final BigInteger BIG_INT_NEG_ONE = BigInteger.valueOf(-1);
     private static final BigInteger BIG_INT_TEN = BigInteger.TEN;
+    private static final BigInteger BIG_INT_LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+
+    // 小值表示：bigNum == null 时生效。分母非负，分子不为 Long.MIN_VALUE (保证取反不溢出)
+    private final long num;
+    private final long den;
 
-    @Getter
-    private final BigInteger numerator;
-    @Getter
-    private final BigInteger denominator;
+    // 大值表示：仅当数值无法用 long 表示时使用，否则为 null
+    private final BigInteger bigNum;
+    private final BigInteger bigDen;
 
     private volatile int hash;
 
     // 常用常量
-    public static final Rational ZERO = new Rational(BIG_INT_ZERO, BIG_INT_ONE); // 0/1
-    public static final Rational ONE = new Rational(BIG_INT_ONE, BIG_INT_ONE);   // 1/1
-    public static final Rational HALF = new Rational(BIG_INT_ONE, BigInteger.valueOf(2)); // 1/2
-    public static final Rational INFINITY = new Rational(BIG_INT_ONE, BIG_INT_ZERO);      // 1/0
-    public static final Rational NEG_INFINITY = new Rational(BIG_INT_NEG_ONE, BIG_INT_ZERO); // -1/0
-    public static final Rational NaN = new Rational(BIG_INT_ZERO, BIG_INT_ZERO);         // 0/0
-    public static final Rational EPSILON = new Rational(BigInteger.valueOf(1), BigInteger.valueOf(1000000));
+    public static final Rational ZERO = new Rational(0L, 1L); // 0/1
+    public static final Rational ONE = new Rational(1L, 1L);   // 1/1
+    public static final Rational HALF = new Rational(1L, 2L); // 1/2
+    public static final Rational INFINITY = new Rational(1L, 0L);      // 1/0
+    public static final Rational NEG_INFINITY = new Rational(-1L, 0L); // -1/0
+    public static final Rational NaN = new Rational(0L, 0L);         // 0/0
+    public static final Rational EPSILON = new Rational(1L, 1000000L);
 
     static {
-        CACHE.put(ZERO.getCacheKey(), ZERO);
-        CACHE.put(ONE.getCacheKey(), ONE);
-        CACHE.put(HALF.getCacheKey(), HALF);
-        CACHE.put(valueOf(-1).getCacheKey(), valueOf(-1));
-
+        // 预热常用小整数和小分母分数 (ZERO/ONE/HALF/无穷/NaN 由常量直接返回，不进表)
         for (int i = -16; i <= 16; i++) {
-            if (i != 0 && i != 1 && i != -1) {
-                Rational r = new Rational(BigInteger.valueOf(i), BIG_INT_ONE);
-                CACHE.put(r.getCacheKey(), r);
-            }
+            valueOf(i);
         }
         for (int den = 2; den <= 16; den++) {
             for (int num = -den; num <= den; num++) {
-                if (num != 0) {
-                    Rational r = valueOf(BigInteger.valueOf(num), BigInteger.valueOf(den));
-                    if (!CACHE.containsValue(r) && shouldCache(r)) {
-                        CACHE.put(r.getCacheKey(), r);
-                    }
-                }
+                valueOf(num, den);
             }
         }
-        CACHE.put(INFINITY.getCacheKey(), INFINITY);
-        CACHE.put(NEG_INFINITY.getCacheKey(), NEG_INFINITY);
-        CACHE.put(NaN.getCacheKey(), NaN);
+        CACHE.getStatistics().reset();
     }
 
 
     /**
-     * 私有构造函数，用于内部创建和常量定义。
+     * 私有构造函数，创建 long 表示的有理数。调用方保证已规范化。
+     */
+    private Rational(long num, long den) {
+        this.num = num;
+        this.den = den;
+        this.bigNum = null;
+        this.bigDen = null;
+        logger.debug("创建了一个Rational: {} / {}", num, den);
+    }
+
+    /**
+     * 私有构造函数，创建 BigInteger 表示的有理数。调用方保证已规范化且无法用 long 表示。
      */
     private Rational(BigInteger numerator, BigInteger denominator) {
-        this.numerator = numerator;
-        this.denominator = denominator;
+        this.num = 0L;
+        this.den = 0L;
+        this.bigNum = numerator;
+        this.bigDen = denominator;
         logger.debug("创建了一个Rational: {} / {}", numerator, denominator);
     }
 
@@ -131,89 +138,119 @@ public final class Rational implements Comparable<Rational> {
         if (num.equals(BIG_INT_ONE) && den.equals(BigInteger.valueOf(2))) {
             return HALF;
         }
+        // 能用 long 表示时一律退回小值表示
+        if (fitsInLong(num) && fitsInLong(den)) {
+            return ofReduced(num.longValue(), den.longValue());
+        }
         // 返回规范化后的内部表示
         return new Rational(num, den);
     }
 
-    // ========== 工厂方法 ==========
+    /**
+     * 判断一个 BigInteger 是否可以放入小值表示 (排除 Long.MIN_VALUE，保证取反不溢出)。
+     */
+    private static boolean fitsInLong(BigInteger value) {
+        return value.bitLength() < 64 && !value.equals(BIG_INT_LONG_MIN);
+    }
 
-    public static Rational valueOf(BigInteger numerator) {
-        return valueOf(numerator, BIG_INT_ONE);
+    /**
+     * long 的最大公约数，要求两个参数都不为 Long.MIN_VALUE。
+     */
+    private static long gcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
     }
 
-    public static Rational valueOf(long numerator) {
-        if (numerator == 0L) {
+    /**
+     * 从已约分、分母为正的 long 分子分母得到实例，常用值返回共享常量。
+     */
+    private static Rational ofReduced(long num, long den) {
+        if (num == 0L) {
             return ZERO;
         }
-        if (numerator == 1L) {
+        if (den == 1L && num == 1L) {
             return ONE;
         }
-        return valueOf(BigInteger.valueOf(numerator), BIG_INT_ONE);
-    }
-
-    public static Rational valueOf(int numerator) {
-        return valueOf((long) numerator);
+        if (den == 2L && num == 1L) {
+            return HALF;
+        }
+        return CACHE.intern(num, den);
     }
 
-    public static Rational valueOf(BigInteger numerator, BigInteger denominator) {
-        logger.debug("尝试创建一个Rational: {} / {}", numerator, denominator);
-        // 预检查简化情况
-        if (denominator.equals(BIG_INT_ZERO)) {
-            int signNum = numerator.signum();
-            if (signNum > 0) {
+    /**
+     * 规范化 long 表示的分子分母。遇到 Long.MIN_VALUE 时回退到 BigInteger 路径。
+     */
+    private static Rational normalize(long num, long den) {
+        if (num == Long.MIN_VALUE || den == Long.MIN_VALUE) {
+            return normalize(BigInteger.valueOf(num), BigInteger.valueOf(den));
+        }
+        if (den == 0L) {
+            if (num > 0L) {
                 return INFINITY;
             }
-            if (signNum < 0) {
+            if (num < 0L) {
                 return NEG_INFINITY;
             }
             return NaN;
         }
-        if (numerator.equals(BIG_INT_ZERO)) {
+        if (num == 0L) {
             return ZERO;
         }
-        if (denominator.signum() < 0) {
-            numerator = numerator.negate();
-            denominator = denominator.negate();
-        }
-        if (numerator.equals(denominator)) {
-            return ONE;
+        if (den < 0L) {
+            num = -num;
+            den = -den;
         }
-        if (denominator.equals(BIG_INT_ONE)) { // 已经是整数
-            if (numerator.equals(BIG_INT_ONE)) {
-                return ONE;
-            }
-            // 尝试从缓存获取小整数
-            String key = numerator.toString() + "/1";
-            Rational cached = CACHE.get(key);
-            if (cached != null) {
-                return cached;
+        if (den != 1L) {
+            long g = gcd(num, den);
+            if (g != 1L) {
+                num /= g;
+                den /= g;
             }
         }
-        logger.debug("无缓存值");
+        return ofReduced(num, den);
+    }
 
-        // 生成缓存键,对于非常大的数可能效率不高
-        String key = numerator.toString() + "/" + denominator.toString();
-        Rational cached = CACHE.get(key);
-        if (cached != null) {
-            return cached;
+    // ========== 工厂方法 ==========
+
+    public static Rational valueOf(BigInteger numerator) {
+        return valueOf(numerator, BIG_INT_ONE);
+    }
+
+    public static Rational valueOf(long numerator) {
+        if (numerator == 0L) {
+            return ZERO;
+        }
+        if (numerator == 1L) {
+            return ONE;
+        }
+        if (numerator == Long.MIN_VALUE) {
+            return valueOf(BigInteger.valueOf(numerator), BIG_INT_ONE);
         }
+        return CACHE.intern(numerator, 1L);
+    }
 
-        Rational normalized = normalize(numerator, denominator);
+    public static Rational valueOf(int numerator) {
+        return valueOf((long) numerator);
+    }
 
-        if (shouldCache(normalized)) {
-            String normalizedKey = normalized.getCacheKey();
-            Rational finalCached = CACHE.get(normalizedKey);
-            if (finalCached != null) {
-                return finalCached;
-            }
-            CACHE.put(normalizedKey, normalized);
+    public static Rational valueOf(BigInteger numerator, BigInteger denominator) {
+        logger.debug("尝试创建一个Rational: {} / {}", numerator, denominator);
+        // 小值快速路径，不经过 BigInteger 运算
+        if (fitsInLong(numerator) && fitsInLong(denominator)) {
+            return normalize(numerator.longValue(), denominator.longValue());
         }
-        logger.debug("创建了一个Rational并缓存: {}", normalized);
-        return normalized;
+        // 大值不进驻留表，直接规范化
+        return normalize(numerator, denominator);
     }
 
     public static Rational valueOf(long numerator, long denominator) {
-        return valueOf(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+        return normalize(numerator, denominator);
     }
 
     public static Rational valueOf(int numerator, int denominator) {
@@ -267,13 +304,6 @@ public final class Rational implements Comparable<Rational> {
         }
         s = s.trim();
 
-        // Check cache first
-        Rational cached = CACHE.get(s);
-        if (cached != null) {
-            return cached;
-        }
-
-
         // 处理特殊的无穷符号
         if ("+".equals(s) || "∞".equals(s) || "Infinity".equalsIgnoreCase(s)) {
             return INFINITY;
@@ -336,7 +366,7 @@ public final class Rational implements Comparable<Rational> {
 
         if (this.isInfinity() || other.isInfinity()) {
             if (this.isInfinity() && other.isInfinity()) {
-                if (this.numerator.signum() != other.numerator.signum()) {
+                if (this.signum() != other.signum()) {
                     return NaN;
                 }
                 return this;
@@ -344,9 +374,21 @@ public final class Rational implements Comparable<Rational> {
             return this.isInfinity() ? this : other;
         }
 
+        if (this.isSmall() && other.isSmall()) {
+            try {
+                if (this.den == other.den) {
+                    return normalize(Math.addExact(this.num, other.num), this.den);
+                }
+                long newNum = Math.addExact(Math.multiplyExact(this.num, other.den), Math.multiplyExact(other.num, this.den));
+                return normalize(newNum, Math.multiplyExact(this.den, other.den));
+            } catch (ArithmeticException overflow) {
+                // 溢出，回退到 BigInteger
+            }
+        }
+
         // Finite addition using BigInteger
-        BigInteger num1 = this.numerator; BigInteger den1 = this.denominator;
-        BigInteger num2 = other.numerator; BigInteger den2 = other.denominator;
+        BigInteger num1 = this.getNumerator(); BigInteger den1 = this.getDenominator();
+        BigInteger num2 = other.getNumerator(); BigInteger den2 = other.getDenominator();
 
         BigInteger newNum = num1.multiply(den2).add(num2.multiply(den1));
         BigInteger newDen = den1.multiply(den2);
@@ -378,9 +420,24 @@ public final class Rational implements Comparable<Rational> {
             return (s1 * s2 > 0) ? INFINITY : NEG_INFINITY;
         }
 
+        if (this.isSmall() && other.isSmall()) {
+            // 先交叉约分，结果天然是既约的
+            long g1 = gcd(this.num, other.den);
+            long g2 = gcd(other.num, this.den);
+            try {
+                long newNum = Math.multiplyExact(this.num / g1, other.num / g2);
+                long newDen = Math.multiplyExact(this.den / g2, other.den / g1);
+                if (newNum != Long.MIN_VALUE) {
+                    return ofReduced(newNum, newDen);
+                }
+            } catch (ArithmeticException overflow) {
+                // 溢出，回退到 BigInteger
+            }
+        }
+
         // Finite multiplication
-        BigInteger num1 = this.numerator; BigInteger den1 = this.denominator;
-        BigInteger num2 = other.numerator; BigInteger den2 = other.denominator;
+        BigInteger num1 = this.getNumerator(); BigInteger den1 = this.getDenominator();
+        BigInteger num2 = other.getNumerator(); BigInteger den2 = other.getDenominator();
         return valueOf(num1.multiply(num2), den1.multiply(den2));
     }
 
@@ -422,7 +479,10 @@ public final class Rational implements Comparable<Rational> {
         if (this == NEG_INFINITY) {
             return ZERO; // 1 / -Inf -> 0
         }
-        return valueOf(this.denominator, this.numerator);
+        if (isSmall()) {
+            return this.num > 0 ? ofReduced(this.den, this.num) : ofReduced(-this.den, -this.num);
+        }
+        return valueOf(this.bigDen, this.bigNum);
     }
 
     public Rational negate() {
@@ -439,7 +499,10 @@ public final class Rational implements Comparable<Rational> {
         if (this == NEG_INFINITY) {
             return INFINITY;
         }
-        return valueOf(this.numerator.negate(), this.denominator);
+        if (isSmall()) {
+            return ofReduced(-this.num, this.den);
+        }
+        return valueOf(this.bigNum.negate(), this.bigDen);
     }
 
     public Rational abs() {
@@ -450,7 +513,7 @@ public final class Rational implements Comparable<Rational> {
         if (this == NEG_INFINITY) {
             return INFINITY;
         }
-        if (this.numerator.signum() >= 0) {
+        if (this.signum() >= 0) {
             return this;
         }
         return this.negate();
@@ -508,6 +571,14 @@ public final class Rational implements Comparable<Rational> {
         ).join();
     }
 
+    /**
+     * 获取小值驻留表的命中/未命中/驱逐统计。
+     * @return 驻留表统计
+     */
+    public static CacheStatistics getCacheStatistics() {
+        return CACHE.getStatistics();
+    }
+
     // ========== 工具方法 ==========
 
     /**
@@ -515,8 +586,8 @@ public final class Rational implements Comparable<Rational> {
      * @return 如果是有限数返回 true
      */
     public boolean isFinite() {
-        // 有限数的 denominator 必须非零
-        return !this.denominator.equals(BIG_INT_ZERO);
+        // 有限数的 denominator 必须非零，大值表示总是有限的
+        return !isSmall() || this.den != 0L;
     }
 
     /**
@@ -525,7 +596,7 @@ public final class Rational implements Comparable<Rational> {
      */
     public boolean isInfinity() {
         // 无穷大的 denominator 为 0，numerator 非 0
-        return this.denominator.equals(BIG_INT_ZERO) && !this.numerator.equals(BIG_INT_ZERO);
+        return this == INFINITY || this == NEG_INFINITY;
     }
 
     /**
@@ -573,7 +644,44 @@ public final class Rational implements Comparable<Rational> {
             throw new ArithmeticException("含有NaN");
         }
         // 对于有限数和无穷大，符号由分子决定 (分母规范化为正或零)
-        return this.numerator.signum();
+        return isSmall() ? Long.signum(this.num) : this.bigNum.signum();
+    }
+
+    /**
+     * 获取分子 (BigInteger 形式)。小值表示下会按需构造。
+     * @return 分子
+     */
+    public BigInteger getNumerator() {
+        return isSmall() ? BigInteger.valueOf(this.num) : this.bigNum;
+    }
+
+    /**
+     * 获取分母 (BigInteger 形式)。小值表示下会按需构造。
+     * @return 分母
+     */
+    public BigInteger getDenominator() {
+        return isSmall() ? BigInteger.valueOf(this.den) : this.bigDen;
+    }
+
+    /**
+     * 是否处于 long 小值表示。包内可见，供 RationalAccumulator 走无分配路径。
+     */
+    boolean isSmall() {
+        return this.bigNum == null;
+    }
+
+    /**
+     * 小值表示下的分子，仅在 isSmall() 为 true 时有意义。
+     */
+    long smallNumerator() {
+        return this.num;
+    }
+
+    /**
+     * 小值表示下的分母，仅在 isSmall() 为 true 时有意义。
+     */
+    long smallDenominator() {
+        return this.den;
     }
 
 
@@ -595,19 +703,25 @@ public final class Rational implements Comparable<Rational> {
         if (isZero()) {
             return 0.0;
         }
+        // 分子分母都能精确表示为 double 时，一次除法即为正确舍入的结果
+        if (isSmall() && Math.abs(this.num) < (1L << 53) && this.den < (1L << 53)) {
+            return (double) this.num / (double) this.den;
+        }
 
+        BigInteger numerator = getNumerator();
+        BigInteger denominator = getDenominator();
         // 使用 BigDecimal 进行转换以获得更好的精度控制
         // 设置一个足够大的精度，但避免无限循环
         int precision = Math.max(100, Math.max(numerator.abs().bitLength(), denominator.abs().bitLength()) + 10);
-        BigDecimal numBd = new BigDecimal(this.numerator);
-        BigDecimal denBd = new BigDecimal(this.denominator);
+        BigDecimal numBd = new BigDecimal(numerator);
+        BigDecimal denBd = new BigDecimal(denominator);
 
         try {
             BigDecimal result = numBd.divide(denBd, precision, RoundingMode.HALF_EVEN);
             return result.doubleValue(); // 可能仍然会溢出为 double 的 Infinity
         } catch (ArithmeticException e) {
             // 如果除法导致非终止小数，直接用 double 除法可能更合适（虽然精度较低）
-            return this.numerator.doubleValue() / this.denominator.doubleValue();
+            return numerator.doubleValue() / denominator.doubleValue();
         }
     }
 
@@ -632,8 +746,11 @@ public final class Rational implements Comparable<Rational> {
         if (isZero()) {
             return 0L;
         }
+        if (isSmall()) {
+            return this.num / this.den;
+        }
         // 执行 BigInteger 除法 (截断)
-        BigInteger result = this.numerator.divide(this.denominator);
+        BigInteger result = this.bigNum.divide(this.bigDen);
         try {
             return result.longValueExact();
         } catch (ArithmeticException e) {
@@ -655,7 +772,7 @@ public final class Rational implements Comparable<Rational> {
         if (isZero()) {
             return 0;
         }
-        BigInteger result = this.numerator.divide(this.denominator);
+        BigInteger result = isSmall() ? BigInteger.valueOf(this.num / this.den) : this.bigNum.divide(this.bigDen);
         try {
             return result.intValueExact();
         } catch (ArithmeticException e) {
@@ -668,7 +785,7 @@ public final class Rational implements Comparable<Rational> {
      *  判断该rational是否是整数
      */
     public boolean isInteger() {
-        return this.denominator.equals(BIG_INT_ONE);
+        return isSmall() ? this.den == 1L : this.bigDen.equals(BIG_INT_ONE);
     }
 
     public ArithExpr toZ3Real(Context ctx) {
@@ -676,6 +793,15 @@ public final class Rational implements Comparable<Rational> {
             logger.warn("无法将非有限的 Rational 值 (" + this + ") 转换为 Z3 算术表达式。");
             throw new IllegalArgumentException("无法将非有限的 Rational 值 (" + this + ") 转换为 Z3 算术表达式。");
         }
+        // 优先使用数值重载，避免格式化为字符串再由 Z3 解析
+        if (isSmall()) {
+            if (this.den == 1L) {
+                return ctx.mkReal(this.num);
+            }
+            if (this.num >= Integer.MIN_VALUE && this.num <= Integer.MAX_VALUE && this.den <= Integer.MAX_VALUE) {
+                return ctx.mkReal((int) this.num, (int) this.den);
+            }
+        }
         return ctx.mkReal(this.toString());
     }
 
@@ -703,20 +829,40 @@ public final class Rational implements Comparable<Rational> {
         // 处理无穷大
         if (a.isInfinity()) { // a +Inf/-Inf
             if (b.isInfinity()) { // b +Inf/-Inf
-                return a.numerator.compareTo(b.numerator); // +Inf vs +Inf = 0, -Inf vs -Inf = 0, +Inf vs -Inf = 1
+                return Integer.compare(a.signum(), b.signum()); // +Inf vs +Inf = 0, -Inf vs -Inf = 0, +Inf vs -Inf = 1
             }
-            return a.numerator.signum(); // a：Inf, b：finite
+            return a.signum(); // a：Inf, b：finite
         }
         if (b.isInfinity()) { // a finite, b Inf
-            return -b.numerator.signum();
+            return -b.signum();
+        }
+
+        if (a.isSmall() && b.isSmall()) {
+            if (a.den == b.den) {
+                return Long.compare(a.num, b.num);
+            }
+            // 比较 a*d 和 c*b，用 128 位乘积避免溢出
+            return compareProducts(a.num, b.den, b.num, a.den);
         }
 
         // 比较 a/b 和 c/d -> 比较 a*d 和 c*b
-        BigInteger ad = a.numerator.multiply(b.denominator);
-        BigInteger cb = b.numerator.multiply(a.denominator);
+        BigInteger ad = a.getNumerator().multiply(b.getDenominator());
+        BigInteger cb = b.getNumerator().multiply(a.getDenominator());
         return ad.compareTo(cb);
     }
 
+    /**
+     * 比较两个 long 乘积 x1*y1 与 x2*y2 的大小，使用 128 位乘积，不会溢出也不分配对象。
+     */
+    private static int compareProducts(long x1, long y1, long x2, long y2) {
+        long hi1 = Math.multiplyHigh(x1, y1);
+        long hi2 = Math.multiplyHigh(x2, y2);
+        if (hi1 != hi2) {
+            return Long.compare(hi1, hi2);
+        }
+        return Long.compareUnsigned(x1 * y1, x2 * y2);
+    }
+
     // ========== 对象基础方法 ==========
 
     @Override
@@ -732,14 +878,21 @@ public final class Rational implements Comparable<Rational> {
         if (!(o instanceof Rational that)) {
             return false;
         }
-        return this.numerator.equals(that.numerator) && this.denominator.equals(that.denominator);
+        // 规范化保证同一数值只有一种表示
+        if (this.isSmall() != that.isSmall()) {
+            return false;
+        }
+        if (this.isSmall()) {
+            return this.num == that.num && this.den == that.den;
+        }
+        return this.bigNum.equals(that.bigNum) && this.bigDen.equals(that.bigDen);
     }
 
     @Override
     public int hashCode() {
         int h = hash;
         if (h == 0) {
-            h = Objects.hash(numerator, denominator);
+            h = isSmall() ? 31 * Long.hashCode(num) + Long.hashCode(den) : Objects.hash(bigNum, bigDen);
             if (h == 0) {
                 h = 1; // 避免 hash 为 0 导致重复计算
             }
@@ -748,58 +901,6 @@ public final class Rational implements Comparable<Rational> {
         return h;
     }
 
-    /**
-     * 获取用于缓存的键。
-     * 注意：对于非常大的 BigInteger，toString() 可能很慢。
-     * 可以考虑其他键生成策略，但这会使缓存查找复杂化。
-     */
-    private String getCacheKey() {
-        // 对于常量，直接使用它们的标准字符串表示
-        if (this == ZERO) {
-            return "0";
-        }
-        if (this == ONE) {
-            return "1";
-        }
-        if (this == HALF) {
-            return "1/2";
-        }
-        if (this == INFINITY) {
-            return "∞";
-        }
-        if (this == NEG_INFINITY) {
-            return "-∞";
-        }
-        if (this == NaN) {
-            return "NaN";
-        }
-
-        // 对于整数，使用 "num/1" 格式
-        if (this.denominator.equals(BIG_INT_ONE)) {
-            return this.numerator.toString() + "/1";
-        }
-        // 对于其他分数
-        return this.numerator.toString() + "/" + this.denominator.toString();
-    }
-
-    /**
-     * 决定一个新创建的 (且未在缓存中的) Rational 是否应该被缓存。
-     * 可以基于数值大小、分母大小等因素。
-     */
-    private static boolean shouldCache(Rational r) {
-        if (r.isNaN() || r.isInfinity()) {
-            return true;
-        }
-        try {
-            int numBitLength = r.numerator.abs().bitLength();
-            int denBitLength = r.denominator.bitLength();
-            return (numBitLength + denBitLength) < 64;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-
     @Override
     public String toString() {
         if (isNaN()) {
@@ -814,13 +915,58 @@ public final class Rational implements Comparable<Rational> {
         if (isZero()) {
             return "0";
         }
-        if (this.denominator.equals(BIG_INT_ONE)) {
-            return this.numerator.toString();
+        if (isSmall()) {
+            return this.den == 1L ? Long.toString(this.num) : this.num + "/" + this.den;
+        }
+        if (this.bigDen.equals(BIG_INT_ONE)) {
+            return this.bigNum.toString();
         }
         // 分数
-        return this.numerator.toString() + "/" + this.denominator.toString();
+        return this.bigNum.toString() + "/" + this.bigDen.toString();
     }
 
+    /**
+     * 小值 Rational 的驻留表，直接以 (num, den) 两个 long 为键，不构造字符串。
+     * 采用定长直接映射：每个键只对应一个槽位，冲突时新值覆盖旧值 (记为一次驱逐)，
+     * 因此内存占用有上界，长时间运行也不会泄漏。
+     * 读写都是对 AtomicReferenceArray 单个槽位的无锁操作；并发下同一数值偶尔可能产生
+     * 两个实例，这只影响共享程度，不影响正确性 (equals 按数值比较)。
+     */
+    private static final class InternTable {
+        private final AtomicReferenceArray<Rational> slots;
+        private final int mask;
+        private final CacheStatistics statistics = new CacheStatistics("Rational.InternTable");
 
-}
+        InternTable(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        Rational intern(long num, long den) {
+            int index = slotIndex(num, den);
+            Rational cached = slots.get(index);
+            if (cached != null && cached.num == num && cached.den == den) {
+                statistics.recordHit();
+                return cached;
+            }
+            statistics.recordMiss();
+            Rational created = new Rational(num, den);
+            if (cached != null) {
+                statistics.recordEviction();
+            }
+            slots.lazySet(index, created);
+            return created;
+        }
 
+        private int slotIndex(long num, long den) {
+            long h = num * 0x9E3779B97F4A7C15L + den;
+            h ^= (h >>> 29);
+            h *= 0xBF58476D1CE4E5B9L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        CacheStatistics getStatistics() {
+            return statistics;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.utils;
+
+import java.math.BigInteger;
+
+/**
+ * 可变的有理数累加器，用于求和与点积，避免每一步都创建新的不可变 Rational。
+ * 内部惰性维护公共分母，只在 toRational() 时约分一次；
+ * 全程使用 long 运算，溢出后提升为 BigInteger。
+ * 无穷与 NaN 按 Rational.add 的语义处理。
+ * 此类不是线程安全的，适合作为方法内的局部变量使用。
+ * @author Ayalyt
+ */
+public final class RationalAccumulator {
+
+    // long 状态：num / den，den > 0，未约分
+    private long num;
+    private long den;
+
+    // 溢出后的 BigInteger 状态，未溢出时为 null
+    private BigInteger bigNum;
+    private BigInteger bigDen;
+
+    // 遇到非有限值 (±∞ / NaN) 后记录在此，之后的有限项不再影响结果
+    private Rational special;
+
+    /**
+     * 创建一个初值为 0 的累加器。
+     */
+    public RationalAccumulator() {
+        reset();
+    }
+
+    /**
+     * 创建一个以给定值为初值的累加器。
+     * @param initial 初值。
+     */
+    public RationalAccumulator(Rational initial) {
+        set(initial);
+    }
+
+    /**
+     * 清零。
+     * @return this
+     */
+    public RationalAccumulator reset() {
+        this.num = 0L;
+        this.den = 1L;
+        this.bigNum = null;
+        this.bigDen = null;
+        this.special = null;
+        return this;
+    }
+
+    /**
+     * 将累加器设置为给定值。
+     * @param value 新值。
+     * @return this
+     */
+    public RationalAccumulator set(Rational value) {
+        reset();
+        return add(value);
+    }
+
+    /**
+     * 累加一个有理数。
+     * @param value 加数。
+     * @return this
+     */
+    public RationalAccumulator add(Rational value) {
+        if (!value.isFinite()) {
+            special = special == null ? value : special.add(value);
+            return this;
+        }
+        if (special != null) {
+            return this;
+        }
+        if (value.isSmall()) {
+            addFraction(value.smallNumerator(), value.smallDenominator());
+        } else {
+            addBig(value.getNumerator(), value.getDenominator());
+        }
+        return this;
+    }
+
+    /**
+     * 减去一个有理数。
+     * @param value 减数。
+     * @return this
+     */
+    public RationalAccumulator subtract(Rational value) {
+        if (!value.isFinite()) {
+            return add(value.negate());
+        }
+        if (special != null) {
+            return this;
+        }
+        if (value.isSmall()) {
+            // 小值表示保证分子不为 Long.MIN_VALUE，取反不会溢出
+            addFraction(-value.smallNumerator(), value.smallDenominator());
+        } else {
+            addBig(value.getNumerator().negate(), value.getDenominator());
+        }
+        return this;
+    }
+
+    /**
+     * 累加乘积 coeff * value，用于点积 (例如线性表达式求值)。
+     * @param coeff 系数。
+     * @param value 值。
+     * @return this
+     */
+    public RationalAccumulator addProduct(Rational coeff, Rational value) {
+        if (!coeff.isFinite() || !value.isFinite()) {
+            return add(coeff.multiply(value));
+        }
+        if (special != null || coeff.isZero() || value.isZero()) {
+            return this;
+        }
+        if (coeff.isSmall() && value.isSmall()) {
+            try {
+                long productNum = Math.multiplyExact(coeff.smallNumerator(), value.smallNumerator());
+                long productDen = Math.multiplyExact(coeff.smallDenominator(), value.smallDenominator());
+                addFraction(productNum, productDen);
+                return this;
+            } catch (ArithmeticException overflow) {
+                // 乘积溢出，走 BigInteger
+            }
+        }
+        addBig(coeff.getNumerator().multiply(value.getNumerator()),
+                coeff.getDenominator().multiply(value.getDenominator()));
+        return this;
+    }
+
+    /**
+     * 取出当前值，此时才进行唯一一次约分。累加器本身保持不变，可继续使用。
+     * @return 当前累加值。
+     */
+    public Rational toRational() {
+        if (special != null) {
+            return special;
+        }
+        if (bigNum != null) {
+            return Rational.valueOf(bigNum, bigDen);
+        }
+        return Rational.valueOf(num, den);
+    }
+
+    // --- 私有辅助方法 ---
+
+    /**
+     * 累加 n / d (d > 0)。分母相同或 d 整除当前公共分母时不扩大分母。
+     */
+    private void addFraction(long n, long d) {
+        if (bigNum != null) {
+            addBig(BigInteger.valueOf(n), BigInteger.valueOf(d));
+            return;
+        }
+        try {
+            if (d == den) {
+                num = Math.addExact(num, n);
+            } else if (den % d == 0) {
+                num = Math.addExact(num, Math.multiplyExact(n, den / d));
+            } else if (num == 0L) {
+                num = n;
+                den = d;
+            } else {
+                long newNum = Math.addExact(Math.multiplyExact(num, d), Math.multiplyExact(n, den));
+                den = Math.multiplyExact(den, d);
+                num = newNum;
+            }
+        } catch (ArithmeticException overflow) {
+            // 状态在异常前未被修改，提升后重新累加
+            promote();
+            addBig(BigInteger.valueOf(n), BigInteger.valueOf(d));
+        }
+    }
+
+    private void addBig(BigInteger n, BigInteger d) {
+        promote();
+        if (bigDen.equals(d)) {
+            bigNum = bigNum.add(n);
+        } else {
+            bigNum = bigNum.multiply(d).add(n.multiply(bigDen));
+            bigDen = bigDen.multiply(d);
+        }
+    }
+
+    private void promote() {
+        if (bigNum == null) {
+            bigNum = BigInteger.valueOf(num);
+            bigDen = BigInteger.valueOf(den);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toRational().toString();
+    }
+}
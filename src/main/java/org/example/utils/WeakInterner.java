@@ -0,0 +1,125 @@
+package org.example.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * 不可变对象的弱引用哈希构造 (hash-consing) 表。
+ * 结构相等的实例经 intern 后共享同一个对象，之后 equals 大多退化为引用比较。
+ * 表项只被弱引用持有，不再被使用的实例会被 GC 回收，不会因驻留而泄漏。
+ * 内部按哈希分段加锁 (每段一个 WeakHashMap)，降低并发竞争。
+ * 全局开关 {@link #setEnabled(boolean)} 关闭后 intern 直接返回原对象。
+ * @param <T> 被驻留的不可变类型，必须正确实现 equals/hashCode
+ * @author Ayalyt
+ */
+public final class WeakInterner<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeakInterner.class);
+
+    private static final int SEGMENT_COUNT = 16;
+
+    // 所有驻留表，用于统一输出统计
+    private static final List<WeakInterner<?>> ALL_INTERNERS = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean enabled = true;
+
+    private final Map<T, WeakReference<T>>[] segments;
+    private final CacheStatistics statistics;
+    // 估算单个实例的占用字节数，用于统计节省的内存
+    private final ToLongFunction<T> sizeEstimator;
+    private final LongAdder bytesSaved = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public WeakInterner(String name, ToLongFunction<T> sizeEstimator) {
+        this.segments = new Map[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            this.segments[i] = new WeakHashMap<>();
+        }
+        this.statistics = new CacheStatistics(name);
+        this.sizeEstimator = sizeEstimator;
+        ALL_INTERNERS.add(this);
+    }
+
+    /**
+     * 返回与 candidate 结构相等的共享实例；表中没有时登记 candidate 本身。
+     * @param candidate 新构造的实例。
+     * @return 共享实例。
+     */
+    public T intern(T candidate) {
+        if (!enabled) {
+            return candidate;
+        }
+        int h = candidate.hashCode();
+        Map<T, WeakReference<T>> segment = segments[(h ^ (h >>> 16)) & (SEGMENT_COUNT - 1)];
+        synchronized (segment) {
+            WeakReference<T> ref = segment.get(candidate);
+            T existing = ref == null ? null : ref.get();
+            if (existing != null) {
+                statistics.recordHit();
+                bytesSaved.add(sizeEstimator.applyAsLong(candidate));
+                return existing;
+            }
+            segment.put(candidate, new WeakReference<>(candidate));
+        }
+        statistics.recordMiss();
+        return candidate;
+    }
+
+    /**
+     * 当前存活的驻留实例数。
+     */
+    public int size() {
+        int total = 0;
+        for (Map<T, WeakReference<T>> segment : segments) {
+            synchronized (segment) {
+                total += segment.size();
+            }
+        }
+        return total;
+    }
+
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 命中时丢弃的重复实例的估算字节数之和。
+     */
+    public long getEstimatedBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * 打开或关闭所有驻留表。关闭后已驻留的实例仍然有效，只是不再共享新实例。
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 以 INFO 级别输出所有驻留表的命中率、存活实例数和估算节省的内存。
+     */
+    public static void logStatistics() {
+        for (WeakInterner<?> interner : ALL_INTERNERS) {
+            logger.info("{} live={} saved≈{} KiB", interner.statistics, interner.size(),
+                    interner.getEstimatedBytesSaved() / 1024);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return statistics + " live=" + size() + " savedBytes=" + getEstimatedBytesSaved();
+    }
+}
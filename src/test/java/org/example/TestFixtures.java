@@ -0,0 +1,87 @@
+package org.example;
+
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.core.ParameterValuation;
+import org.example.expressions.RelationType;
+import org.example.expressions.dcs.PDBM;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.symbolic.Z3Oracle;
+import org.example.utils.Rational;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * 测试共用的构造方法：Oracle、随机参数约束，以及把 PDBM 在具体参数取值上实例化。
+ * @author Ayalyt
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    /**
+     * 创建使用指定后端的 Oracle，其余设置为默认值。
+     */
+    public static Z3Oracle oracle(Z3Oracle.Backend backend, Parameter[] parameters, Collection<Clock> clocks) {
+        Z3Oracle oracle = new Z3Oracle(new HashSet<>(Arrays.asList(parameters)), new HashSet<>(clocks));
+        oracle.setBackend(backend);
+        return oracle;
+    }
+
+    /**
+     * 使用本地单纯形后端的 Oracle，不需要 Z3。
+     */
+    public static Z3Oracle simplexOracle(Parameter[] parameters, Collection<Clock> clocks) {
+        return oracle(Z3Oracle.Backend.SIMPLEX, parameters, clocks);
+    }
+
+    public static Parameter[] newParameters(int count) {
+        Parameter[] parameters = new Parameter[count];
+        for (int k = 0; k < count; k++) {
+            parameters[k] = Parameter.createNewParameter();
+        }
+        return parameters;
+    }
+
+    /**
+     * Σ aᵢ·pᵢ + c ~ 0：每个参数以 1/2 的概率出现，系数取自 [-3, 3]，常数取自 [-8, 8]，关系任取。
+     */
+    public static ParameterConstraint randomConstraint(Random random, Parameter[] parameters) {
+        LinearExpression expr = LinearExpression.of(Rational.valueOf(random.nextInt(17) - 8));
+        for (Parameter parameter : parameters) {
+            if (random.nextBoolean()) {
+                expr = expr.add(LinearExpression.of(parameter, Rational.valueOf(random.nextInt(7) - 3)));
+            }
+        }
+        return ParameterConstraint.of(expr, LinearExpression.of(Rational.ZERO), randomRelation(random));
+    }
+
+    public static RelationType randomRelation(Random random) {
+        RelationType[] relations = RelationType.values();
+        return relations[random.nextInt(relations.length)];
+    }
+
+    /**
+     * 把 PDBM 的各单元格在给定参数取值上求值，null 表示 ∞。
+     */
+    public static Rational[][] instantiate(PDBM pdbm, ParameterValuation valuation) {
+        int n = pdbm.getSize();
+        Rational[][] values = new Rational[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                LinearExpression bound = pdbm.getBound(i, j);
+                values[i][j] = isInfinite(bound) ? null : bound.evaluate(valuation);
+            }
+        }
+        return values;
+    }
+
+    public static boolean isInfinite(LinearExpression bound) {
+        return bound.isConstant() && bound.getConstant().isPositiveInfinity();
+    }
+}
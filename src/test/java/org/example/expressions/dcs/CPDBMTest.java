@@ -0,0 +1,158 @@
+package org.example.expressions.dcs;
+
+import junit.framework.TestCase;
+import org.example.TestFixtures;
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.core.ParameterValuation;
+import org.example.expressions.RelationType;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.symbolic.Z3Oracle;
+import org.example.utils.Rational;
+
+import java.util.*;
+
+/**
+ * (C, D) 对的测试：惰性模式 ({@link CPDBM#lazy}) 下逐条 applyGuard 后一次性 {@link CPDBM#canonical}，
+ * 与立即模式逐条 applyGuard 得到的分支表示同一组区域。两种方式对参数空间的划分可能不同，
+ * 因此在参数网格的每个整数点上比较：两边都恰好有一个分支包含该点或都没有，且分支实例化后相同。
+ * Oracle 使用本地单纯形后端，不需要 Z3。
+ * @author Ayalyt
+ */
+public class CPDBMTest extends TestCase {
+
+    private static final int CLOCKS = 3;
+    private static final int ROUNDS = 60;
+    private static final int MAX_VALUE = 6;
+
+    private List<Clock> clocks;
+    private Parameter[] parameters;
+    private Z3Oracle oracle;
+
+    @Override
+    protected void setUp() {
+        clocks = new ArrayList<>();
+        clocks.add(Clock.ZERO_CLOCK);
+        for (int k = 0; k < CLOCKS; k++) {
+            clocks.add(Clock.createNewClock());
+        }
+        parameters = TestFixtures.newParameters(2);
+        oracle = TestFixtures.simplexOracle(parameters, clocks);
+    }
+
+    @Override
+    protected void tearDown() {
+        oracle.close();
+    }
+
+    public void testLazyCanonicalMatchesEagerApplyGuard() {
+        Random random = new Random(21);
+        ConstraintSet box = ConstraintSet.TRUE_CONSTRAINT_SET;
+        for (Parameter parameter : parameters) {
+            box = box.and(ParameterConstraint.of(LinearExpression.of(parameter),
+                    LinearExpression.of(Rational.valueOf(MAX_VALUE)), RelationType.LE));
+        }
+        PDBM initial = PDBM.createInitial(new HashSet<>(clocks));
+        int splits = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            List<AtomicGuard> guards = randomGuards(random);
+
+            List<CPDBM> eager = Collections.singletonList(CPDBM.of(box, initial));
+            for (AtomicGuard guard : guards) {
+                List<CPDBM> next = new ArrayList<>();
+                for (CPDBM branch : eager) {
+                    next.addAll(branch.applyGuard(guard, oracle));
+                }
+                eager = next;
+            }
+
+            CPDBM pending = CPDBM.lazy(box, initial);
+            for (AtomicGuard guard : guards) {
+                List<CPDBM> next = pending.applyGuard(guard, oracle);
+                assertEquals("惰性模式下 applyGuard 不分裂", 1, next.size());
+                pending = next.get(0);
+            }
+            assertFalse(guards.isEmpty() || pending.isCanonical());
+            List<CPDBM> lazy = pending.canonical(oracle);
+            for (CPDBM branch : lazy) {
+                assertTrue(branch.isLazy());
+                assertTrue(branch.isCanonical());
+            }
+
+            if (eager.size() > 1 || lazy.size() > 1) {
+                splits++;
+            }
+            for (int v0 = 0; v0 <= MAX_VALUE; v0++) {
+                for (int v1 = 0; v1 <= MAX_VALUE; v1++) {
+                    Map<Parameter, Rational> values = new HashMap<>();
+                    values.put(parameters[0], Rational.valueOf(v0));
+                    values.put(parameters[1], Rational.valueOf(v1));
+                    ParameterValuation valuation = ParameterValuation.of(values);
+                    String context = guards + " @ " + valuation;
+                    PDBM expected = containing(eager, valuation, context);
+                    PDBM actual = containing(lazy, valuation, context);
+                    if (expected == null || actual == null) {
+                        assertEquals("只有一种方式得到非空区域: " + context, expected, actual);
+                    } else {
+                        assertSameAt(expected, actual, valuation, context);
+                    }
+                }
+            }
+        }
+        assertTrue("随机约束应触发分裂", splits > 0);
+    }
+
+    // --- 辅助方法 ---
+
+    /**
+     * 随机的差分约束 ci - cj (&lt;|&lt;=) c [+ p]，含零时钟。
+     */
+    private List<AtomicGuard> randomGuards(Random random) {
+        List<AtomicGuard> guards = new ArrayList<>();
+        int count = 1 + random.nextInt(5);
+        for (int k = 0; k < count; k++) {
+            int i = random.nextInt(clocks.size());
+            int j = random.nextInt(clocks.size() - 1);
+            if (j >= i) {
+                j++;
+            }
+            LinearExpression bound = LinearExpression.of(Rational.valueOf(random.nextInt(12) - 4));
+            if (random.nextBoolean()) {
+                bound = bound.add(LinearExpression.of(parameters[random.nextInt(parameters.length)]));
+            }
+            guards.add(AtomicGuard.of(clocks.get(i), clocks.get(j), bound,
+                    random.nextBoolean() ? RelationType.LT : RelationType.LE));
+        }
+        return guards;
+    }
+
+    /**
+     * 参数约束集包含该取值的分支；分支互不相交，至多一个。
+     */
+    private static PDBM containing(List<CPDBM> branches, ParameterValuation valuation, String context) {
+        PDBM result = null;
+        for (CPDBM branch : branches) {
+            if (branch.getConstraintSet().isSatisfiedBy(valuation)) {
+                assertNull("分支的参数约束集应互不相交: " + context, result);
+                result = branch.getPdbm();
+            }
+        }
+        return result;
+    }
+
+    private static void assertSameAt(PDBM expected, PDBM actual, ParameterValuation valuation, String context) {
+        Rational[][] expectedValues = TestFixtures.instantiate(expected, valuation);
+        Rational[][] actualValues = TestFixtures.instantiate(actual, valuation);
+        for (int i = 0; i < expected.getSize(); i++) {
+            for (int j = 0; j < expected.getSize(); j++) {
+                String cell = "单元格 (" + i + ", " + j + ") " + context + "\n" + expected + "\n" + actual;
+                assertEquals(cell, expectedValues[i][j], actualValues[i][j]);
+                if (expectedValues[i][j] != null) {
+                    assertEquals(cell, expected.isStrict(i, j), actual.isStrict(i, j));
+                }
+            }
+        }
+    }
+}
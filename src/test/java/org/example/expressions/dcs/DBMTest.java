@@ -0,0 +1,222 @@
+package org.example.expressions.dcs;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * 整数 DBM 快速路径的测试：规范化与朴素 Floyd-Warshall 参考实现对照，
+ * 增量闭包、delay、reset 与包含判定与其定义对照。
+ * @author Ayalyt
+ */
+public class DBMTest extends TestCase {
+
+    private static final int ROUNDS = 500;
+
+    public void testBoundEncodingOrder() {
+        assertTrue(DBM.bound(3, true) < DBM.bound(3, false));
+        assertTrue(DBM.bound(3, false) < DBM.bound(4, true));
+        assertTrue(DBM.bound(-5, false) < DBM.bound(0, true));
+        assertTrue(DBM.bound(DBM.MAX_CONSTANT, false) < DBM.INFINITY);
+        assertEquals(-7, DBM.boundValue(DBM.bound(-7, true)));
+        assertTrue(DBM.isStrict(DBM.bound(2, true)));
+        assertFalse(DBM.isStrict(DBM.bound(2, false)));
+        assertEquals(DBM.bound(5, true), DBM.add(DBM.bound(2, true), DBM.bound(3, false)));
+        assertEquals(DBM.bound(5, false), DBM.add(DBM.bound(2, false), DBM.bound(3, false)));
+        assertEquals(DBM.INFINITY, DBM.add(DBM.INFINITY, DBM.bound(-3, false)));
+    }
+
+    public void testBoundOutOfRange() {
+        try {
+            DBM.bound(DBM.MAX_CONSTANT + 1, false);
+            fail("超出范围的常数应当抛出 ArithmeticException");
+        } catch (ArithmeticException expected) {
+            // 预期
+        }
+    }
+
+    public void testCanonicalMatchesReference() {
+        Random random = new Random(1);
+        int empty = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            int size = 2 + random.nextInt(5);
+            long[] raw = randomMatrix(random, size);
+            DBM canonical = DBM.of(size, raw).canonical();
+            long[] expected = referenceClosure(size, raw);
+            if (expected == null) {
+                assertNull("参考实现判定为空，DBM 应返回 null", canonical);
+                empty++;
+                continue;
+            }
+            assertNotNull("参考实现判定非空: " + DBM.of(size, raw), canonical);
+            assertMatrix(size, expected, canonical);
+            assertSame("规范形式再次规范化应返回自身", canonical, canonical.canonical());
+        }
+        assertTrue("随机矩阵应覆盖空区域", empty > 0);
+        assertTrue("随机矩阵应覆盖非空区域", empty < ROUNDS);
+    }
+
+    public void testConstrainMatchesFullClosure() {
+        Random random = new Random(2);
+        for (int round = 0; round < ROUNDS; round++) {
+            int size = 2 + random.nextInt(5);
+            DBM canonical = DBM.of(size, randomMatrix(random, size)).canonical();
+            if (canonical == null) {
+                continue;
+            }
+            int i = random.nextInt(size);
+            int j = random.nextInt(size);
+            if (i == j) {
+                continue;
+            }
+            long raw = randomBound(random);
+            DBM expected = canonical.get(i, j) <= raw ? canonical : canonical.with(i, j, raw).canonical();
+            DBM actual = canonical.constrain(i, j, raw);
+            assertEquals("constrain(" + i + ", " + j + ", " + raw + ") 与完整闭包不一致", expected, actual);
+        }
+    }
+
+    public void testDelayAndResetPreserveCanonicalForm() {
+        Random random = new Random(3);
+        for (int round = 0; round < ROUNDS; round++) {
+            int size = 2 + random.nextInt(5);
+            DBM canonical = DBM.of(size, randomMatrix(random, size)).canonical();
+            if (canonical == null) {
+                continue;
+            }
+            DBM delayed = canonical.delay();
+            for (int i = 1; i < size; i++) {
+                assertEquals(DBM.INFINITY, delayed.get(i, 0));
+            }
+            assertEquals(delayed, delayed.canonical());
+            assertTrue(canonical.isIncludedIn(delayed));
+
+            int r = 1 + random.nextInt(size - 1);
+            long value = random.nextInt(6);
+            DBM reset = canonical.reset(r, value);
+            assertEquals(DBM.bound(value, false), reset.get(r, 0));
+            assertEquals(DBM.bound(-value, false), reset.get(0, r));
+            assertEquals(reset, reset.canonical());
+        }
+    }
+
+    public void testInclusion() {
+        Random random = new Random(4);
+        for (int round = 0; round < ROUNDS; round++) {
+            int size = 2 + random.nextInt(5);
+            DBM canonical = DBM.of(size, randomMatrix(random, size)).canonical();
+            if (canonical == null) {
+                continue;
+            }
+            assertTrue(canonical.isIncludedIn(canonical));
+            assertTrue(canonical.isIncludedIn(DBM.initial(size)));
+            int i = random.nextInt(size);
+            int j = random.nextInt(size);
+            if (i == j) {
+                continue;
+            }
+            DBM tighter = canonical.constrain(i, j, randomBound(random));
+            if (tighter != null) {
+                assertTrue(tighter.isIncludedIn(canonical));
+                assertEquals(tighter.equals(canonical), canonical.isIncludedIn(tighter));
+            }
+        }
+    }
+
+    public void testExtrapolationOnlyLoosens() {
+        Random random = new Random(5);
+        for (int round = 0; round < ROUNDS; round++) {
+            int size = 2 + random.nextInt(5);
+            DBM canonical = DBM.of(size, randomMatrix(random, size)).canonical();
+            if (canonical == null) {
+                continue;
+            }
+            long[] lower = new long[size];
+            long[] upper = new long[size];
+            for (int k = 1; k < size; k++) {
+                lower[k] = random.nextInt(8);
+                upper[k] = random.nextInt(8);
+            }
+            DBM extrapolated = canonical.extrapolate(lower, upper).canonical();
+            assertNotNull(extrapolated);
+            assertTrue(canonical.isIncludedIn(extrapolated));
+        }
+    }
+
+    // --- 辅助方法 ---
+
+    /**
+     * 随机矩阵：对角线为 (0, &lt;=)，x0 - ci &lt;= 0，其余单元格约 30% 为 ∞。
+     */
+    private static long[] randomMatrix(Random random, int size) {
+        long[] m = new long[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (i == j || i == 0) {
+                    m[i * size + j] = DBM.LE_ZERO;
+                } else if (random.nextInt(10) < 3) {
+                    m[i * size + j] = DBM.INFINITY;
+                } else {
+                    m[i * size + j] = randomBound(random);
+                }
+            }
+        }
+        return m;
+    }
+
+    private static long randomBound(Random random) {
+        return DBM.bound(random.nextInt(15) - 4, random.nextBoolean());
+    }
+
+    /**
+     * 朴素的 Floyd-Warshall：边界以 (常数, 是否严格) 表示，不使用 DBM 的编码。区域为空时返回 null。
+     */
+    private static long[] referenceClosure(int size, long[] raw) {
+        long[] value = new long[size * size];
+        boolean[] strict = new boolean[size * size];
+        boolean[] infinite = new boolean[size * size];
+        for (int index = 0; index < raw.length; index++) {
+            infinite[index] = raw[index] == DBM.INFINITY;
+            if (!infinite[index]) {
+                value[index] = DBM.boundValue(raw[index]);
+                strict[index] = DBM.isStrict(raw[index]);
+            }
+        }
+        for (int k = 0; k < size; k++) {
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    int ik = i * size + k;
+                    int kj = k * size + j;
+                    int ij = i * size + j;
+                    if (infinite[ik] || infinite[kj]) {
+                        continue;
+                    }
+                    long sum = value[ik] + value[kj];
+                    boolean sumStrict = strict[ik] || strict[kj];
+                    if (infinite[ij] || sum < value[ij] || (sum == value[ij] && sumStrict && !strict[ij])) {
+                        infinite[ij] = false;
+                        value[ij] = sum;
+                        strict[ij] = sumStrict;
+                    }
+                }
+            }
+        }
+        long[] result = new long[size * size];
+        for (int index = 0; index < raw.length; index++) {
+            int i = index / size;
+            if (index == i * size + i && (value[index] < 0 || (value[index] == 0 && strict[index]))) {
+                return null;
+            }
+            result[index] = infinite[index] ? DBM.INFINITY : DBM.bound(value[index], strict[index]);
+        }
+        return result;
+    }
+
+    private static void assertMatrix(int size, long[] expected, DBM actual) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                assertEquals("单元格 (" + i + ", " + j + ")", expected[i * size + j], actual.get(i, j));
+            }
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package org.example.expressions.dcs;
+
+import junit.framework.TestCase;
+import org.example.TestFixtures;
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.core.ParameterValuation;
+import org.example.expressions.RelationType;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.symbolic.Z3Oracle;
+import org.example.utils.CacheStatistics;
+import org.example.utils.Rational;
+
+import java.util.*;
+
+/**
+ * 参数化闭包的测试：把 PDBM 的符号 Floyd-Warshall、增量闭包 (close-ij) 与最小约束形式在具体参数取值上实例化，
+ * 与有理数上的朴素 Floyd-Warshall 参考实现对照。Oracle 使用本地单纯形后端，不需要 Z3。
+ * @author Ayalyt
+ */
+public class PDBMClosureTest extends TestCase {
+
+    private static final int CLOCKS = 3;
+    private static final int ROUNDS = 150;
+
+    private List<Clock> clocks;
+    private Parameter[] parameters;
+    private Z3Oracle oracle;
+
+    @Override
+    protected void setUp() {
+        clocks = new ArrayList<>();
+        clocks.add(Clock.ZERO_CLOCK);
+        for (int k = 0; k < CLOCKS; k++) {
+            clocks.add(Clock.createNewClock());
+        }
+        parameters = new Parameter[]{Parameter.createNewParameter(), Parameter.createNewParameter()};
+        oracle = TestFixtures.simplexOracle(parameters, clocks);
+    }
+
+    @Override
+    protected void tearDown() {
+        oracle.close();
+    }
+
+    /**
+     * 参数被 C 固定为具体值时闭包不会分裂，结果在该取值上应等于参考闭包。
+     */
+    public void testClosureWithPinnedParameters() {
+        Random random = new Random(11);
+        for (int round = 0; round < ROUNDS; round++) {
+            ParameterValuation valuation = randomValuation(random);
+            ConstraintSet pinned = pin(valuation);
+            List<AtomicGuard> guards = randomGuards(random, true);
+            PDBM initial = PDBM.createInitial(new HashSet<>(clocks));
+
+            List<CPDBM> batch = initial.addGuards(guards, pinned, oracle);
+            assertTrue("固定参数时不应分裂", batch.size() <= 1);
+            assertAgainstReference(initial, guards, valuation, batch);
+
+            // 逐条 addGuard (close-ij) 与一次性合取的结果相同
+            List<CPDBM> stepwise = Collections.singletonList(CPDBM.of(pinned, initial));
+            for (AtomicGuard guard : guards) {
+                List<CPDBM> next = new ArrayList<>();
+                for (CPDBM branch : stepwise) {
+                    next.addAll(branch.getPdbm().addGuard(guard, branch.getConstraintSet(), oracle));
+                }
+                stepwise = next;
+            }
+            assertAgainstReference(initial, guards, valuation, stepwise);
+        }
+    }
+
+    /**
+     * 参数在区间内变化时闭包会分裂：各分支的参数约束集互不相交，
+     * 每个使区域非空的整数取值恰好落在一个分支中，且该分支实例化后等于参考闭包。
+     */
+    public void testClosureSplitsParameterSpace() {
+        Random random = new Random(12);
+        ConstraintSet box = ConstraintSet.TRUE_CONSTRAINT_SET;
+        for (Parameter parameter : parameters) {
+            box = box.and(ParameterConstraint.of(LinearExpression.of(parameter), LinearExpression.of(Rational.valueOf(6)),
+                    RelationType.LE));
+        }
+        int splits = 0;
+        for (int round = 0; round < ROUNDS / 3; round++) {
+            List<AtomicGuard> guards = randomGuards(random, true);
+            PDBM initial = PDBM.createInitial(new HashSet<>(clocks));
+            List<CPDBM> branches = initial.addGuards(guards, box, oracle);
+            if (branches.size() > 1) {
+                splits++;
+            }
+            for (int v0 = 0; v0 <= 6; v0++) {
+                for (int v1 = 0; v1 <= 6; v1++) {
+                    Map<Parameter, Rational> values = new HashMap<>();
+                    values.put(parameters[0], Rational.valueOf(v0));
+                    values.put(parameters[1], Rational.valueOf(v1));
+                    ParameterValuation valuation = ParameterValuation.of(values);
+                    List<CPDBM> containing = new ArrayList<>();
+                    for (CPDBM branch : branches) {
+                        if (branch.getConstraintSet().isSatisfiedBy(valuation)) {
+                            containing.add(branch);
+                        }
+                    }
+                    assertTrue("分支的参数约束集应互不相交", containing.size() <= 1);
+                    assertAgainstReference(initial, guards, valuation, containing);
+                }
+            }
+        }
+        assertTrue("随机约束应触发分裂", splits > 0);
+    }
+
+    /**
+     * 规范形式经 delay 后重新规范化，与参考实现在 delay 后的闭包相同。
+     */
+    public void testCanonicalAfterDelay() {
+        Random random = new Random(13);
+        for (int round = 0; round < ROUNDS; round++) {
+            ParameterValuation valuation = randomValuation(random);
+            ConstraintSet pinned = pin(valuation);
+            List<AtomicGuard> guards = randomGuards(random, true);
+            for (CPDBM branch : PDBM.createInitial(new HashSet<>(clocks)).addGuards(guards, pinned, oracle)) {
+                PDBM delayed = branch.getPdbm().delay();
+                Rational[][] expected = TestFixtures.instantiate(delayed, valuation);
+                boolean[][] strict = strictness(delayed);
+                assertTrue(referenceClosure(expected, strict));
+                List<CPDBM> closed = delayed.canonical(branch.getConstraintSet(), oracle);
+                assertEquals(1, closed.size());
+                assertMatrix(expected, strict, closed.get(0).getPdbm(), valuation);
+            }
+        }
+    }
+
+    /**
+     * 边界比较的语法预判定应省去相当一部分 Oracle 查询 (结果的正确性由上面与参考实现的对照保证)。
+     */
+    public void testPreDecisionAvoidsOracleQueries() {
+        Random random = new Random(16);
+        CacheStatistics statistics = PDBM.getPreDecisionStatistics();
+        statistics.reset();
+        for (int round = 0; round < ROUNDS; round++) {
+            ConstraintSet box = ConstraintSet.TRUE_CONSTRAINT_SET;
+            for (Parameter parameter : parameters) {
+                box = box.and(ParameterConstraint.of(LinearExpression.of(parameter),
+                        LinearExpression.of(Rational.valueOf(1 + random.nextInt(6))), RelationType.LE));
+            }
+            PDBM initial = PDBM.createInitial(new HashSet<>(clocks));
+            for (CPDBM branch : initial.addGuards(randomGuards(random, true), box, oracle)) {
+                branch.getPdbm().delay().canonical(branch.getConstraintSet(), oracle);
+            }
+        }
+        assertTrue(statistics.toString(), statistics.getHitRate() >= 0.5);
+    }
+
+    /**
+     * 不含参数的区域走整数 DBM 快速路径，结果同样等于参考闭包。
+     */
+    public void testConcreteFastPath() {
+        Random random = new Random(14);
+        ParameterValuation valuation = randomValuation(random);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<AtomicGuard> guards = randomGuards(random, false);
+            PDBM initial = PDBM.createInitial(new HashSet<>(clocks));
+            assertAgainstReference(initial, guards, valuation,
+                    initial.addGuards(guards, ConstraintSet.TRUE_CONSTRAINT_SET, oracle));
+        }
+    }
+
+    /**
+     * 最小约束形式还原后重新规范化得到同一区域，且对 equals 相等的 PDBM 是确定的。
+     */
+    public void testMinimalFormRoundTrip() {
+        Random random = new Random(15);
+        for (int round = 0; round < ROUNDS; round++) {
+            ParameterValuation valuation = randomValuation(random);
+            ConstraintSet pinned = pin(valuation);
+            for (CPDBM branch : PDBM.createInitial(new HashSet<>(clocks))
+                    .addGuards(randomGuards(random, round % 2 == 0), pinned, oracle)) {
+                PDBM zone = branch.getPdbm();
+                MinimalPDBM minimal = zone.toMinimal();
+                assertEquals(minimal, zone.toMinimal());
+                assertTrue(minimal.getEdgeCount() <= zone.getSize() * (zone.getSize() - 1));
+                assertTrue(zone.includedIn(minimal, branch.getConstraintSet(), oracle));
+                List<CPDBM> restored = minimal.toPDBM().canonical(branch.getConstraintSet(), oracle);
+                assertEquals(1, restored.size());
+                assertMatrix(TestFixtures.instantiate(zone, valuation), strictness(zone), restored.get(0).getPdbm(), valuation);
+            }
+        }
+    }
+
+    // --- 辅助方法 ---
+
+    private ParameterValuation randomValuation(Random random) {
+        Map<Parameter, Rational> values = new HashMap<>();
+        for (Parameter parameter : parameters) {
+            values.put(parameter, Rational.valueOf(random.nextInt(8)));
+        }
+        return ParameterValuation.of(values);
+    }
+
+    /**
+     * p = v 的约束集 (p &lt;= v 且 p &gt;= v)。
+     */
+    private ConstraintSet pin(ParameterValuation valuation) {
+        ConstraintSet result = ConstraintSet.TRUE_CONSTRAINT_SET;
+        for (Parameter parameter : parameters) {
+            LinearExpression value = LinearExpression.of(valuation.getValue(parameter));
+            result = result.and(ParameterConstraint.of(LinearExpression.of(parameter), value, RelationType.LE));
+            result = result.and(ParameterConstraint.of(LinearExpression.of(parameter), value, RelationType.GE));
+        }
+        return result;
+    }
+
+    /**
+     * 随机的差分约束 ci - cj (&lt;|&lt;=) c [+ p]，含零时钟，因此既有上界也有下界。
+     */
+    private List<AtomicGuard> randomGuards(Random random, boolean parametric) {
+        List<AtomicGuard> guards = new ArrayList<>();
+        int count = 1 + random.nextInt(5);
+        for (int k = 0; k < count; k++) {
+            int i = random.nextInt(clocks.size());
+            int j = random.nextInt(clocks.size() - 1);
+            if (j >= i) {
+                j++;
+            }
+            LinearExpression bound = LinearExpression.of(Rational.valueOf(random.nextInt(12) - 4));
+            if (parametric && random.nextInt(3) == 0) {
+                bound = bound.add(LinearExpression.of(parameters[random.nextInt(parameters.length)]));
+            }
+            guards.add(AtomicGuard.of(clocks.get(i), clocks.get(j), bound,
+                    random.nextBoolean() ? RelationType.LT : RelationType.LE));
+        }
+        return guards;
+    }
+
+    /**
+     * 在给定取值上用参考实现计算 initial ∧ guards 的闭包，并与结果分支对照 (区域为空时结果应为空列表)。
+     */
+    private void assertAgainstReference(PDBM initial, List<AtomicGuard> guards, ParameterValuation valuation,
+                                        List<CPDBM> actual) {
+        Rational[][] expected = TestFixtures.instantiate(initial, valuation);
+        boolean[][] strict = strictness(initial);
+        for (AtomicGuard guard : guards) {
+            // AtomicGuard 可能以 c1 - c2 >= e 的形式保存，等价于上界 c2 - c1 <= -e
+            boolean upper = guard.getRelation() == RelationType.LE || guard.getRelation() == RelationType.LT;
+            int i = initial.getClockList().indexOf(upper ? guard.getClock1() : guard.getClock2());
+            int j = initial.getClockList().indexOf(upper ? guard.getClock2() : guard.getClock1());
+            Rational value = guard.getBound().evaluate(valuation);
+            if (!upper) {
+                value = value.negate();
+            }
+            boolean guardStrict = guard.getRelation() == RelationType.LT || guard.getRelation() == RelationType.GT;
+            if (tighter(value, guardStrict, expected[i][j], strict[i][j])) {
+                expected[i][j] = value;
+                strict[i][j] = guardStrict;
+            }
+        }
+        if (!referenceClosure(expected, strict)) {
+            assertTrue("参考实现判定为空: " + guards + " @ " + valuation, actual.isEmpty());
+            return;
+        }
+        assertEquals("参考实现判定非空: " + guards + " @ " + valuation, 1, actual.size());
+        assertMatrix(expected, strict, actual.get(0).getPdbm(), valuation);
+    }
+
+    private static boolean[][] strictness(PDBM pdbm) {
+        int n = pdbm.getSize();
+        boolean[][] strict = new boolean[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                strict[i][j] = pdbm.isStrict(i, j);
+            }
+        }
+        return strict;
+    }
+
+    /**
+     * (value, strict) 是否严格紧于 (current, currentStrict)；null 表示 ∞。
+     */
+    private static boolean tighter(Rational value, boolean strict, Rational current, boolean currentStrict) {
+        if (current == null) {
+            return true;
+        }
+        int cmp = value.compareTo(current);
+        return cmp < 0 || (cmp == 0 && strict && !currentStrict);
+    }
+
+    /**
+     * 有理数上的朴素 Floyd-Warshall，原地修改；区域为空时返回 false。
+     */
+    private static boolean referenceClosure(Rational[][] values, boolean[][] strict) {
+        int n = values.length;
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (values[i][k] == null || values[k][j] == null) {
+                        continue;
+                    }
+                    Rational sum = values[i][k].add(values[k][j]);
+                    boolean sumStrict = strict[i][k] || strict[k][j];
+                    if (tighter(sum, sumStrict, values[i][j], strict[i][j])) {
+                        values[i][j] = sum;
+                        strict[i][j] = sumStrict;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (tighter(values[i][i], strict[i][i], Rational.ZERO, false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void assertMatrix(Rational[][] expected, boolean[][] strict, PDBM actual, ParameterValuation valuation) {
+        Rational[][] values = TestFixtures.instantiate(actual, valuation);
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected.length; j++) {
+                String cell = "单元格 (" + i + ", " + j + ") @ " + valuation + "\n" + actual;
+                assertEquals(cell, expected[i][j], values[i][j]);
+                if (expected[i][j] != null) {
+                    assertEquals(cell, strict[i][j], actual.isStrict(i, j));
+                }
+            }
+        }
+    }
+
+}
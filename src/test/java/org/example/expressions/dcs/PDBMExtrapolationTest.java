@@ -0,0 +1,158 @@
+package org.example.expressions.dcs;
+
+import junit.framework.TestCase;
+import org.example.TestFixtures;
+import org.example.automata.base.ResetSet;
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.expressions.RelationType;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.symbolic.Z3Oracle;
+import org.example.utils.Rational;
+
+import java.util.*;
+
+/**
+ * 区域外推的测试：从所有时钟为 0 出发，在循环 delay → x == b → reset x 上做前向探索。y 从不重置，
+ * 第 k 轮后 y - x == k·b，不外推时每轮都得到互不包含的新区域，探索到步数上限也不收敛；
+ * 两种外推方式下都应在少数几个区域后收敛，且每个外推结果都包含其输入。
+ * Oracle 使用本地单纯形后端，不需要 Z3。
+ * @author Ayalyt
+ */
+public class PDBMExtrapolationTest extends TestCase {
+
+    private static final int MAX_STEPS = 60;
+    private static final int MAX_ZONES = 3;
+
+    private Clock x;
+    private Clock y;
+    private Set<Clock> clocks;
+    private Parameter p;
+    private Z3Oracle oracle;
+
+    @Override
+    protected void setUp() {
+        x = Clock.createNewClock();
+        y = Clock.createNewClock();
+        clocks = new HashSet<>(Arrays.asList(Clock.ZERO_CLOCK, x, y));
+        p = Parameter.createNewParameter();
+        oracle = TestFixtures.simplexOracle(new Parameter[]{p}, clocks);
+    }
+
+    @Override
+    protected void tearDown() {
+        oracle.close();
+    }
+
+    public void testConcreteLoopDivergesWithoutExtrapolation() {
+        assertEquals(-1, explore(concreteGuards(), ConstraintSet.TRUE_CONSTRAINT_SET, null));
+    }
+
+    public void testConcreteLoopConverges() {
+        for (ClockBounds.Extrapolation mode : ClockBounds.Extrapolation.values()) {
+            int zones = explore(concreteGuards(), ConstraintSet.TRUE_CONSTRAINT_SET, mode);
+            assertTrue(mode + " 应收敛，得到 " + zones + " 个区域", zones > 0 && zones <= MAX_ZONES);
+        }
+    }
+
+    public void testParametricLoopDivergesWithoutExtrapolation() {
+        assertEquals(-1, explore(parametricGuards(), boundedParameter(), null));
+    }
+
+    public void testParametricLoopConverges() {
+        for (ClockBounds.Extrapolation mode : ClockBounds.Extrapolation.values()) {
+            int zones = explore(parametricGuards(), boundedParameter(), mode);
+            assertTrue(mode + " 应收敛，得到 " + zones + " 个区域", zones > 0 && zones <= MAX_ZONES);
+        }
+    }
+
+    // --- 辅助方法 ---
+
+    /**
+     * x == 1
+     */
+    private List<AtomicGuard> concreteGuards() {
+        return Arrays.asList(AtomicGuard.greaterEqual(x, Rational.ONE), AtomicGuard.lessEqual(x, Rational.ONE));
+    }
+
+    /**
+     * x - x0 == p
+     */
+    private List<AtomicGuard> parametricGuards() {
+        return Arrays.asList(AtomicGuard.of(x, Clock.ZERO_CLOCK, LinearExpression.of(p), RelationType.GE),
+                AtomicGuard.of(x, Clock.ZERO_CLOCK, LinearExpression.of(p), RelationType.LE));
+    }
+
+    /**
+     * 1 &lt;= p &lt;= 3：p 有上界，U(x) 才是有限值。
+     */
+    private ConstraintSet boundedParameter() {
+        return ConstraintSet.of(ParameterConstraint.of(LinearExpression.of(p), LinearExpression.of(Rational.ONE),
+                        RelationType.GE))
+                .and(ParameterConstraint.of(LinearExpression.of(p), LinearExpression.of(Rational.valueOf(3)),
+                        RelationType.LE));
+    }
+
+    /**
+     * 前向探索单位置循环，新状态被已访问的某个状态包含时不再扩展。
+     *
+     * @param mode 外推方式，null 表示不外推。
+     * @return 收敛时已访问的状态数；超过 {@link #MAX_STEPS} 步仍未收敛时返回 -1。
+     */
+    private int explore(List<AtomicGuard> guards, ConstraintSet constraintSet, ClockBounds.Extrapolation mode) {
+        ResetSet reset = new ResetSet(Collections.singleton(x));
+        ClockBounds clockBounds = ClockBounds.of(guards, Collections.singletonList(reset));
+        PDBM start = PDBM.createInitial(clocks).reset(new ResetSet(new HashSet<>(Arrays.asList(x, y))));
+        List<CPDBM> passed = new ArrayList<>();
+        Deque<CPDBM> waiting = new ArrayDeque<>(
+                post(CPDBM.of(constraintSet, start).delay(oracle), clockBounds, mode));
+        for (int step = 0; step < MAX_STEPS; step++) {
+            CPDBM state = waiting.poll();
+            if (state == null) {
+                return passed.size();
+            }
+            if (isCovered(state, passed)) {
+                continue;
+            }
+            passed.add(state);
+            List<CPDBM> successors = new ArrayList<>();
+            for (CPDBM guarded : state.getPdbm().addGuards(guards, state.getConstraintSet(), oracle)) {
+                for (CPDBM afterReset : guarded.reset(reset, oracle)) {
+                    successors.addAll(afterReset.delay(oracle));
+                }
+            }
+            waiting.addAll(post(successors, clockBounds, mode));
+        }
+        return -1;
+    }
+
+    /**
+     * 对每个状态做外推，并检查外推结果包含输入。
+     */
+    private List<CPDBM> post(List<CPDBM> states, ClockBounds clockBounds, ClockBounds.Extrapolation mode) {
+        if (mode == null) {
+            return states;
+        }
+        List<CPDBM> results = new ArrayList<>();
+        for (CPDBM state : states) {
+            for (CPDBM branch : state.canonical(oracle)) {
+                PDBM extrapolated = branch.getPdbm().extrapolate(clockBounds, mode, branch.getConstraintSet());
+                assertTrue("外推结果应包含输入: " + branch,
+                        branch.getPdbm().includedIn(extrapolated, branch.getConstraintSet(), oracle));
+            }
+            results.addAll(state.extrapolate(clockBounds, mode, oracle));
+        }
+        return results;
+    }
+
+    private boolean isCovered(CPDBM state, List<CPDBM> passed) {
+        for (CPDBM visited : passed) {
+            if (state.includedIn(visited, oracle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.expressions.dcs;
+
+import junit.framework.TestCase;
+import org.example.TestFixtures;
+import org.example.automata.base.ResetSet;
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.expressions.RelationType;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.symbolic.Z3Oracle;
+import org.example.utils.Rational;
+
+import java.util.*;
+
+/**
+ * 结构指纹的测试：指纹在每次操作中增量维护 (补丁、共享数组、闭包分支各自异或更新)，
+ * 逻辑上相同的矩阵无论存储布局如何，equals、指纹与 hashCode 都应相同。
+ * 参照对象用 {@link PDBM#fromEdges} 从全部单元格重建，指纹从头计算。
+ * @author Ayalyt
+ */
+public class PDBMFingerprintTest extends TestCase {
+
+    private static final int CLOCKS = 3;
+    private static final int ROUNDS = 200;
+
+    private List<Clock> clocks;
+    private Parameter[] parameters;
+    private Z3Oracle oracle;
+
+    @Override
+    protected void setUp() {
+        clocks = new ArrayList<>();
+        clocks.add(Clock.ZERO_CLOCK);
+        for (int k = 0; k < CLOCKS; k++) {
+            clocks.add(Clock.createNewClock());
+        }
+        parameters = TestFixtures.newParameters(2);
+        oracle = TestFixtures.simplexOracle(parameters, clocks);
+    }
+
+    @Override
+    protected void tearDown() {
+        oracle.close();
+    }
+
+    /**
+     * 随机的 addGuard / delay / reset 序列中，每个中间结果都与从单元格重建的 PDBM 相等且指纹相同。
+     */
+    public void testIncrementalFingerprintMatchesRebuild() {
+        Random random = new Random(19);
+        ConstraintSet box = box();
+        for (int round = 0; round < ROUNDS; round++) {
+            List<CPDBM> states = Collections.singletonList(CPDBM.of(box, PDBM.createInitial(new HashSet<>(clocks))));
+            for (int step = 0; step < 6 && !states.isEmpty(); step++) {
+                List<CPDBM> next = new ArrayList<>();
+                for (CPDBM state : states) {
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            next.addAll(state.applyGuard(randomGuard(random), oracle));
+                            break;
+                        case 1:
+                            next.addAll(state.delay(oracle));
+                            break;
+                        default:
+                            next.addAll(state.reset(randomReset(random), oracle));
+                            break;
+                    }
+                }
+                for (CPDBM state : next) {
+                    assertSameLogicalMatrix(rebuild(state.getPdbm()), state.getPdbm());
+                }
+                states = next.size() > 4 ? next.subList(0, 4) : next;
+            }
+        }
+    }
+
+    /**
+     * delay().reset() 得到的补丁布局与经最小约束形式还原再规范化得到的完整数组布局表示同一区域。
+     */
+    public void testDelayResetMatchesMinimalRoundTrip() {
+        Random random = new Random(20);
+        ConstraintSet box = box();
+        int compared = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            List<AtomicGuard> guards = new ArrayList<>();
+            for (int k = 1 + random.nextInt(4); k > 0; k--) {
+                guards.add(randomGuard(random));
+            }
+            for (CPDBM branch : PDBM.createInitial(new HashSet<>(clocks)).addGuards(guards, box, oracle)) {
+                PDBM zone = branch.getPdbm().delay().reset(randomReset(random));
+                List<CPDBM> restored = zone.toMinimal().toPDBM().canonical(branch.getConstraintSet(), oracle);
+                assertEquals(1, restored.size());
+                assertSameLogicalMatrix(zone, restored.get(0).getPdbm());
+                compared++;
+            }
+        }
+        assertTrue(compared > 0);
+    }
+
+    // --- 辅助方法 ---
+
+    /**
+     * 0 &lt;= pᵢ &lt;= 5
+     */
+    private ConstraintSet box() {
+        ConstraintSet result = ConstraintSet.TRUE_CONSTRAINT_SET;
+        for (Parameter parameter : parameters) {
+            result = result.and(ParameterConstraint.of(LinearExpression.of(parameter),
+                    LinearExpression.of(Rational.valueOf(5)), RelationType.LE));
+        }
+        return result;
+    }
+
+    private AtomicGuard randomGuard(Random random) {
+        int i = random.nextInt(clocks.size());
+        int j = random.nextInt(clocks.size() - 1);
+        if (j >= i) {
+            j++;
+        }
+        LinearExpression bound = LinearExpression.of(Rational.valueOf(random.nextInt(10) - 3));
+        if (random.nextInt(3) == 0) {
+            bound = bound.add(LinearExpression.of(parameters[random.nextInt(parameters.length)]));
+        }
+        return AtomicGuard.of(clocks.get(i), clocks.get(j), bound, random.nextBoolean() ? RelationType.LT : RelationType.LE);
+    }
+
+    private ResetSet randomReset(Random random) {
+        Map<Clock, Rational> resets = new HashMap<>();
+        resets.put(clocks.get(1 + random.nextInt(CLOCKS)), Rational.valueOf(random.nextInt(3)));
+        return new ResetSet(resets);
+    }
+
+    /**
+     * 以全部非对角单元格为边重建，得到不共享存储、无补丁的完整数组布局。
+     */
+    private static PDBM rebuild(PDBM pdbm) {
+        int n = pdbm.getSize();
+        int[] edges = new int[n * (n - 1)];
+        LinearExpression[] bounds = new LinearExpression[edges.length];
+        boolean[] strict = new boolean[edges.length];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    edges[k] = i * n + j;
+                    bounds[k] = pdbm.getBound(i, j);
+                    strict[k] = pdbm.isStrict(i, j);
+                    k++;
+                }
+            }
+        }
+        return PDBM.fromEdges(pdbm.getClockList(), pdbm.getClockIndexMap(), edges, bounds, strict);
+    }
+
+    private static void assertSameLogicalMatrix(PDBM expected, PDBM actual) {
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals("指纹\n" + actual, expected.getFingerprint(), actual.getFingerprint());
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+}
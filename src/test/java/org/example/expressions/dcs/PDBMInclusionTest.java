@@ -0,0 +1,156 @@
+package org.example.expressions.dcs;
+
+import junit.framework.TestCase;
+import org.example.TestFixtures;
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.expressions.RelationType;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.symbolic.Z3Oracle;
+import org.example.utils.Rational;
+
+import java.util.*;
+
+/**
+ * 参数化区域包含判定的测试：C 含多参数约束 (不是区间盒) 时，语法判定无法回答的比较约束成批交给 Oracle，
+ * 结果应与逐单元格调用 {@link Z3Oracle#checkCoverage} 的判定相同。Oracle 使用本地单纯形后端，不需要 Z3。
+ * @author Ayalyt
+ */
+public class PDBMInclusionTest extends TestCase {
+
+    private static final int CLOCKS = 3;
+    private static final int ROUNDS = 200;
+
+    private List<Clock> clocks;
+    private Parameter[] parameters;
+    private Z3Oracle oracle;
+    private Z3Oracle reference;
+
+    @Override
+    protected void setUp() {
+        clocks = new ArrayList<>();
+        clocks.add(Clock.ZERO_CLOCK);
+        for (int k = 0; k < CLOCKS; k++) {
+            clocks.add(Clock.createNewClock());
+        }
+        parameters = TestFixtures.newParameters(2);
+        oracle = TestFixtures.simplexOracle(parameters, clocks);
+        reference = TestFixtures.simplexOracle(parameters, clocks);
+        reference.setPreDecision(false);
+    }
+
+    @Override
+    protected void tearDown() {
+        oracle.close();
+        reference.close();
+    }
+
+    public void testBatchedInclusionMatchesCellwiseCoverage() {
+        Random random = new Random(17);
+        ConstraintSet polytope = polytope();
+        int batched = 0;
+        int included = 0;
+        int notIncluded = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            List<AtomicGuard> guards = randomGuards(random);
+            // 较宽松的一方取 guards 的一个子集，使包含关系经常成立
+            List<AtomicGuard> looser = new ArrayList<>();
+            for (AtomicGuard guard : guards) {
+                if (random.nextInt(3) != 0) {
+                    looser.add(guard);
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                looser = randomGuards(random);
+            }
+            PDBM initial = PDBM.createInitial(new HashSet<>(clocks));
+            for (CPDBM tight : initial.addGuards(guards, polytope, oracle)) {
+                for (CPDBM loose : initial.addGuards(looser, tight.getConstraintSet(), oracle)) {
+                    ConstraintSet constraintSet = loose.getConstraintSet();
+                    boolean expected = cellwiseIncluded(tight.getPdbm(), loose.getPdbm(), constraintSet);
+                    long misses = PDBM.getPreDecisionStatistics().getMisses();
+                    boolean actual = tight.getPdbm().includedIn(loose.getPdbm(), constraintSet, oracle);
+                    if (PDBM.getPreDecisionStatistics().getMisses() - misses >= 2) {
+                        batched++;
+                    }
+                    assertEquals(tight.getPdbm() + "\n⊆\n" + loose.getPdbm() + "\n@ " + constraintSet, expected, actual);
+                    if (actual) {
+                        included++;
+                    } else {
+                        notIncluded++;
+                    }
+                }
+            }
+        }
+        assertTrue("应触发成批的 Oracle 查询", batched > 0);
+        assertTrue("应覆盖包含的情况", included > 0);
+        assertTrue("应覆盖不包含的情况", notIncluded > 0);
+    }
+
+    // --- 辅助方法 ---
+
+    /**
+     * p0 + p1 &lt;= 10，p0 - p1 &lt;= 4，p1 - p0 &lt;= 4：多参数约束，参数区间无法精确表示。
+     */
+    private ConstraintSet polytope() {
+        LinearExpression p0 = LinearExpression.of(parameters[0]);
+        LinearExpression p1 = LinearExpression.of(parameters[1]);
+        LinearExpression four = LinearExpression.of(Rational.valueOf(4));
+        return ConstraintSet.of(ParameterConstraint.of(p0.add(p1), LinearExpression.of(Rational.valueOf(10)),
+                        RelationType.LE))
+                .and(ParameterConstraint.of(p0.subtract(p1), four, RelationType.LE))
+                .and(ParameterConstraint.of(p1.subtract(p0), four, RelationType.LE));
+    }
+
+    /**
+     * 随机的差分约束 ci - cj (&lt;|&lt;=) c [+ p0] [- p1]，含零时钟。
+     */
+    private List<AtomicGuard> randomGuards(Random random) {
+        List<AtomicGuard> guards = new ArrayList<>();
+        int count = 2 + random.nextInt(4);
+        for (int k = 0; k < count; k++) {
+            int i = random.nextInt(clocks.size());
+            int j = random.nextInt(clocks.size() - 1);
+            if (j >= i) {
+                j++;
+            }
+            LinearExpression bound = LinearExpression.of(Rational.valueOf(random.nextInt(10) - 2));
+            if (random.nextBoolean()) {
+                bound = bound.add(LinearExpression.of(parameters[0]));
+            }
+            if (random.nextInt(3) == 0) {
+                bound = bound.subtract(LinearExpression.of(parameters[1]));
+            }
+            guards.add(AtomicGuard.of(clocks.get(i), clocks.get(j), bound,
+                    random.nextBoolean() ? RelationType.LT : RelationType.LE));
+        }
+        return guards;
+    }
+
+    /**
+     * 包含的定义：other 中每个有限单元格 (e', ~') 处，当前单元格 (e, ~) 不比它宽松，
+     * 即比较约束 e ~'' e' 在 C 上恒真 (当前非严格而 other 严格时 ~'' 为 &lt;，否则为 &lt;=)。逐单元格单独查询。
+     */
+    private boolean cellwiseIncluded(PDBM pdbm, PDBM other, ConstraintSet constraintSet) {
+        for (int i = 0; i < pdbm.getSize(); i++) {
+            for (int j = 0; j < pdbm.getSize(); j++) {
+                LinearExpression otherBound = other.getBound(i, j);
+                if (TestFixtures.isInfinite(otherBound)) {
+                    continue;
+                }
+                LinearExpression bound = pdbm.getBound(i, j);
+                if (TestFixtures.isInfinite(bound)) {
+                    return false;
+                }
+                RelationType relation = !pdbm.isStrict(i, j) && other.isStrict(i, j) ? RelationType.LT : RelationType.LE;
+                ParameterConstraint comparison = ParameterConstraint.of(bound, otherBound, relation);
+                if (reference.checkCoverage(comparison, constraintSet) != Z3Oracle.OracleResult.YES) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.expressions.parameters;
+
+import junit.framework.TestCase;
+import org.example.TestFixtures;
+import org.example.core.Parameter;
+
+import java.util.*;
+
+/**
+ * 约束集共享结构的测试：{@link ConstraintSet#and(ParameterConstraint)} 沿父链构造的约束集
+ * (包括超过 {@link ConstraintSet#MAX_DEPTH} 后展开的) 与从同一组约束直接构造的约束集在
+ * equals、hashCode、compareTo、contains 与参数区间上都一致。
+ * @author Ayalyt
+ */
+public class ConstraintSetTest extends TestCase {
+
+    private static final int ROUNDS = 40;
+
+    private Parameter[] parameters;
+    private int threshold;
+
+    @Override
+    protected void setUp() {
+        parameters = TestFixtures.newParameters(3);
+        // 关闭自动化简，保持合取得到的原始约束
+        threshold = ConstraintSet.getMinimizeThreshold();
+        ConstraintSet.setMinimizeThreshold(0);
+    }
+
+    @Override
+    protected void tearDown() {
+        ConstraintSet.setMinimizeThreshold(threshold);
+    }
+
+    public void testChainedSetMatchesFlatSet() {
+        Random random = new Random(41);
+        for (int round = 0; round < ROUNDS; round++) {
+            ConstraintSet chained = ConstraintSet.TRUE_CONSTRAINT_SET;
+            Set<ParameterConstraint> added = new TreeSet<>();
+            int length = random.nextInt(2 * ConstraintSet.MAX_DEPTH + 8);
+            for (int k = 0; k < length; k++) {
+                ParameterConstraint constraint = TestFixtures.randomConstraint(random, parameters);
+                ConstraintSet next = chained.and(constraint);
+                if (!added.add(constraint)) {
+                    assertSame("已包含的约束不产生新实例", chained, next);
+                }
+                chained = next;
+                assertSameSet(ConstraintSet.of(added), chained, random);
+            }
+        }
+    }
+
+    /**
+     * 同一父约束集分裂出的两个分支各自与直接构造的约束集一致，且两者的比较结果与直接构造时相同。
+     */
+    public void testSiblingsSharingParent() {
+        Random random = new Random(42);
+        for (int round = 0; round < ROUNDS; round++) {
+            ConstraintSet parent = ConstraintSet.TRUE_CONSTRAINT_SET;
+            Set<ParameterConstraint> added = new TreeSet<>();
+            for (int k = random.nextInt(ConstraintSet.MAX_DEPTH); k > 0; k--) {
+                ParameterConstraint constraint = TestFixtures.randomConstraint(random, parameters);
+                parent = parent.and(constraint);
+                added.add(constraint);
+            }
+            ParameterConstraint split = TestFixtures.randomConstraint(random, parameters);
+            ConstraintSet left = parent.and(split);
+            ConstraintSet right = parent.and(split.negate());
+            ConstraintSet flatLeft = ConstraintSet.of(union(added, split));
+            ConstraintSet flatRight = ConstraintSet.of(union(added, split.negate()));
+            assertSameSet(flatLeft, left, random);
+            assertSameSet(flatRight, right, random);
+            assertEquals(flatLeft.equals(flatRight), left.equals(right));
+            assertEquals(Integer.signum(flatLeft.compareTo(flatRight)), Integer.signum(left.compareTo(right)));
+            assertEquals(left, parent.and(split));
+        }
+    }
+
+    // --- 辅助方法 ---
+
+    private static Set<ParameterConstraint> union(Set<ParameterConstraint> constraints, ParameterConstraint constraint) {
+        Set<ParameterConstraint> result = new TreeSet<>(constraints);
+        result.add(constraint);
+        return result;
+    }
+
+    /**
+     * 先检查不展开约束集的操作 (contains、区间、大小)，再检查需要有序集合的操作。
+     */
+    private void assertSameSet(ConstraintSet expected, ConstraintSet actual, Random random) {
+        for (ParameterConstraint constraint : expected.getConstraints()) {
+            assertTrue(actual.contains(constraint));
+        }
+        ParameterConstraint probe = TestFixtures.randomConstraint(random, parameters);
+        assertEquals(expected.contains(probe), actual.contains(probe));
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertEquals(expected.hashCode(), actual.hashCode());
+
+        ParameterIntervals expectedIntervals = expected.getIntervals();
+        ParameterIntervals actualIntervals = actual.getIntervals();
+        assertEquals(expectedIntervals.isEmpty(), actualIntervals.isEmpty());
+        assertEquals(expectedIntervals.isExact(), actualIntervals.isExact());
+        assertEquals(expectedIntervals.hasInterior(), actualIntervals.hasInterior());
+        for (Parameter parameter : parameters) {
+            assertEquals(expectedIntervals.getLower(parameter), actualIntervals.getLower(parameter));
+            assertEquals(expectedIntervals.getUpper(parameter), actualIntervals.getUpper(parameter));
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(0, actual.compareTo(expected));
+        assertEquals(expected.getConstraints(), actual.getConstraints());
+    }
+}
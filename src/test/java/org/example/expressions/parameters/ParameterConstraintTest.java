@@ -0,0 +1,125 @@
+package org.example.expressions.parameters;
+
+import junit.framework.TestCase;
+import org.example.core.Parameter;
+import org.example.core.ParameterValuation;
+import org.example.expressions.RelationType;
+import org.example.utils.Rational;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 参数约束规范形式的测试：等价的写法得到同一个实例，规范化不改变语义。
+ * @author Ayalyt
+ */
+public class ParameterConstraintTest extends TestCase {
+
+    private static final LinearExpression ZERO = LinearExpression.of(Rational.ZERO);
+
+    private Parameter p;
+    private Parameter q;
+
+    @Override
+    protected void setUp() {
+        p = Parameter.createNewParameter();
+        q = Parameter.createNewParameter();
+    }
+
+    public void testEquivalentFormsAreInterned() {
+        LinearExpression two = LinearExpression.of(Rational.valueOf(2));
+        ParameterConstraint direct = ParameterConstraint.of(LinearExpression.of(p), two, RelationType.LE);
+        ParameterConstraint scaled = ParameterConstraint.of(
+                LinearExpression.of(p, Rational.valueOf(3)), LinearExpression.of(Rational.valueOf(6)), RelationType.LE);
+        ParameterConstraint flipped = ParameterConstraint.of(two, LinearExpression.of(p), RelationType.GE);
+        ParameterConstraint moved = ParameterConstraint.of(
+                LinearExpression.of(p, Rational.valueOf(-2)).add(LinearExpression.of(Rational.valueOf(4))), ZERO,
+                RelationType.GE);
+        assertSame(direct, scaled);
+        assertSame(direct, flipped);
+        assertSame(direct, moved);
+        assertEquals(RelationType.LE, direct.getRelation());
+    }
+
+    public void testNegationIsInvolution() {
+        Random random = new Random(31);
+        for (int round = 0; round < 200; round++) {
+            ParameterConstraint constraint = randomConstraint(random);
+            ParameterConstraint negation = constraint.negate();
+            assertSame(constraint, negation.negate());
+            assertNotSame(constraint, negation);
+        }
+    }
+
+    public void testCanonicalForm() {
+        Random random = new Random(32);
+        for (int round = 0; round < 500; round++) {
+            ParameterConstraint constraint = randomConstraint(random);
+            RelationType relation = constraint.getRelation();
+            assertTrue("只保留 <= 与 <", relation == RelationType.LE || relation == RelationType.LT);
+            LinearExpression expr = constraint.getLeftExpr();
+            Rational leading = expr.isConstant() ? expr.getConstant() : expr.getCoefficient(0);
+            assertTrue("首项系数的绝对值为 1 或 0: " + constraint,
+                    leading.signum() == 0 || leading.abs().equals(Rational.ONE));
+        }
+    }
+
+    public void testConstantConstraints() {
+        ParameterConstraint tautology = ParameterConstraint.of(LinearExpression.of(Rational.valueOf(3)), ZERO, RelationType.GE);
+        ParameterConstraint contradiction = ParameterConstraint.of(LinearExpression.of(Rational.ONE), ZERO, RelationType.LT);
+        ParameterConstraint boundary = ParameterConstraint.of(ZERO, ZERO, RelationType.LT);
+        assertTrue(tautology.isTautology());
+        assertFalse(tautology.isContradiction());
+        assertTrue(contradiction.isContradiction());
+        assertTrue(boundary.isContradiction());
+        assertTrue(boundary.negate().isTautology());
+        assertSame(tautology, ParameterConstraint.of(LinearExpression.of(Rational.valueOf(7)), ZERO, RelationType.GE));
+    }
+
+    public void testNormalizationPreservesSemantics() {
+        Random random = new Random(33);
+        for (int round = 0; round < 500; round++) {
+            LinearExpression left = randomExpression(random);
+            LinearExpression right = randomExpression(random);
+            RelationType relation = RelationType.values()[random.nextInt(RelationType.values().length)];
+            ParameterConstraint constraint = ParameterConstraint.of(left, right, relation);
+            for (int sample = 0; sample < 10; sample++) {
+                Map<Parameter, Rational> values = new HashMap<>();
+                values.put(p, Rational.valueOf(random.nextInt(13), 1 + random.nextInt(3)));
+                values.put(q, Rational.valueOf(random.nextInt(13), 1 + random.nextInt(3)));
+                ParameterValuation valuation = ParameterValuation.of(values);
+                int original = left.evaluate(valuation).compareTo(right.evaluate(valuation));
+                assertEquals(constraint + " @ " + valuation, holds(relation, original),
+                        constraint.isSatisfiedBy(valuation));
+                assertEquals(!constraint.isSatisfiedBy(valuation), constraint.negate().isSatisfiedBy(valuation));
+            }
+        }
+    }
+
+    // --- 辅助方法 ---
+
+    private ParameterConstraint randomConstraint(Random random) {
+        RelationType relation = RelationType.values()[random.nextInt(RelationType.values().length)];
+        return ParameterConstraint.of(randomExpression(random), randomExpression(random), relation);
+    }
+
+    private LinearExpression randomExpression(Random random) {
+        return LinearExpression.of(p, Rational.valueOf(random.nextInt(9) - 4, 1 + random.nextInt(3)))
+                .add(LinearExpression.of(q, Rational.valueOf(random.nextInt(9) - 4)))
+                .add(LinearExpression.of(Rational.valueOf(random.nextInt(21) - 10, 1 + random.nextInt(4))));
+    }
+
+    private static boolean holds(RelationType relation, int sign) {
+        switch (relation) {
+            case LT:
+                return sign < 0;
+            case LE:
+                return sign <= 0;
+            case GT:
+                return sign > 0;
+            default:
+                return sign >= 0;
+        }
+    }
+}
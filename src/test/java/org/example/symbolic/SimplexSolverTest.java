@@ -0,0 +1,128 @@
+package org.example.symbolic;
+
+import junit.framework.TestCase;
+import org.example.TestFixtures;
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.core.ParameterValuation;
+import org.example.expressions.RelationType;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.utils.Rational;
+
+import java.util.*;
+
+/**
+ * 本地单纯形判定过程的测试：随机约束集上与 Z3 的可满足性与覆盖结果对照，
+ * 另有不依赖 Z3 的格点检查 (存在满足 C 的格点时必须判定为可满足)。
+ * @author Ayalyt
+ */
+public class SimplexSolverTest extends TestCase {
+
+    private static final int ROUNDS = 400;
+
+    private Parameter[] parameters;
+
+    @Override
+    protected void setUp() {
+        parameters = TestFixtures.newParameters(3);
+    }
+
+    public void testSimpleCases() {
+        Parameter p = parameters[0];
+        ParameterConstraint atMost3 = constraint(p, 1, -3, RelationType.LE);   // p <= 3
+        ParameterConstraint above3 = constraint(p, 1, -3, RelationType.GT);    // p > 3
+        ParameterConstraint atMost5 = constraint(p, 1, -5, RelationType.LE);   // p <= 5
+        ParameterConstraint below2 = constraint(p, 1, -2, RelationType.LT);    // p < 2
+        ParameterConstraint negative = constraint(p, 1, 0, RelationType.LT);   // p < 0
+
+        assertTrue(SimplexSolver.isSatisfiable(ConstraintSet.of(atMost3)));
+        assertFalse(SimplexSolver.isSatisfiable(ConstraintSet.of(atMost3).and(above3)));
+        assertFalse("参数非负", SimplexSolver.isSatisfiable(ConstraintSet.of(negative)));
+        assertEquals(Z3Oracle.OracleResult.YES, SimplexSolver.checkCoverage(atMost5, ConstraintSet.of(atMost3)));
+        assertEquals(Z3Oracle.OracleResult.NO, SimplexSolver.checkCoverage(above3, ConstraintSet.of(atMost3)));
+        assertEquals(Z3Oracle.OracleResult.SPLIT, SimplexSolver.checkCoverage(below2, ConstraintSet.of(atMost3)));
+    }
+
+    public void testSatisfiableLatticePoints() {
+        Random random = new Random(21);
+        for (int round = 0; round < ROUNDS; round++) {
+            ConstraintSet constraintSet = randomSet(random);
+            if (existsLatticePoint(constraintSet)) {
+                assertTrue("存在满足的格点: " + constraintSet, SimplexSolver.isSatisfiable(constraintSet));
+            }
+        }
+    }
+
+    public void testSatisfiabilityAgainstZ3() {
+        Random random = new Random(22);
+        try (Z3Oracle oracle = z3Oracle()) {
+            for (int round = 0; round < ROUNDS; round++) {
+                ConstraintSet constraintSet = randomSet(random);
+                assertEquals(constraintSet.toString(), oracle.isSatisfiable(constraintSet),
+                        Boolean.valueOf(SimplexSolver.isSatisfiable(constraintSet)));
+            }
+        }
+    }
+
+    public void testCoverageAgainstZ3() {
+        Random random = new Random(23);
+        try (Z3Oracle oracle = z3Oracle()) {
+            for (int round = 0; round < ROUNDS; round++) {
+                ConstraintSet constraintSet = randomSet(random);
+                ParameterConstraint c = TestFixtures.randomConstraint(random, parameters);
+                assertEquals(c + " / " + constraintSet, oracle.checkCoverage(c, constraintSet),
+                        SimplexSolver.checkCoverage(c, constraintSet));
+            }
+        }
+    }
+
+    // --- 辅助方法 ---
+
+    /**
+     * 只用 Z3 判定的 Oracle：关闭语法预判定，不使用缓存。
+     */
+    private Z3Oracle z3Oracle() {
+        Z3Oracle oracle = TestFixtures.oracle(Z3Oracle.Backend.Z3, parameters,
+                Collections.singleton(Clock.ZERO_CLOCK));
+        oracle.setPreDecision(false);
+        return oracle;
+    }
+
+    private ConstraintSet randomSet(Random random) {
+        ConstraintSet result = ConstraintSet.TRUE_CONSTRAINT_SET;
+        int count = 1 + random.nextInt(6);
+        for (int k = 0; k < count; k++) {
+            result = result.and(TestFixtures.randomConstraint(random, parameters));
+        }
+        return result;
+    }
+
+    private static ParameterConstraint constraint(Parameter p, long coefficient, long constant, RelationType relation) {
+        LinearExpression expr = LinearExpression.of(p, Rational.valueOf(coefficient))
+                .add(LinearExpression.of(Rational.valueOf(constant)));
+        return ParameterConstraint.of(expr, LinearExpression.of(Rational.ZERO), relation);
+    }
+
+    /**
+     * 在 [0, 8]³ 的半整数格点上搜索满足 C 的点。
+     */
+    private boolean existsLatticePoint(ConstraintSet constraintSet) {
+        for (int a = 0; a <= 16; a++) {
+            for (int b = 0; b <= 16; b++) {
+                for (int c = 0; c <= 16; c++) {
+                    Map<Parameter, Rational> values = new HashMap<>();
+                    values.put(parameters[0], Rational.valueOf(a, 2));
+                    values.put(parameters[1], Rational.valueOf(b, 2));
+                    values.put(parameters[2], Rational.valueOf(c, 2));
+                    if (constraintSet.isSatisfiedBy(ParameterValuation.of(values))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.example.symbolic;
+
+import junit.framework.TestCase;
+import org.example.TestFixtures;
+import org.example.core.Clock;
+import org.example.core.Parameter;
+import org.example.expressions.RelationType;
+import org.example.expressions.parameters.ConstraintSet;
+import org.example.expressions.parameters.LinearExpression;
+import org.example.expressions.parameters.ParameterConstraint;
+import org.example.utils.CacheStatistics;
+import org.example.utils.Rational;
+
+import java.util.*;
+
+/**
+ * Oracle 语法预判定的测试：随机查询上开启与关闭预判定的结果相同 (包括 C 不可满足的情况)，
+ * 单个查询、异步查询与批量查询的结果一致，且预判定能回答相当一部分查询。
+ * 使用本地单纯形后端，不需要 Z3。
+ * @author Ayalyt
+ */
+public class Z3OracleTest extends TestCase {
+
+    private static final int ROUNDS = 2000;
+
+    private Parameter[] parameters;
+    private Z3Oracle preDeciding;
+    private Z3Oracle solverOnly;
+
+    @Override
+    protected void setUp() {
+        parameters = TestFixtures.newParameters(3);
+        preDeciding = simplexOracle(true);
+        solverOnly = simplexOracle(false);
+    }
+
+    @Override
+    protected void tearDown() {
+        preDeciding.close();
+        solverOnly.close();
+    }
+
+    public void testCoverageMatchesSolver() {
+        Random random = new Random(41);
+        for (int round = 0; round < ROUNDS; round++) {
+            ConstraintSet constraintSet = randomSet(random);
+            ParameterConstraint c = TestFixtures.randomConstraint(random, parameters);
+            assertEquals(c + " / " + constraintSet, solverOnly.checkCoverage(c, constraintSet),
+                    preDeciding.checkCoverage(c, constraintSet));
+        }
+        CacheStatistics statistics = preDeciding.getPreDecisionStatistics();
+        assertTrue(statistics.toString(), statistics.getHitRate() >= 0.5);
+    }
+
+    public void testSatisfiabilityMatchesSolver() {
+        Random random = new Random(42);
+        for (int round = 0; round < ROUNDS; round++) {
+            ConstraintSet constraintSet = randomSet(random);
+            assertEquals(constraintSet.toString(), solverOnly.isSatisfiable(constraintSet),
+                    preDeciding.isSatisfiable(constraintSet));
+        }
+    }
+
+    /**
+     * C 不可满足时任何 c 都是 NO，即使 c 是永真式或属于 C。
+     */
+    public void testUnsatisfiableConstraintSet() {
+        Parameter p = parameters[0];
+        ParameterConstraint atMost1 = ParameterConstraint.of(LinearExpression.of(p), LinearExpression.of(Rational.ONE),
+                RelationType.LE);
+        ParameterConstraint atLeast2 = ParameterConstraint.of(LinearExpression.of(p),
+                LinearExpression.of(Rational.valueOf(2)), RelationType.GE);
+        ParameterConstraint tautology = ParameterConstraint.of(LinearExpression.of(Rational.ONE),
+                LinearExpression.of(Rational.ZERO), RelationType.GE);
+        ConstraintSet empty = ConstraintSet.of(atMost1).and(atLeast2);
+        for (ParameterConstraint c : Arrays.asList(atMost1, atLeast2, tautology)) {
+            assertEquals(c.toString(), Z3Oracle.OracleResult.NO, preDeciding.checkCoverage(c, empty));
+            // 再次查询时结果来自缓存
+            assertEquals(c.toString(), Z3Oracle.OracleResult.NO, preDeciding.checkCoverage(c, empty));
+        }
+    }
+
+    public void testBatchAndAsyncMatchSingleQueries() {
+        Random random = new Random(43);
+        for (int round = 0; round < ROUNDS / 20; round++) {
+            ConstraintSet constraintSet = randomSet(random);
+            List<ParameterConstraint> constraints = new ArrayList<>();
+            for (int k = 0; k < 8; k++) {
+                constraints.add(TestFixtures.randomConstraint(random, parameters));
+            }
+            List<Z3Oracle.OracleResult> batch = preDeciding.checkCoverageBatch(constraints, constraintSet).join();
+            assertEquals(constraints.size(), batch.size());
+            for (int k = 0; k < constraints.size(); k++) {
+                Z3Oracle.OracleResult expected = solverOnly.checkCoverage(constraints.get(k), constraintSet);
+                assertEquals(constraints.get(k) + " / " + constraintSet, expected, batch.get(k));
+                assertEquals(expected, preDeciding.checkCoverageAsync(constraints.get(k), constraintSet).join());
+            }
+        }
+    }
+
+    // --- 辅助方法 ---
+
+    private Z3Oracle simplexOracle(boolean preDecision) {
+        Z3Oracle oracle = TestFixtures.simplexOracle(parameters, Collections.singleton(Clock.ZERO_CLOCK));
+        oracle.setPreDecision(preDecision);
+        return oracle;
+    }
+
+    /**
+     * 单参数的区间约束为主，偶尔加入多参数约束，覆盖预判定的各条规则与无法判定的情况。
+     */
+    private ConstraintSet randomSet(Random random) {
+        ConstraintSet result = ConstraintSet.TRUE_CONSTRAINT_SET;
+        int count = 1 + random.nextInt(4);
+        for (int k = 0; k < count; k++) {
+            if (random.nextInt(4) == 0) {
+                result = result.and(TestFixtures.randomConstraint(random, parameters));
+            } else {
+                Parameter parameter = parameters[random.nextInt(parameters.length)];
+                result = result.and(ParameterConstraint.of(LinearExpression.of(parameter),
+                        LinearExpression.of(Rational.valueOf(random.nextInt(9))), TestFixtures.randomRelation(random)));
+            }
+        }
+        return result;
+    }
+}